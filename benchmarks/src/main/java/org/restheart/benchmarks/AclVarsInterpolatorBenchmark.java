@@ -0,0 +1,75 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.security.impl.SecurityContextImpl;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.security.AclVarsInterpolator;
+import org.restheart.security.MongoRealmAccount;
+
+/**
+ * Benchmarks AclVarsInterpolator.interpolatePredicate(), that is invoked to
+ * authorize requests with permissions whose predicate contains @user variables
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AclVarsInterpolatorBenchmark {
+    private static final String PREDICATE = "method(GET) and path-template('/{userid}/{coll}') and equals(@user.userid, ${userid}) and equals(@user.tenant.name, ${coll})";
+
+    private MongoRequest request;
+
+    @Setup
+    public void setup() {
+        var exchange = Exchanges.exchange("GET", "/uji/coll");
+
+        var accountDocument = new BsonDocument("_id", new BsonString("uji"))
+            .append("userid", new BsonString("uji"))
+            .append("roles", new BsonArray())
+            .append("tenant", new BsonDocument("name", new BsonString("coll")));
+
+        var sc = new SecurityContextImpl(exchange, null);
+        sc.authenticationComplete(new MongoRealmAccount("uji", new char[0], Set.of("user"), accountDocument), "benchmark", false);
+        exchange.setSecurityContext(sc);
+
+        this.request = MongoRequest.init(exchange, "/", "*");
+    }
+
+    @Benchmark
+    public Predicate interpolatePredicate() throws Exception {
+        return AclVarsInterpolator.interpolatePredicate(request, PREDICATE, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,138 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.restheart.utils.BsonUtils;
+
+/**
+ * Benchmarks BsonUtils.toJson(), the compact json serialization used to send
+ * responses, against the legacy serialization and Minify alone.
+ *
+ * The legacy serialization is BsonDocument.toJson() followed by
+ * BsonUtils.minify(); arrays and scalars, e.g. the _id of a created document,
+ * were wrapped in a document and unwrapped with regular expressions.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BsonUtilsBenchmark {
+    /**
+     * document: a response with 100 embedded documents; array: an array of
+     * 1000 documents; id: a scalar ObjectId
+     */
+    @Param({ "document", "array", "id" })
+    public String value;
+
+    @Param({ "RELAXED", "EXTENDED" })
+    public JsonMode mode;
+
+    private BsonValue bson;
+    private String json;
+
+    private JsonWriterSettings settings;
+
+    @Setup
+    public void setup() {
+        this.settings = JsonWriterSettings.builder().outputMode(mode).indent(false).build();
+
+        var item = new BsonDocument("_id", new BsonObjectId())
+            .append("name", new BsonString("RESTHeart"))
+            .append("n", new BsonInt32(1))
+            .append("timestamp", new BsonDateTime(System.currentTimeMillis()))
+            .append("tags", new BsonArray(List.of(new BsonString("a"), new BsonString("b"))))
+            .append("nested", new BsonDocument("a", new BsonDocument("b", new BsonString("c"))));
+
+        this.bson = switch (value) {
+            case "document" -> new BsonDocument("_embedded", items(item, 100)).append("_returned", new BsonInt32(100));
+            case "array" -> items(item, 1000);
+            case "id" -> new BsonObjectId();
+            default -> throw new IllegalArgumentException("unknown value " + value);
+        };
+
+        this.json = legacyToJson();
+    }
+
+    private static BsonArray items(BsonDocument item, int count) {
+        var ret = new BsonArray();
+
+        for (int i = 0; i < count; i++) {
+            ret.add(item.clone().append("i", new BsonInt32(i)));
+        }
+
+        return ret;
+    }
+
+    @Benchmark
+    public String toJson() {
+        return BsonUtils.toJson(bson, mode);
+    }
+
+    @Benchmark
+    public String legacyToJson() {
+        if (bson.isDocument()) {
+            return BsonUtils.minify(bson.asDocument().toJson(settings));
+        } else if (bson.isArray()) {
+            var ret = new BsonDocument("wrapped", bson.asArray()).toJson(settings);
+
+            ret = ret.substring(0, ret.length() - 1);
+            ret = ret.replaceFirst("\\{", "");
+            ret = ret.replaceFirst("\"wrapped\"", "");
+            ret = ret.replaceFirst(":", "");
+
+            return BsonUtils.minify(ret);
+        } else {
+            var ret = new BsonDocument("x", bson).toJson(settings);
+
+            ret = ret.replaceFirst("\\{", "");
+            ret = ret.replaceFirst("\"x\"", "");
+            ret = ret.replaceFirst(":", "");
+            ret = ret.substring(0, ret.lastIndexOf('}'));
+
+            return BsonUtils.minify(ret);
+        }
+    }
+
+    @Benchmark
+    public String minify() {
+        return BsonUtils.minify(json);
+    }
+}
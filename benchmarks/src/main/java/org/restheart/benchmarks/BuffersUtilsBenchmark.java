@@ -0,0 +1,126 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.DefaultByteBufferPool;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.restheart.utils.BuffersUtils;
+
+/**
+ * Benchmarks BuffersUtils.append() and BuffersUtils.transfer(), used to buffer
+ * the request and response content. The destination buffers are allocated in
+ * setup, so the exchange, only used to allocate missing buffers, is not needed
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BuffersUtilsBenchmark {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    // the size of the content
+    @Param({ "1024", "65536" })
+    public int size;
+
+    private final DefaultByteBufferPool pool = new DefaultByteBufferPool(true, BUFFER_SIZE);
+
+    private ByteBuffer content;
+    private PooledByteBuffer[] src;
+    private PooledByteBuffer[] dest;
+
+    @Setup
+    public void setup() {
+        var bytes = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+
+        this.content = ByteBuffer.allocateDirect(size);
+        this.content.put(bytes).flip();
+
+        var nbuffers = (size + BUFFER_SIZE - 1) / BUFFER_SIZE;
+
+        this.src = new PooledByteBuffer[nbuffers];
+        this.dest = new PooledByteBuffer[nbuffers];
+
+        for (int i = 0; i < nbuffers; i++) {
+            this.src[i] = pool.allocate();
+            this.dest[i] = pool.allocate();
+        }
+
+        BuffersUtils.transfer(content, src, null);
+    }
+
+    @TearDown
+    public void teardown() {
+        for (var b : src) {
+            if (b != null) {
+                b.close();
+            }
+        }
+
+        for (var b : dest) {
+            if (b != null) {
+                b.close();
+            }
+        }
+
+        pool.close();
+    }
+
+    @Benchmark
+    public int transferByteBuffer() {
+        content.rewind();
+        return BuffersUtils.transfer(content, dest, null);
+    }
+
+    @Benchmark
+    public int append() {
+        // empty the destination buffers, append() writes after their limit
+        for (var b : dest) {
+            b.getBuffer().limit(0);
+        }
+
+        return BuffersUtils.append(content, dest, null);
+    }
+
+    @Benchmark
+    public int transferPooledBuffers() {
+        for (var b : dest) {
+            b.getBuffer().clear();
+        }
+
+        return BuffersUtils.transfer(src, dest, null);
+    }
+}
@@ -0,0 +1,140 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.MongoServiceConfigurationKeys;
+import org.restheart.mongodb.db.CursorPool;
+import org.restheart.mongodb.db.CursorPoolEntryKey;
+import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.SkippedFindIterable;
+
+/**
+ * Benchmarks CursorPool.get() with large pools. The pool is filled with cursors
+ * over collections of a MongoClient that never connects: creating a
+ * FindIterable does not involve the server
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CursorPoolBenchmark {
+    private static final int COLLECTIONS = 10;
+    private static final int SLICE_WIDTH = 1000;
+
+    @Param({ "100", "1000", "10000" })
+    public int poolSize;
+
+    private MongoClient client;
+    private CursorPool pool;
+    private Method put;
+
+    private CursorPoolEntryKey hitKey;
+    private CursorPoolEntryKey pooledKey;
+    private FindIterable<BsonDocument> pooledCursor;
+    private CursorPoolEntryKey missKey;
+
+    @Setup
+    public void setup() throws Exception {
+        var conf = new HashMap<String, Object>();
+        conf.put(MongoServiceConfigurationKeys.EAGER_POOL_SIZE, 100_000);
+        MongoServiceConfiguration.init(conf);
+
+        this.client = new MongoClient("127.0.0.1", MongoClientOptions.builder().serverSelectionTimeout(100).build());
+
+        // the DatabaseImpl is only used to populate the pool, that is done here
+        var ctor = CursorPool.class.getDeclaredConstructor(DatabaseImpl.class);
+        ctor.setAccessible(true);
+        this.pool = ctor.newInstance((DatabaseImpl) null);
+
+        this.put = CursorPool.class.getDeclaredMethod("put", CursorPoolEntryKey.class, FindIterable.class);
+        this.put.setAccessible(true);
+
+        var filter = new BsonDocument("status", new BsonString("active"));
+        var sort = new BsonDocument("_id", new BsonInt32(-1));
+
+        List<MongoCollection<BsonDocument>> colls = new ArrayList<>();
+
+        for (int c = 0; c < COLLECTIONS; c++) {
+            colls.add(client.getDatabase("db").getCollection("coll" + c, BsonDocument.class));
+        }
+
+        var slices = poolSize / COLLECTIONS;
+
+        for (int c = 0; c < COLLECTIONS; c++) {
+            for (int s = 1; s <= slices; s++) {
+                var key = new CursorPoolEntryKey(null, colls.get(c), sort, filter, null, null, s * SLICE_WIDTH, c * slices + s);
+                this.put.invoke(pool, key, colls.get(c).find(filter).sort(sort).skip(s * SLICE_WIDTH));
+            }
+        }
+
+        // the pooled cursor closest to hitKey
+        var lastSkips = slices * SLICE_WIDTH;
+        this.pooledKey = new CursorPoolEntryKey(null, colls.get(0), sort, filter, null, null, lastSkips, slices);
+        this.pooledCursor = colls.get(0).find(filter).sort(sort).skip(lastSkips);
+
+        this.hitKey = new CursorPoolEntryKey(null, colls.get(0), sort, filter, null, null, lastSkips + 50, -1);
+        this.missKey = new CursorPoolEntryKey(null, colls.get(0), sort, new BsonDocument("status", new BsonString("inactive")), null, null, lastSkips + 50, -1);
+    }
+
+    @TearDown
+    public void teardown() {
+        this.client.close();
+    }
+
+    @Benchmark
+    public SkippedFindIterable hit() throws Exception {
+        var ret = pool.get(hitKey, EAGER_CURSOR_ALLOCATION_POLICY.LINEAR);
+
+        // get() removes the cursor from the pool, put it back
+        this.put.invoke(pool, pooledKey, pooledCursor);
+
+        return ret;
+    }
+
+    @Benchmark
+    public SkippedFindIterable miss() {
+        return pool.get(missKey, EAGER_CURSOR_ALLOCATION_POLICY.LINEAR);
+    }
+}
@@ -0,0 +1,53 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+
+/**
+ * Creates the HttpServerExchanges used by the benchmarks. The exchanges are not
+ * bound to a connection, so they can be used only with code that does not
+ * read or write the request and response channels
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+final class Exchanges {
+    private Exchanges() {
+    }
+
+    /**
+     *
+     * @param method the request method
+     * @param path the request path
+     * @return an HttpServerExchange not bound to a connection
+     */
+    static HttpServerExchange exchange(String method, String path) {
+        var exchange = new HttpServerExchange(null);
+
+        exchange.setRequestMethod(HttpString.tryFromString(method));
+        exchange.setRequestURI(path);
+        exchange.setRequestPath(path);
+        exchange.setRelativePath(path);
+
+        return exchange;
+    }
+}
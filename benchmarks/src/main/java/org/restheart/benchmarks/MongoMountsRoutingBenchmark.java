@@ -0,0 +1,76 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import io.undertow.util.PathMatcher;
+import io.undertow.util.PathTemplateMatcher;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the resolution of the mongo-mount of a request, as done by
+ * MongoService.requestInitializer() with a PathMatcher when the mounts are
+ * paths, or with a PathTemplateMatcher when they are path templates
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MongoMountsRoutingBenchmark {
+    @Param({ "1", "10", "100" })
+    public int mounts;
+
+    private final PathMatcher<String> mongoMounts = new PathMatcher<>();
+    private final PathTemplateMatcher<String> templateMongoMounts = new PathTemplateMatcher<>();
+
+    private String path;
+    private String templatePath;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < mounts; i++) {
+            mongoMounts.addPrefixPath("/api" + i, "/db" + i);
+            templateMongoMounts.add("/api" + i + "/{tenant}/{coll}", "/db" + i);
+        }
+
+        // the last added mount, with a document id
+        this.path = "/api" + (mounts - 1) + "/coll/5f3a1e2b9c1d4a0001a2b3c4";
+        this.templatePath = "/api" + (mounts - 1) + "/acme/coll";
+    }
+
+    @Benchmark
+    public PathMatcher.PathMatch<String> pathMatcher() {
+        return mongoMounts.match(path);
+    }
+
+    @Benchmark
+    public PathTemplateMatcher.PathMatchResult<String> pathTemplateMatcher() {
+        return templateMongoMounts.match(templatePath);
+    }
+}
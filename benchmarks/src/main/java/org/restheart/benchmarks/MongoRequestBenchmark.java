@@ -0,0 +1,90 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.restheart.exchange.MongoRequest;
+
+/**
+ * Benchmarks the parsing of the filter and sort_by query parameters of a
+ * MongoRequest
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MongoRequestBenchmark {
+    private MongoRequest oneFilter;
+    private MongoRequest manyFilters;
+
+    @Setup
+    public void setup() {
+        this.oneFilter = MongoRequest.init(Exchanges.exchange("GET", "/db/coll"), "/", "*");
+        this.oneFilter.setFilter(new ArrayDeque<>(List.of("{\"status\":\"active\",\"n\":{\"$gte\":10}}")));
+        this.oneFilter.setSortBy(new ArrayDeque<>(List.of("-timestamp")));
+
+        this.manyFilters = MongoRequest.init(Exchanges.exchange("GET", "/db/coll"), "/", "*");
+        this.manyFilters.setFilter(new ArrayDeque<>(List.of(
+            "{\"status\":\"active\"}",
+            "{\"n\":{\"$gte\":10}}",
+            "{\"tags\":{\"$in\":[\"a\",\"b\"]}}")));
+        this.manyFilters.setSortBy(new ArrayDeque<>(List.of("{\"timestamp\":-1}", "name", "+n")));
+    }
+
+    @Benchmark
+    public BsonDocument filtersDocument() {
+        return oneFilter.getFiltersDocument();
+    }
+
+    @Benchmark
+    public BsonDocument filtersDocumentAnd() {
+        return manyFilters.getFiltersDocument();
+    }
+
+    @Benchmark
+    public BsonDocument sortByDocument() {
+        return oneFilter.getSortByDocument();
+    }
+
+    @Benchmark
+    public BsonDocument sortByDocumentMany() {
+        return manyFilters.getSortByDocument();
+    }
+
+    /**
+     * parsing of a filter already seen by a previous request
+     */
+    @Benchmark
+    public BsonDocument parseQueryParameter() {
+        return MongoRequest.parseQueryParameter("{\"tags\":{\"$in\":[\"a\",\"b\"]}}");
+    }
+}
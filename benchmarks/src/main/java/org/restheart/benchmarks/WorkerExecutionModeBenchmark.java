@@ -0,0 +1,140 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-benchmarks
+ * %%
+ * Copyright (C) 2014 - 2022 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.benchmarks;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.restheart.Bootstrapper;
+import org.restheart.Configuration;
+import org.restheart.Configuration.WORKER_EXECUTION_MODE;
+import org.restheart.handlers.VirtualThreadsBlockingHandler;
+
+/**
+ * Compares the PLATFORM and VIRTUAL worker execution modes with 1k, 5k and 10k
+ * concurrent requests whose handling blocks for SLOW_OPERATION_MS, simulating
+ * a slow MongoDB response.
+ *
+ * The requests are sent over HTTP to an Undertow server whose handler is the
+ * base pipeline built by Bootstrapper.getBasePipeline(), with the io and
+ * worker threads of the default configuration. The requests limit is set to
+ * the number of concurrent requests, so that it doesn't bound them.
+ *
+ * The score is the time to complete all the concurrent requests: the
+ * throughput is concurrentRequests / score.
+ *
+ * VIRTUAL requires Java 21+; client and server open a connection for each
+ * concurrent request, so the open files limit must be greater than twice the
+ * concurrent requests.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorkerExecutionModeBenchmark {
+    private static final int SLOW_OPERATION_MS = 100;
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    public WORKER_EXECUTION_MODE mode;
+
+    @Param({ "1000", "5000", "10000" })
+    public int concurrentRequests;
+
+    private Undertow server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        if (mode == WORKER_EXECUTION_MODE.VIRTUAL && VirtualThreadsBlockingHandler.newVirtualThreadPerTaskExecutor() == null) {
+            throw new IllegalStateException("Virtual threads are not supported by the Java runtime " + Runtime.version());
+        }
+
+        var conf = Configuration.Builder.build(true);
+
+        HttpHandler slowService = exchange -> {
+            Thread.sleep(SLOW_OPERATION_MS);
+            exchange.getResponseSender().send("{}");
+        };
+
+        // the base pipeline is private, as the Bootstrapper builds it from the configuration
+        var getBasePipeline = Bootstrapper.class.getDeclaredMethod("getBasePipeline", WORKER_EXECUTION_MODE.class, int.class, HttpHandler.class);
+        getBasePipeline.setAccessible(true);
+
+        var pipeline = (HttpHandler) getBasePipeline.invoke(null, mode, concurrentRequests, slowService);
+
+        int port;
+
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        this.server = Undertow.builder()
+            .addHttpListener(port, "127.0.0.1")
+            .setIoThreads(conf.getIoThreads())
+            .setWorkerThreads(conf.getWorkerThreads())
+            .setHandler(pipeline)
+            .build();
+
+        this.server.start();
+
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/")).GET().build();
+    }
+
+    @TearDown
+    public void teardown() {
+        this.server.stop();
+    }
+
+    @Benchmark
+    public int concurrentSlowRequests() {
+        var responses = new CompletableFuture<?>[concurrentRequests];
+
+        for (int i = 0; i < concurrentRequests; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenAccept(r -> {
+                if (r.statusCode() != 200) {
+                    throw new IllegalStateException("unexpected response status " + r.statusCode());
+                }
+            });
+        }
+
+        CompletableFuture.allOf(responses).join();
+
+        return concurrentRequests;
+    }
+}
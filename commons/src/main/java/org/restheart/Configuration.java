@@ -41,6 +41,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
@@ -109,11 +110,14 @@ public class Configuration {
     private final boolean logToFile;
     private final List<String> traceHeaders;
     private final int requestsLimit;
+    private final Map<String, Object> concurrencyLimits;
     private final int ioThreads;
     private final int workerThreads;
+    private final WORKER_EXECUTION_MODE workerExecutionMode;
     private final int bufferSize;
     private final boolean directBuffers;
     private final boolean forceGzipEncoding;
+    private final Map<String, Object> compression;
     private final Map<String, Object> connectionOptions;
     private final Integer logExchangeDump;
     private final boolean ansiConsole;
@@ -190,11 +194,30 @@ public class Configuration {
         traceHeaders = asListOfStrings(conf, REQUESTS_LOG_TRACE_HEADERS_KEY, Collections.emptyList(), silent);
 
         requestsLimit = asInteger(conf, REQUESTS_LIMIT_KEY, 100, silent);
+        concurrencyLimits = conf != null && conf.containsKey(CONCURRENCY_LIMITS_KEY)
+            ? asMap(conf, CONCURRENCY_LIMITS_KEY, silent)
+            : null;
         ioThreads = asInteger(conf, IO_THREADS_KEY, 2, silent);
         workerThreads = asInteger(conf, WORKER_THREADS_KEY, 32, silent);
+
+        {
+            WORKER_EXECUTION_MODE wem;
+            var value = asString(conf, WORKER_EXECUTION_MODE_KEY, WORKER_EXECUTION_MODE.PLATFORM.name(), silent);
+            try {
+                wem = WORKER_EXECUTION_MODE.valueOf(value.toUpperCase(Locale.getDefault()));
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("wrong value for {}. allowed values are {}; setting it to {}", WORKER_EXECUTION_MODE_KEY, Arrays.toString(WORKER_EXECUTION_MODE.values()), WORKER_EXECUTION_MODE.PLATFORM);
+                wem = WORKER_EXECUTION_MODE.PLATFORM;
+            }
+            workerExecutionMode = wem;
+        }
+
         bufferSize = asInteger(conf, BUFFER_SIZE_KEY, 16384, silent);
         directBuffers = asBoolean(conf, DIRECT_BUFFERS_KEY, true, silent);
         forceGzipEncoding = asBoolean(conf, FORCE_GZIP_ENCODING_KEY, false, silent);
+        compression = conf != null && conf.containsKey(COMPRESSION_KEY)
+            ? asMap(conf, COMPRESSION_KEY, silent)
+            : null;
         logExchangeDump = asInteger(conf, LOG_REQUESTS_LEVEL_KEY, 0, silent);
         connectionOptions = asMap(conf, CONNECTION_OPTIONS_KEY, silent);
         allowUnescapedCharactersInUrl = asBoolean(conf, ALLOW_UNESCAPED_CHARACTERS_IN_URL, true, silent);
@@ -211,9 +234,9 @@ public class Configuration {
                 + pluginsArgs + ", authMechanisms=" + authMechanisms + ", authenticators=" + authenticators
                 + ", authorizers=" + authorizers + ", tokenManager=" + tokenManagers + ", logFilePath=" + logFilePath
                 + ", logLevel=" + logLevel + ", logToConsole=" + logToConsole + ", logToFile=" + logToFile
-                + ", traceHeaders=" + traceHeaders + ", requestsLimit=" + requestsLimit + ", ioThreads=" + ioThreads
-                + ", workerThreads=" + workerThreads + ", bufferSize=" + bufferSize + ", directBuffers=" + directBuffers
-                + ", forceGzipEncoding=" + forceGzipEncoding + ", connectionOptions=" + connectionOptions
+                + ", traceHeaders=" + traceHeaders + ", requestsLimit=" + requestsLimit + ", concurrencyLimits=" + concurrencyLimits + ", ioThreads=" + ioThreads
+                + ", workerThreads=" + workerThreads + ", workerExecutionMode=" + workerExecutionMode + ", bufferSize=" + bufferSize + ", directBuffers=" + directBuffers
+                + ", forceGzipEncoding=" + forceGzipEncoding + ", compression=" + compression + ", connectionOptions=" + connectionOptions
                 + ", logExchangeDump=" + logExchangeDump + ", ansiConsole=" + ansiConsole
                 + ", allowUnescapedCharactersInUrl=" + allowUnescapedCharactersInUrl + '}';
     }
@@ -388,6 +411,13 @@ public class Configuration {
         return workerThreads;
     }
 
+    /**
+     * @return the workerExecutionMode
+     */
+    public WORKER_EXECUTION_MODE getWorkerExecutionMode() {
+        return workerExecutionMode;
+    }
+
     /**
      * @return the bufferSize
      */
@@ -409,6 +439,15 @@ public class Configuration {
         return forceGzipEncoding;
     }
 
+    /**
+     * @return the compression options, an empty map if not configured
+     */
+    public Map<String, Object> getCompression() {
+        return compression == null
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(compression);
+    }
+
     /**
      * @return the pluginsArgs
      */
@@ -444,6 +483,15 @@ public class Configuration {
         return requestsLimit;
     }
 
+    /**
+     * @return the concurrencyLimits, an empty map if not configured
+     */
+    public Map<String, Object> getConcurrencyLimits() {
+        return concurrencyLimits == null
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(concurrencyLimits);
+    }
+
     /**
      * @return the tokenManagers
      */
@@ -485,6 +533,21 @@ public class Configuration {
         return PATH;
     }
 
+    /**
+     * Defines the threads that execute the blocking part of the request pipeline
+     */
+    public enum WORKER_EXECUTION_MODE {
+        /**
+         * requests are dispatched to the fixed XNIO worker thread pool (worker-threads)
+         */
+        PLATFORM,
+        /**
+         * each request is dispatched to a new virtual thread;
+         * requires a Java runtime that supports virtual threads
+         */
+        VIRTUAL
+    }
+
     static boolean isParametric(final Path confFilePath) throws IOException {
         try (var sc = new Scanner(confFilePath, "UTF-8")) {
             return sc.findAll(Pattern.compile("\\{\\{.*\\}\\}")).limit(1).count() > 0;
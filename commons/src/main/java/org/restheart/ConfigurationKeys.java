@@ -128,6 +128,11 @@ public interface ConfigurationKeys {
      */
     public static final String FORCE_GZIP_ENCODING_KEY = "force-gzip-encoding";
 
+    /**
+     * the key for the compression property.
+     */
+    public static final String COMPRESSION_KEY = "compression";
+
     /**
      * the key for the direct-buffers property.
      */
@@ -143,6 +148,11 @@ public interface ConfigurationKeys {
      */
     public static final String WORKER_THREADS_KEY = "worker-threads";
 
+    /**
+     * the key for the worker-execution-mode property.
+     */
+    public static final String WORKER_EXECUTION_MODE_KEY = "worker-execution-mode";
+
     /**
      * the key for the io-threads property.
      */
@@ -153,6 +163,11 @@ public interface ConfigurationKeys {
      */
     public static final String REQUESTS_LIMIT_KEY = "requests-limit";
 
+    /**
+     * the key for the concurrency-limits property.
+     */
+    public static final String CONCURRENCY_LIMITS_KEY = "concurrency-limits";
+
     /**
      * the key for the enable-log-file property.
      */
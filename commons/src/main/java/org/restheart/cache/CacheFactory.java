@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 import org.restheart.cache.impl.CaffeineCache;
 import org.restheart.cache.impl.CaffeineLoadingCache;
 import org.restheart.cache.impl.HashMapLoadingCache;
@@ -84,6 +85,20 @@ public class CacheFactory {
         return new CaffeineCache<>(size, expirePolicy, ttl, remover);
     }
 
+    /**
+     *
+     * @param <K> the type of the cache keys
+     * @param <V> the type of the cached values
+     * @param maxWeight the maximum total weight of the entries of the cache
+     * @param weigher computes the weight of each entry, e.g. its size in bytes
+     * @param expirePolicy specifies how and when each entry should be automatically removed from the cache
+     * @param ttl Time To Live in milliseconds
+     * @return the cache.
+    */
+    public static <K,V> Cache<K,V> createLocalWeightedCache(long maxWeight, ToIntBiFunction<K, V> weigher, Cache.EXPIRE_POLICY expirePolicy, long ttl) {
+        return new CaffeineCache<>(maxWeight, weigher, expirePolicy, ttl);
+    }
+
     private CacheFactory() {
     }
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
@@ -56,6 +57,21 @@ public class CaffeineCache<K, V> implements org.restheart.cache.Cache<K, V> {
         wrapped = builder.build();
     }
 
+    public CaffeineCache(long maxWeight, ToIntBiFunction<K, V> weigher, EXPIRE_POLICY expirePolicy, long ttl) {
+        var builder = Caffeine.newBuilder();
+
+        builder.maximumWeight(maxWeight)
+            .weigher((K k, Optional<V> v) -> v.isPresent() ? weigher.applyAsInt(k, v.get()) : 0);
+
+        if (ttl > 0 && expirePolicy == EXPIRE_POLICY.AFTER_WRITE) {
+            builder.expireAfterWrite(ttl, TimeUnit.MILLISECONDS);
+        } else if (ttl > 0 && expirePolicy == EXPIRE_POLICY.AFTER_READ) {
+            builder.expireAfterAccess(ttl, TimeUnit.MILLISECONDS);
+        }
+
+        wrapped = builder.build();
+    }
+
     public CaffeineCache(long size, EXPIRE_POLICY expirePolicy, long ttl, Consumer<Map.Entry<K, Optional<V>>> remover) {
         var builder = Caffeine.newBuilder();
 
@@ -20,19 +20,21 @@
 package org.restheart.exchange;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
-import org.bson.BsonString;
 import org.bson.BsonValue;
-import org.bson.json.JsonParseException;
-import org.restheart.utils.BsonUtils;
 import org.restheart.utils.ChannelReader;
+import org.restheart.utils.CsvParser;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderValues;
@@ -43,6 +45,10 @@ import io.undertow.util.Headers;
  * data. Two query parameters controls the conversion: 'id', the the index of
  * the _id property and 'sep', the separator char
  *
+ * The csv data is parsed lazily: documents() parses the rows one at a time
+ * from the request content stream, while getContent() parses all of them in
+ * memory.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
@@ -51,6 +57,9 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
      */
     public static final String CVS_CONTENT_TYPE = "text/csv";
 
+    private CsvRequestParams params = null;
+    private boolean contentStreamConsumed = false;
+
     protected BsonFromCsvRequest(HttpServerExchange exchange) {
         super(exchange);
     }
@@ -60,10 +69,7 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
 
         if (checkContentType(exchange)) {
             try {
-                ret.injectContent(exchange);
-            } catch (IOException ex) {
-                LOGGER.warn("error parsing CSV", ex);
-                ret.setInError(true);
+                ret.params = new CsvRequestParams(exchange);
             } catch (Throwable ieo) {
                 LOGGER.warn("error initializing request", ieo);
                 ret.setInError(true);
@@ -81,92 +87,123 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
     }
 
     public void injectContent(HttpServerExchange exchange) throws IOException {
-        final var params = new CsvRequestParams(exchange);
-        final var csv = ChannelReader.readString(exchange);
+        if (this.params == null) {
+            this.params = new CsvRequestParams(exchange);
+        }
 
-        setContent(parseCsv(params, csv));
+        try {
+            var documents = new BsonArray();
+            documents().forEachRemaining(documents::add);
+            setContent(documents);
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
     }
 
-    private static boolean checkContentType(HttpServerExchange exchange) {
-        HeaderValues contentType = exchange.getRequestHeaders().get(Headers.CONTENT_TYPE);
+    /**
+     * @return the content, parsing all the csv rows if they were not parsed
+     * yet; null if the content cannot be parsed
+     */
+    @Override
+    public BsonArray getContent() {
+        if (this.content == null && !this.contentStreamConsumed && this.params != null && !isInError()) {
+            try {
+                injectContent(getExchange());
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.warn("error parsing CSV", ex);
+                setInError(true);
+            }
+        }
 
-        return contentType != null && contentType.stream()
-                .anyMatch(ct -> ct.equals(CVS_CONTENT_TYPE) || ct.startsWith(CVS_CONTENT_TYPE.concat(";")));
+        return this.content;
     }
 
-    private BsonArray parseCsv(CsvRequestParams params, String csv) throws IOException {
-        var bson = new BsonArray();
+    /**
+     * Returns the documents parsed one row at a time from the request content
+     * stream, so that the content is never fully held in memory. If the
+     * content has been already parsed, e.g. because an interceptor invoked
+     * getContent(), returns an iterator over it.
+     *
+     * The content stream can be consumed only once, after that getContent()
+     * returns an empty array.
+     *
+     * @return the iterator over the documents; it throws BadRequestException
+     * if the csv data is invalid
+     * @throws IOException
+     */
+    public Iterator<BsonDocument> documents() throws IOException {
+        if (this.content != null || this.contentStreamConsumed) {
+            var content = this.content == null ? new BsonArray() : this.content;
+            return content.stream().map(BsonValue::asDocument).iterator();
+        }
 
-        boolean isHeader = true;
+        if (this.params == null) {
+            throw new IllegalStateException("request not initialized");
+        }
 
-        List<String> cols = null;
+        this.contentStreamConsumed = true;
 
-        try (Scanner scanner = new Scanner(csv)) {
-            while (scanner.hasNext()) {
-                String line = scanner.nextLine();
+        var rows = new CsvParser(new InputStreamReader(ChannelReader.inputStream(getExchange()), StandardCharsets.UTF_8),
+                this.params.sep);
 
-                // split on the separator only if that comma has zero,
-                // or an even number of quotes ahead of it.
-                List<String> vals = Arrays.asList(line.split(params.sep + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1));
+        return new Iterator<BsonDocument>() {
+            private List<String> cols = null;
 
-                if (isHeader) {
-                    cols = vals;
-                } else {
-                    var doc = new BsonDocument("_etag", new BsonObjectId());
-
-                    int unnamedProps = 0;
-
-                    for (int idx = 0; idx < vals.size(); idx++) {
-                        if (idx == params.idIdx) {
-                            var _v = vals.get(params.idIdx);
-
-                            if (_v != null) {
-                                // quote empty string
-                                if ("".equals(_v.trim())) {
-                                    _v = "\"".concat(_v).concat("\"");
-                                }
-
-                                doc.append("_id", getBsonValue(_v));
-                            }
-                        } else {
-                            String propname;
-
-                            if (cols == null || cols.size() <= idx) {
-                                propname = "unnamed_" + unnamedProps;
-                                unnamedProps++;
-                            } else {
-                                propname = cols.get(idx);
-                            }
-
-                            var _v = vals.get(idx);
-
-                            // quote empty string
-                            if ("".equals(_v.trim())) {
-                                _v = "\"".concat(_v).concat("\"");
-                            }
-
-                            if (_v != null) {
-                                doc.append(propname, getBsonValue(_v));
-                            }
-                        }
+            @Override
+            public boolean hasNext() {
+                try {
+                    // the first row is the header
+                    if (cols == null && rows.hasNext()) {
+                        cols = rows.next().stream().map(CsvParser.Field::value).collect(Collectors.toList());
                     }
 
-                    bson.add(doc);
+                    return rows.hasNext();
+                } catch (IllegalArgumentException iae) {
+                    throw new BadRequestException("invalid CSV, " + iae.getMessage());
+                }
+            }
+
+            @Override
+            public BsonDocument next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
 
-                isHeader = false;
+                return toDocument(params, cols, rows.next());
             }
-        }
+        };
+    }
 
-        return bson;
+    private static boolean checkContentType(HttpServerExchange exchange) {
+        HeaderValues contentType = exchange.getRequestHeaders().get(Headers.CONTENT_TYPE);
+
+        return contentType != null && contentType.stream()
+                .anyMatch(ct -> ct.equals(CVS_CONTENT_TYPE) || ct.startsWith(CVS_CONTENT_TYPE.concat(";")));
     }
 
-    private BsonValue getBsonValue(String raw) {
-        try {
-            return BsonUtils.parse(raw);
-        } catch (JsonParseException jpe) {
-            return new BsonString(raw);
+    private static BsonDocument toDocument(CsvRequestParams params, List<String> cols, List<CsvParser.Field> vals) {
+        var doc = new BsonDocument("_etag", new BsonObjectId());
+
+        int unnamedProps = 0;
+
+        for (int idx = 0; idx < vals.size(); idx++) {
+            if (idx == params.idIdx) {
+                doc.append("_id", vals.get(idx).toBsonValue());
+            } else {
+                String propname;
+
+                if (cols == null || cols.size() <= idx) {
+                    propname = "unnamed_" + unnamedProps;
+                    unnamedProps++;
+                } else {
+                    propname = cols.get(idx);
+                }
+
+                doc.append(propname, vals.get(idx).toBsonValue());
+            }
         }
+
+        return doc;
     }
 
     private static class CsvRequestParams {
@@ -174,15 +211,21 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
         private static final String SEPARATOR_QPARAM_NAME = "sep";
 
         public final int idIdx;
-        public final String sep;
+        public final char sep;
 
         CsvRequestParams(HttpServerExchange exchange) {
             Deque<String> _sep = exchange.getQueryParameters().get(SEPARATOR_QPARAM_NAME);
             Deque<String> _id = exchange.getQueryParameters().get(ID_IDX_QPARAM_NAME);
 
-            sep = _sep != null ? _sep.size() > 0 ? _sep.getFirst() : "" : ",";
+            String __sep = _sep != null ? _sep.size() > 0 ? _sep.getFirst() : "" : ",";
             String _idIdx = _id != null ? _id.size() > 0 ? _id.getFirst() : "-1" : "-1";
 
+            if (__sep.length() != 1) {
+                throw new IllegalArgumentException("the separator must be a single char");
+            }
+
+            sep = __sep.charAt(0);
+
             try {
                 idIdx = Integer.parseInt(_idIdx);
             } catch (NumberFormatException nfe) {
@@ -20,9 +20,15 @@
 package org.restheart.exchange;
 
 import io.undertow.server.HttpServerExchange;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
 import org.restheart.utils.BsonUtils;
 
 /**
@@ -53,6 +59,34 @@ public class BsonResponse extends ServiceResponse<BsonValue> {
         }
     }
 
+    /**
+     * Writes the content as compact UTF-8 json to the OutputStream. This method
+     * is used by ResponseSender in place of readContent() so that the json
+     * representation of the content is never built in memory
+     *
+     * @param os the OutputStream to write to
+     * @throws IOException
+     */
+    public void writeContent(OutputStream os) throws IOException {
+        if (content != null) {
+            writeJson(content, null, os);
+        }
+    }
+
+    /**
+     * Writes the bson value as compact UTF-8 json to the OutputStream
+     *
+     * @param value
+     * @param mode the json mode, null for the default one
+     * @param os
+     * @throws IOException
+     */
+    protected static void writeJson(BsonValue value, JsonMode mode, OutputStream os) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        BsonUtils.writeJson(value, mode, writer);
+        writer.flush();
+    }
+
     @Override
     public void setInError(int code, String message, Throwable t) {
         setInError(true);
@@ -36,6 +36,33 @@ public interface ExchangeKeys {
      */
     public static final String PAGESIZE_QPARAM_KEY = "pagesize";
 
+    /**
+     * enables keyset pagination; its value is the continuation token
+     * returned by the previous page (empty for the first page)
+     */
+    public static final String AFTER_QPARAM_KEY = "after";
+
+    /**
+     * the response header carrying the continuation token of keyset pagination
+     */
+    public static final String CONTINUATION_TOKEN_HEADER = "Continuation-Token";
+
+    /**
+     * the request header carrying the client preferences, see RFC 7240
+     */
+    public static final String PREFER_HEADER = "Prefer";
+
+    /**
+     * the response header listing the client preferences that were honored
+     */
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+    /**
+     * the preference asking write requests not to read back the resulting
+     * document
+     */
+    public static final String RETURN_MINIMAL_PREFERENCE = "return=minimal";
+
     /**
      *
      */
@@ -136,6 +163,11 @@ public interface ExchangeKeys {
      */
     public static final String WRITE_MODE_SHORT_QPARAM_KEY = "wm";
 
+    /**
+     * the export format, either ndjson or csv
+     */
+    public static final String FORMAT_QPARAM_KEY = "format";
+
     // matadata
 
     /**
@@ -148,6 +180,11 @@ public interface ExchangeKeys {
      */
     public static final String ETAG_POLICY_METADATA_KEY = "etagPolicy";
 
+    /**
+     *
+     */
+    public static final String RESPONSE_CACHE_MAX_STALENESS_METADATA_KEY = "responseCacheMaxStaleness";
+
     // special resource names
 
     /**
@@ -245,6 +282,11 @@ public interface ExchangeKeys {
      */
     public static final String _STREAMS = "_streams";
 
+    /**
+     *
+     */
+    public static final String _EXPORT = "_export";
+
     /**
      *
      */
@@ -377,6 +419,11 @@ public interface ExchangeKeys {
          */
         COLLECTION_META,
 
+        /**
+         *
+         */
+        COLLECTION_EXPORT,
+
         /**
          *
          */
@@ -27,6 +27,7 @@ import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
@@ -65,7 +66,7 @@ public class JsonProxyRequest extends ProxyRequest<JsonElement> {
             return JsonNull.INSTANCE;
         } else {
             try {
-                return JsonParser.parseString(BuffersUtils.toString(getBuffer(), StandardCharsets.UTF_8));
+                return JsonParser.parseReader(new InputStreamReader(BuffersUtils.toInputStream(getBuffer()), StandardCharsets.UTF_8));
             } catch (JsonParseException ex) {
                 // dump bufferd content
                 BuffersUtils.dump("Error parsing content", getBuffer());
@@ -23,6 +23,8 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import io.undertow.server.HttpServerExchange;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import org.restheart.utils.ChannelReader;
 
 /**
@@ -51,6 +53,6 @@ public class JsonRequest extends ServiceRequest<JsonElement> {
     }
 
     public void injectContent() throws IOException {
-        setContent(JsonParser.parseString(ChannelReader.readString(wrapped)));
+        setContent(JsonParser.parseReader(new InputStreamReader(ChannelReader.inputStream(wrapped), StandardCharsets.UTF_8)));
     }
 }
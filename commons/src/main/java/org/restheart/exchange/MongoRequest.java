@@ -23,12 +23,14 @@ import com.google.common.reflect.TypeToken;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import io.undertow.util.PathTemplateMatch;
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.bson.BsonArray;
@@ -38,6 +40,8 @@ import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import static org.restheart.exchange.ExchangeKeys.*;
 import org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE;
 import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
@@ -73,6 +77,7 @@ public class MongoRequest extends BsonRequest {
 
     private int page = 1;
     private int pagesize = 100;
+    private BsonArray after = null;
     private boolean count = false;
     private boolean etagCheckRequired = false;
     private WRITE_MODE writeMode = null;
@@ -82,6 +87,20 @@ public class MongoRequest extends BsonRequest {
     private Deque<String> keys = null;
     private Deque<String> sortBy = null;
     private Deque<String> hint = null;
+
+    private ParsedQParam filtersMemo = null;
+    private ParsedQParam sortByMemo = null;
+    private ParsedQParam hintMemo = null;
+    private ParsedQParam projectionMemo = null;
+
+    /**
+     * the json qparam values (filter, sort_by, hint and keys) parsed by any
+     * request; cached documents are never handed out, only deep copies of them
+     * that are much cheaper than parsing again; an empty value marks a sort_by
+     * or hint value that is not json
+     */
+    private static final Cache<String, BsonDocument> PARSED_JSON_CACHE = CacheFactory.createLocalCache(1_000, Cache.EXPIRE_POLICY.NEVER, -1);
+    private static final int MAX_PARSED_JSON_CACHE_KEY_LENGTH = 4 * 1024;
     private DOC_ID_TYPE docIdType = DOC_ID_TYPE.STRING_OID;
     private final TYPE type;
 
@@ -116,6 +135,12 @@ public class MongoRequest extends BsonRequest {
 
     final boolean noCache;
 
+    private final boolean returnMinimal;
+
+    // the content of a bulk POST whose parsing is deferred, see setContentStream()
+    private InputStream contentStream = null;
+    private Runnable contentInjector = null;
+
     protected MongoRequest(HttpServerExchange exchange, String requestUri, String resourceUri) {
         super(exchange);
 
@@ -174,6 +199,8 @@ public class MongoRequest extends BsonRequest {
 
         this.noCache = exchange.getQueryParameters().get(NO_CACHE_QPARAM_KEY) != null;
 
+        this.returnMinimal = isReturnMinimalPreferred(getHeaders() == null ? null : getHeaders().get(PREFER_HEADER));
+
         // writeMode
 
         var _writeMode = exchange.getQueryParameters().containsKey(WRITE_MODE_QPARAM_KEY)
@@ -193,6 +220,34 @@ public class MongoRequest extends BsonRequest {
         this.writeMode = mode;
     }
 
+    /**
+     * @param preferHvs the values of the Prefer request header
+     * @return true if the return=minimal preference is among them
+     */
+    static boolean isReturnMinimalPreferred(Iterable<String> preferHvs) {
+        if (preferHvs == null) {
+            return false;
+        }
+
+        for (var hv : preferHvs) {
+            if (hv == null) {
+                continue;
+            }
+
+            for (var preference : hv.split(",")) {
+                // drop the parameters of the preference, if any
+                var semicolon = preference.indexOf(';');
+                var _preference = semicolon < 0 ? preference : preference.substring(0, semicolon);
+
+                if (RETURN_MINIMAL_PREFERENCE.equalsIgnoreCase(_preference.replace(" ", ""))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     private String defaultWriteMode() {
         if (isPost()) {
             return WRITE_MODE.INSERT.name();
@@ -294,6 +349,7 @@ public class MongoRequest extends BsonRequest {
                 || (type == TYPE.COLLECTION_SIZE && _SIZE.equalsIgnoreCase(sdi))
                 || (type == TYPE.INDEX && _INDEXES.equalsIgnoreCase(sdi))
                 || (type == TYPE.COLLECTION_META && _META.equalsIgnoreCase(sdi))
+                || (type == TYPE.COLLECTION_EXPORT && _EXPORT.equalsIgnoreCase(sdi))
                 || (type == TYPE.INVALID && _AGGREGATIONS.equalsIgnoreCase(sdi))
                 || (type == TYPE.INVALID && _STREAMS.equalsIgnoreCase(sdi))) {
             return false;
@@ -387,6 +443,8 @@ public class MongoRequest extends BsonRequest {
             type = TYPE.METRICS;
         } else if (pathTokens.length == 4 && pathTokens[3].equalsIgnoreCase(_INDEXES)) {
             type = TYPE.COLLECTION_INDEXES;
+        } else if (pathTokens.length == 4 && pathTokens[3].equalsIgnoreCase(_EXPORT)) {
+            type = TYPE.COLLECTION_EXPORT;
         } else if (pathTokens.length == 4 && pathTokens[3].equals(RESOURCES_WILDCARD_KEY)) {
             type = TYPE.BULK_DOCUMENTS;
         } else if (pathTokens.length > 4 && pathTokens[3].equalsIgnoreCase(_INDEXES)) {
@@ -700,6 +758,31 @@ public class MongoRequest extends BsonRequest {
         this.pagesize = pagesize;
     }
 
+    /**
+     * @return true if the request uses keyset pagination, i.e. the after
+     * query parameter is specified
+     */
+    public boolean isKeysetPagination() {
+        return after != null;
+    }
+
+    /**
+     * @return the sort key values of the last document of the previous page,
+     * decoded from the after query parameter; empty for the first page and
+     * null if the request does not use keyset pagination
+     */
+    public BsonArray getAfter() {
+        return after;
+    }
+
+    /**
+     * @param after the sort key values of the last document of the previous
+     * page to set
+     */
+    public void setAfter(BsonArray after) {
+        this.after = after;
+    }
+
     /**
      * @return the representationFormat
      */
@@ -763,112 +846,184 @@ public class MongoRequest extends BsonRequest {
     }
 
     /**
+     * The returned document is parsed once per request and must not be
+     * modified; it is parsed again if the filter qparam values change.
      *
      * @return the $and composed filter qparam values
      */
     public BsonDocument getFiltersDocument() throws JsonParseException {
+        if (filtersMemo != null && filtersMemo.isFor(filter)) {
+            return filtersMemo.value();
+        }
+
         final var filterQuery = new BsonDocument();
 
         if (filter != null) {
             if (filter.size() > 1) {
                 var _filters = new BsonArray();
 
-                filter.stream().forEach(f -> _filters.add(BsonDocument.parse(f)));
+                filter.stream().forEach(f -> _filters.add(parseQueryParameter(f)));
 
                 filterQuery.put("$and", _filters);
             } else if (filter.size() == 1) {
-                filterQuery.putAll(BsonDocument.parse(filter.getFirst()));  // this can throw JsonParseException for invalid filter parameters
-            } else {
-                return filterQuery;
+                filterQuery.putAll(parseQueryParameter(filter.getFirst()));  // this can throw JsonParseException for invalid filter parameters
             }
         }
 
+        this.filtersMemo = new ParsedQParam(filter, filterQuery);
+
         return filterQuery;
     }
 
     /**
+     * The returned document is parsed once per request and must not be
+     * modified; it is parsed again if the sort_by qparam values change.
      *
      * @return @throws JsonParseException
      */
     public BsonDocument getSortByDocument() throws JsonParseException {
+        if (sortByMemo != null && sortByMemo.isFor(sortBy)) {
+            return sortByMemo.value();
+        }
+
         var sort = new BsonDocument();
 
         if (sortBy == null) {
             sort.put("_id", new BsonInt32(-1));
         } else {
-            sortBy.stream().forEach((s) -> {
-
-                var _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where sort_by is a json object
-                try {
-                    var _sort = BsonDocument.parse(_s);
-
-                    sort.putAll(_sort);
-                } catch (JsonParseException e) {
-                    // sort_by is just a string, i.e. a property name
-                    if (_s.startsWith("-")) {
-                        sort.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        sort.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        sort.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
+            sortBy.stream().forEach(s -> sort.putAll(parseJsonOrKey(s)));
         }
 
+        this.sortByMemo = new ParsedQParam(sortBy, sort);
+
         return sort;
     }
 
     /**
+     * The returned document is parsed once per request and must not be
+     * modified; it is parsed again if the hint qparam values change.
      *
      * @return @throws JsonParseException
      */
     public BsonDocument getHintDocument() throws JsonParseException {
         if (hint == null || hint.isEmpty()) {
             return null;
+        } else if (hintMemo != null && hintMemo.isFor(hint)) {
+            return hintMemo.value();
         } else {
             var ret = new BsonDocument();
-            hint.stream().forEach(s -> {
-                var _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where hint is a json object
-                try {
-                    var _hint = BsonDocument.parse(_s);
-
-                    ret.putAll(_hint);
-                } catch (JsonParseException e) {
-                    // ret is just a string, i.e. an index name
-                    if (_s.startsWith("-")) {
-                        ret.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        ret.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        ret.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
+            hint.stream().forEach(s -> ret.putAll(parseJsonOrKey(s)));
+
+            this.hintMemo = new ParsedQParam(hint, ret);
 
             return ret;
         }
     }
 
     /**
+     * The returned document is parsed once per request and must not be
+     * modified; it is parsed again if the keys qparam values change.
      *
      * @return @throws JsonParseException
      */
     public BsonDocument getProjectionDocument() throws JsonParseException {
         if (keys == null || keys.isEmpty()) {
             return null;
+        } else if (projectionMemo != null && projectionMemo.isFor(keys)) {
+            return projectionMemo.value();
         } else {
             final var projection = new BsonDocument();
             // this can throw JsonParseException for invalid keys parameters
-            keys.stream().forEach(f -> projection.putAll(BsonDocument.parse(f)));
+            keys.stream().forEach(f -> projection.putAll(parseQueryParameter(f)));
+
+            this.projectionMemo = new ParsedQParam(keys, projection);
+
             return projection;
         }
     }
 
+    /**
+     * a parsed qparam and the values it was parsed from
+     */
+    private record ParsedQParam(List<String> source, BsonDocument value) {
+        ParsedQParam(Deque<String> source, BsonDocument value) {
+            this(source == null ? null : List.copyOf(source), value);
+        }
+
+        boolean isFor(Deque<String> values) {
+            if (values == null || source == null) {
+                return values == source;
+            } else if (values.size() != source.size()) {
+                return false;
+            }
+
+            var it = source.iterator();
+
+            return values.stream().allMatch(v -> v.equals(it.next()));
+        }
+    }
+
+    /**
+     * parses the value of a json query parameter, sharing the result across
+     * requests via a bounded cache; the returned document is a mutable copy
+     *
+     * @param json the query parameter value
+     * @return the parsed document
+     * @throws JsonParseException if json is not a valid json object
+     */
+    public static BsonDocument parseQueryParameter(String json) throws JsonParseException {
+        var cached = PARSED_JSON_CACHE.get(json);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get().clone();
+        }
+
+        // this can throw JsonParseException, errors are not cached
+        var parsed = BsonDocument.parse(json);
+
+        if (json.length() <= MAX_PARSED_JSON_CACHE_KEY_LENGTH) {
+            PARSED_JSON_CACHE.put(json, parsed.clone());
+        }
+
+        return parsed;
+    }
+
+    /**
+     * parses a sort_by or hint qparam value, that is either a json document or
+     * a property name, optionally prefixed by - (descending) or + (ascending)
+     *
+     * @param value
+     * @return the parsed document
+     */
+    private static BsonDocument parseJsonOrKey(String value) {
+        var _s = value.trim(); // the + sign is decoded into a space, in case remove it
+
+        // manage the case where the value is a json object
+        var cached = PARSED_JSON_CACHE.get(_s);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get().clone();
+        } else if (cached == null) {
+            try {
+                return parseQueryParameter(_s);
+            } catch (JsonParseException e) {
+                // the value is just a string, i.e. a property name;
+                // remember it to avoid parsing it again
+                if (_s.length() <= MAX_PARSED_JSON_CACHE_KEY_LENGTH) {
+                    PARSED_JSON_CACHE.put(_s, null);
+                }
+            }
+        }
+
+        if (_s.startsWith("-")) {
+            return new BsonDocument(_s.substring(1), new BsonInt32(-1));
+        } else if (_s.startsWith("+")) {
+            return new BsonDocument(_s.substring(1), new BsonInt32(11));
+        } else {
+            return new BsonDocument(_s, new BsonInt32(1));
+        }
+    }
+
     /**
      * @return the aggregationVars
      */
@@ -1394,6 +1549,15 @@ public class MongoRequest extends BsonRequest {
         return getType() == TYPE.COLLECTION_META;
     }
 
+    /**
+     * helper method to check request resource type
+     *
+     * @return true if type is TYPE.COLLECTION_EXPORT
+     */
+    public boolean isCollectionExport() {
+        return getType() == TYPE.COLLECTION_EXPORT;
+    }
+
     /**
      * helper method to check request resource type
      *
@@ -1498,4 +1662,69 @@ public class MongoRequest extends BsonRequest {
     public boolean isNoCache() {
         return noCache;
     }
+
+    /**
+     * @return true if the request has the header 'Prefer: return=minimal',
+     * i.e. write requests should not read back the resulting document
+     */
+    public boolean isReturnMinimal() {
+        return returnMinimal;
+    }
+
+    /**
+     * Defers the parsing of the request content.
+     *
+     * The content of a bulk POST can be read incrementally by the handler with
+     * consumeContentStream(); if getContent() is invoked before, e.g. by an
+     * interceptor, contentInjector is run to parse and set the content as for
+     * any other request.
+     *
+     * @param contentStream the stream of the request content
+     * @param contentInjector parses contentStream and sets the content
+     */
+    public void setContentStream(InputStream contentStream, Runnable contentInjector) {
+        this.contentStream = contentStream;
+        this.contentInjector = contentInjector;
+    }
+
+    /**
+     * @return true if the parsing of the content was deferred and the content
+     * stream can be consumed
+     */
+    public boolean hasContentStream() {
+        return this.contentStream != null;
+    }
+
+    /**
+     * @return the stream of the request content, if its parsing was deferred,
+     * otherwise null; once consumed, getContent() returns an empty array
+     */
+    public InputStream consumeContentStream() {
+        var ret = this.contentStream;
+
+        if (ret != null) {
+            this.contentStream = null;
+            this.contentInjector = null;
+            setContent(new BsonArray());
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the request content; if its parsing was deferred, it gets parsed
+     */
+    @Override
+    public BsonValue getContent() {
+        if (this.contentStream != null) {
+            var injector = this.contentInjector;
+
+            this.contentStream = null;
+            this.contentInjector = null;
+
+            injector.run();
+        }
+
+        return super.getContent();
+    }
 }
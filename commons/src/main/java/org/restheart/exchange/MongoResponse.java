@@ -23,25 +23,39 @@ import com.google.common.reflect.TypeToken;
 import com.mongodb.MongoClient;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.result.UpdateResult;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import org.xnio.IoUtils;
 import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.db.OperationResult;
 import org.restheart.utils.BsonUtils;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
@@ -71,6 +85,15 @@ public class MongoResponse extends BsonResponse {
 
     private long count = -1;
 
+    private MongoCursor<BsonDocument> streamedContent = null;
+    private int streamedContentLimit = 0;
+    private UnaryOperator<BsonDocument> streamedContentTransformer = null;
+    private StreamedContentWriter streamedContentWriter = null;
+
+    private byte[] cachedContent = null;
+    private Consumer<byte[]> contentWrittenListener = null;
+    private int contentWrittenListenerMaxSize = 0;
+
     protected MongoResponse(HttpServerExchange exchange) {
         super(exchange);
     }
@@ -91,28 +114,402 @@ public class MongoResponse extends BsonResponse {
         return _TYPE;
     }
 
+    /**
+     * Sets the content as a stream of documents read from an open cursor: the
+     * documents are written to the client by ResponseSender as they are read
+     * from the cursor, so that the response content is never fully built in
+     * memory.
+     *
+     * Interceptors that need the whole content opt out of streaming just by
+     * calling getContent(): it reads the remaining documents into a
+     * BsonArray. The content is read this way also before dispatching the
+     * async response interceptors that require content, since the cursor
+     * cannot be read by two threads.
+     *
+     * The cursor is closed after sending the response or when the exchange
+     * completes.
+     *
+     * @param cursor the open cursor
+     * @param limit the maximum number of documents to read from the cursor
+     */
+    public void setStreamedContent(MongoCursor<BsonDocument> cursor, int limit) {
+        closeStreamedContent();
+        this.content = null;
+        this.streamedContent = cursor;
+        this.streamedContentLimit = limit;
+        this.streamedContentTransformer = null;
+        this.streamedContentWriter = null;
+
+        wrapped.addExchangeCompleteListener((exchange, nextListener) -> {
+            closeStreamedContent();
+            nextListener.proceed();
+        });
+    }
+
+    /**
+     *
+     * @return true if the content is streamed from a cursor and has not been
+     * read yet
+     */
+    public boolean isContentStreamed() {
+        return streamedContent != null;
+    }
+
+    /**
+     * Applies the transformer to each document of the streamed content, as it
+     * is read from the cursor; has no effect if the content is not streamed.
+     *
+     * @param transformer the function transforming each document
+     */
+    public void transformStreamedContent(UnaryOperator<BsonDocument> transformer) {
+        if (streamedContent != null) {
+            var previous = this.streamedContentTransformer;
+
+            this.streamedContentTransformer = previous == null
+                    ? transformer
+                    : doc -> transformer.apply(previous.apply(doc));
+        }
+    }
+
+    /**
+     * Sets the writer used to serialize the streamed content; by default the
+     * documents are written as a json array. Has no effect if the content is
+     * not streamed. The writer is also used if the content is read via
+     * getContent() and is still an array of documents when sent.
+     *
+     * @param writer the writer of the streamed documents
+     */
+    public void setStreamedContentWriter(StreamedContentWriter writer) {
+        if (streamedContent != null) {
+            this.streamedContentWriter = writer;
+        }
+    }
+
+    /**
+     * Serializes the streamed documents, one at a time, as they are read from
+     * the cursor.
+     */
+    public interface StreamedContentWriter {
+        /**
+         * called before writing the first document
+         *
+         * @param writer
+         * @throws IOException
+         */
+        default void start(Writer writer) throws IOException {
+        }
+
+        /**
+         *
+         * @param doc the document to write
+         * @param writer
+         * @throws IOException
+         */
+        void write(BsonDocument doc, Writer writer) throws IOException;
+
+        /**
+         * called after writing the last document
+         *
+         * @param writer
+         * @throws IOException
+         */
+        default void end(Writer writer) throws IOException {
+        }
+    }
+
+    private static class JsonArrayWriter implements StreamedContentWriter {
+        private final JsonMode mode;
+        private boolean first = true;
+
+        JsonArrayWriter(JsonMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void start(Writer writer) throws IOException {
+            writer.write('[');
+        }
+
+        @Override
+        public void write(BsonDocument doc, Writer writer) throws IOException {
+            if (first) {
+                first = false;
+            } else {
+                writer.write(',');
+            }
+
+            BsonUtils.writeJson(doc, mode, writer);
+        }
+
+        @Override
+        public void end(Writer writer) throws IOException {
+            writer.write(']');
+        }
+    }
+
+    /**
+     * Sets the content as the bytes of a previously serialized response,
+     * that are sent as they are. Calling getContent() parses them, and the
+     * content is serialized again when sent.
+     *
+     * @param content the serialized content
+     */
+    public void setCachedContent(byte[] content) {
+        closeStreamedContent();
+        this.content = null;
+        this.cachedContent = content;
+    }
+
+    /**
+     *
+     * @return true if the content is the bytes set via setCachedContent() and
+     * has not been read yet
+     */
+    public boolean isContentCached() {
+        return cachedContent != null;
+    }
+
+    /**
+     * Registers a listener that receives the serialized content once it has
+     * been written to the client; it is not invoked if the content is larger
+     * than maxSize bytes or if writing it fails.
+     *
+     * @param listener the listener
+     * @param maxSize the maximum size of the content passed to the listener
+     */
+    public void setContentWrittenListener(Consumer<byte[]> listener, int maxSize) {
+        this.contentWrittenListener = listener;
+        this.contentWrittenListenerMaxSize = maxSize;
+    }
+
+    /**
+     * @return the content; if streamed, the documents are read from the cursor
+     * and the content is no longer streamed
+     */
+    @Override
+    public BsonValue getContent() {
+        if (cachedContent != null) {
+            var json = new String(cachedContent, StandardCharsets.UTF_8);
+            this.cachedContent = null;
+            this.content = json.isBlank() ? null : BsonUtils.parse(json);
+        }
+
+        if (streamedContent != null) {
+            var docs = new BsonArray();
+
+            try {
+                forEachStreamedDocument(docs::add);
+            } catch (IOException ioe) {
+                // not thrown by BsonArray.add()
+                throw new UncheckedIOException(ioe);
+            }
+
+            this.content = docs;
+        }
+
+        return this.content;
+    }
+
+    @Override
+    public void setContent(BsonValue content) {
+        closeStreamedContent();
+        this.cachedContent = null;
+        super.setContent(content);
+    }
+
+    private void forEachStreamedDocument(StreamedDocumentConsumer consumer) throws IOException {
+        var cursor = this.streamedContent;
+        var transformer = this.streamedContentTransformer;
+
+        this.streamedContent = null;
+
+        try (cursor) {
+            for (int cont = streamedContentLimit; cont > 0 && cursor.hasNext(); cont--) {
+                var doc = cursor.next();
+                consumer.accept(transformer == null ? doc : transformer.apply(doc));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamedDocumentConsumer {
+        void accept(BsonDocument doc) throws IOException;
+    }
+
+    private void closeStreamedContent() {
+        var cursor = this.streamedContent;
+
+        if (cursor != null) {
+            this.streamedContent = null;
+            cursor.close();
+        }
+    }
+
+    /**
+     * writes the streamed documents with the streamed content writer, by
+     * default as a json array
+     */
+    private void writeStreamedContent(OutputStream os) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        var contentWriter = streamedContentWriter != null
+                ? streamedContentWriter
+                : new JsonArrayWriter(jsonMode());
+
+        contentWriter.start(writer);
+
+        try {
+            forEachStreamedDocument(doc -> contentWriter.write(doc, writer));
+        } catch (RuntimeException re) {
+            // the response has already been started: closing the connection
+            // lets the client know that the response is incomplete
+            LOGGER.error("error streaming the response content, closing the connection", re);
+            IoUtils.safeClose(wrapped.getConnection());
+            throw re;
+        }
+
+        contentWriter.end(writer);
+        writer.flush();
+    }
+
+    /**
+     * writes the documents of the content, that was streamed and then read via
+     * getContent(), with the streamed content writer, so that the format of
+     * the response, e.g. ndjson or csv, does not change
+     */
+    private void writeWithStreamedContentWriter(BsonArray docs, OutputStream os) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+
+        streamedContentWriter.start(writer);
+
+        for (var doc : docs) {
+            if (doc.isDocument()) {
+                streamedContentWriter.write(doc.asDocument(), writer);
+            }
+        }
+
+        streamedContentWriter.end(writer);
+        writer.flush();
+    }
+
     @Override
     public String readContent() {
-        var request = Request.of(wrapped);
-        BsonValue tosend;
+        if (cachedContent != null) {
+            return new String(cachedContent, StandardCharsets.UTF_8);
+        }
 
-        if (!request.isGet() && (content == null || content.isDocument())) {
-            tosend = addWarnings(content == null ? null : content.asDocument());
+        var tosend = contentToSend();
+
+        if (tosend != null) {
+            return BsonUtils.toJson(tosend, jsonMode());
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void writeContent(OutputStream os) throws IOException {
+        if (cachedContent != null) {
+            os.write(cachedContent);
+            return;
+        }
+
+        if (contentWrittenListener == null) {
+            _writeContent(os);
         } else {
-            tosend = content;
+            var cos = new CapturingOutputStream(os, contentWrittenListenerMaxSize);
+
+            _writeContent(cos);
+
+            if (!cos.isOverflown()) {
+                contentWrittenListener.accept(cos.captured());
+            }
+        }
+    }
+
+    private void _writeContent(OutputStream os) throws IOException {
+        if (streamedContent != null && Request.of(wrapped).isGet()) {
+            writeStreamedContent(os);
+            return;
+        }
+
+        var tosend = contentToSend();
+
+        if (streamedContentWriter != null && tosend != null && tosend.isArray() && Request.of(wrapped).isGet()) {
+            writeWithStreamedContentWriter(tosend.asArray(), os);
+            return;
         }
 
         if (tosend != null) {
-            if (request instanceof MongoRequest) {
-                return BsonUtils.toJson(tosend, ((MongoRequest) request).getJsonMode());
+            writeJson(tosend, jsonMode(), os);
+        }
+    }
+
+    /**
+     * forwards the written bytes to the wrapped stream, keeping a copy of
+     * them up to maxSize bytes
+     */
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private final int maxSize;
+        private boolean overflown = false;
+
+        CapturingOutputStream(OutputStream os, int maxSize) {
+            super(os);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflown) {
+                return;
+            }
+
+            if (copy.size() + len > maxSize) {
+                overflown = true;
+                copy.reset();
             } else {
-                return BsonUtils.toJson(tosend);
+                copy.write(b, off, len);
             }
+        }
+
+        boolean isOverflown() {
+            return overflown;
+        }
+
+        byte[] captured() {
+            return copy.toByteArray();
+        }
+    }
+
+    private BsonValue contentToSend() {
+        var request = Request.of(wrapped);
+
+        var content = getContent();
+
+        if (!request.isGet() && (content == null || content.isDocument())) {
+            return addWarnings(content == null ? null : content.asDocument());
         } else {
-            return null;
+            return content;
         }
     }
 
+    private JsonMode jsonMode() {
+        var request = Request.of(wrapped);
+
+        return request instanceof MongoRequest mreq ? mreq.getJsonMode() : null;
+    }
+
     private BsonDocument addWarnings(BsonDocument content) {
         if (content != null) {
             if (warnings != null
@@ -355,7 +752,10 @@ public class MongoResponse extends BsonResponse {
 
         } else {
             // document was created, delete it
-            Object newId = getDbOperationResult().getNewData().get("_id");
+            // the new data is null if the write did not read it back
+            Object newId = getDbOperationResult().getNewData() != null
+                    ? getDbOperationResult().getNewData().get("_id")
+                    : request.getDocumentId();
 
             coll.deleteOne(and(eq("_id", newId), eq("_etag", newEtag)));
 
@@ -21,6 +21,8 @@ package org.restheart.exchange;
 
 import java.util.Objects;
 
+import org.restheart.plugins.PluginRecord;
+import org.restheart.plugins.Service;
 import org.restheart.plugins.RegisterPlugin.MATCH_POLICY;
 import org.restheart.utils.URLUtils;
 
@@ -41,8 +43,24 @@ public class PipelineInfo {
     private final String uri;
     private final MATCH_POLICY matchPolicy;
     private final String name;
+    @SuppressWarnings("rawtypes")
+    private final PluginRecord<Service> service;
 
     public PipelineInfo(PIPELINE_TYPE type, String uri, MATCH_POLICY matchPolicy, String name) {
+        this(type, uri, matchPolicy, name, null);
+    }
+
+    /**
+     *
+     * @param type
+     * @param uri
+     * @param matchPolicy
+     * @param name
+     * @param service the plugin record of the service handling the pipeline,
+     * allows to resolve it without looking it up in the PluginsRegistry
+     */
+    @SuppressWarnings("rawtypes")
+    public PipelineInfo(PIPELINE_TYPE type, String uri, MATCH_POLICY matchPolicy, String name, PluginRecord<Service> service) {
         Objects.requireNonNull(type, "argument 'branch' cannot be null");
         Objects.requireNonNull(uri, "argument 'uri' cannot be null");
 
@@ -50,6 +68,7 @@ public class PipelineInfo {
         this.uri = URLUtils.removeTrailingSlashes(uri);
         this.matchPolicy = matchPolicy;
         this.name = name;
+        this.service = service;
     }
 
     public PipelineInfo(PIPELINE_TYPE type, String uri, String name) {
@@ -60,6 +79,7 @@ public class PipelineInfo {
         this.uri = URLUtils.removeTrailingSlashes(uri);
         this.matchPolicy = MATCH_POLICY.PREFIX;
         this.name = name;
+        this.service = null;
     }
 
     @Override
@@ -97,4 +117,14 @@ public class PipelineInfo {
     public String getName() {
         return name;
     }
+
+    /**
+     * @return the plugin record of the service handling the pipeline
+     * or null if the pipeline type is not SERVICE or the service was not
+     * bound to the PipelineInfo
+     */
+    @SuppressWarnings("rawtypes")
+    public PluginRecord<Service> getService() {
+        return service;
+    }
 }
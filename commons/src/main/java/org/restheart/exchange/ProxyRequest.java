@@ -24,7 +24,6 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 
 /**
  *
@@ -47,22 +46,8 @@ public abstract class ProxyRequest<T> extends Request<T> implements BufferedExch
     @Override
     public abstract void writeContent(T content) throws IOException;
 
-    @SuppressWarnings("unchecked")
     protected AttachmentKey<PooledByteBuffer[]> getRawContentKey() {
-        Field f;
-
-        try {
-            f = HttpServerExchange.class.getDeclaredField("BUFFERED_REQUEST_DATA");
-            f.setAccessible(true);
-        } catch (NoSuchFieldException | SecurityException ex) {
-            throw new RuntimeException("could not find BUFFERED_REQUEST_DATA field", ex);
-        }
-
-        try {
-            return (AttachmentKey<PooledByteBuffer[]>) f.get(getWrappedExchange());
-        } catch (IllegalArgumentException | IllegalAccessException ex) {
-            throw new RuntimeException("could not access BUFFERED_REQUEST_DATA field", ex);
-        }
+        return BUFFERED_REQUEST_DATA_KEY;
     }
 
     @Override
@@ -19,6 +19,7 @@
  */
 package org.restheart.exchange;
 
+import io.undertow.connector.PooledByteBuffer;
 import io.undertow.security.idm.Account;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.Cookie;
@@ -62,6 +63,26 @@ public abstract class Request<T> extends Exchange<T> {
 
     private static final AttachmentKey<Map<String, List<String>>> XFORWARDED_HEADERS = AttachmentKey.create(Map.class);
 
+    private static final AttachmentKey<Boolean> CONTENT_BUFFERED_KEY = AttachmentKey.create(Boolean.class);
+
+    /**
+     * the key of the HttpServerExchange attachment where Undertow stores the
+     * buffered request content. The field is not public, it is looked up once.
+     */
+    static final AttachmentKey<PooledByteBuffer[]> BUFFERED_REQUEST_DATA_KEY = bufferedRequestDataKey();
+
+    @SuppressWarnings("unchecked")
+    private static AttachmentKey<PooledByteBuffer[]> bufferedRequestDataKey() {
+        try {
+            var f = HttpServerExchange.class.getDeclaredField("BUFFERED_REQUEST_DATA");
+            f.setAccessible(true);
+            return (AttachmentKey<PooledByteBuffer[]>) f.get(null);
+        } catch (NoSuchFieldException | SecurityException | IllegalAccessException ex) {
+            // this happens only if HttpServerExchange is not the Undertow one, i.e. in unit tests
+            return AttachmentKey.create(PooledByteBuffer[].class);
+        }
+    }
+
     protected Request(HttpServerExchange exchange) {
         super(exchange);
     }
@@ -325,6 +346,32 @@ public abstract class Request<T> extends Exchange<T> {
         return exchange.getAttachment(PIPELINE_INFO_KEY);
     }
 
+    /**
+     * marks the request content as entirely read into the pooled buffers of
+     * the exchange, see getBufferedContent()
+     *
+     * @param exchange
+     */
+    public static void setContentBuffered(HttpServerExchange exchange) {
+        exchange.putAttachment(CONTENT_BUFFERED_KEY, true);
+    }
+
+    /**
+     * The request content is read into pooled buffers, without blocking a worker
+     * thread, by RequestContentInjector
+     *
+     * @param exchange
+     * @return the pooled buffers holding the whole request content or null if
+     *         the content has not been entirely buffered
+     */
+    public static PooledByteBuffer[] getBufferedContent(HttpServerExchange exchange) {
+        var buffered = exchange.getAttachment(CONTENT_BUFFERED_KEY);
+
+        return buffered != null && buffered
+            ? exchange.getAttachment(BUFFERED_REQUEST_DATA_KEY)
+            : null;
+    }
+
     /**
      * @param exchange the exchange to bind the pipelineInfo to
      * @param pipelineInfo the pipelineInfo to set
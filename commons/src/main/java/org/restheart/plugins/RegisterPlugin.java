@@ -22,6 +22,7 @@ package org.restheart.plugins;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+import org.restheart.exchange.ExchangeKeys.METHOD;
 import org.restheart.plugins.security.Authorizer;
 
 /**
@@ -110,17 +111,44 @@ public @interface RegisterPlugin {
     InitPoint initPoint() default InitPoint.AFTER_STARTUP;
 
     /**
-     * Only used by Interceptors of proxied resources (the content is always
-     * available to Interceptor of Services)
+     * Used by Interceptors of proxied resources (the content is always
+     * available to Interceptor of Services) and by Services
      *
-     * Set it to true to make available the content of the request (if
-     * interceptPoint is REQUEST_BEFORE_AUTH or REQUEST_AFTER_AUTH) or of the
-     * response (if interceptPoint is RESPONSE or RESPONSE_ASYNC)
+     * Interceptors: set it to true to make available the content of the
+     * request (if interceptPoint is REQUEST_BEFORE_AUTH or REQUEST_AFTER_AUTH)
+     * or of the response (if interceptPoint is RESPONSE or RESPONSE_ASYNC)
      *
-     * @return true if the Interceptor requires the content
+     * Services: set it to true if the Service reads the request content in
+     * requestInitializer() or responseInitializer(), to have it read without
+     * blocking before the authentication. Otherwise the content is read
+     * without blocking only after the authentication
+     *
+     * @return true if the Interceptor or the Service requires the content
      */
     boolean requiresContent() default false;
 
+    /**
+     * Only used by Interceptors
+     *
+     * Restricts the Interceptor to requests with the given methods. For other
+     * requests the Interceptor is skipped without invoking resolve(). If empty
+     * the Interceptor applies to any method.
+     *
+     * @return the methods of the requests the Interceptor applies to
+     */
+    METHOD[] interceptMethods() default {};
+
+    /**
+     * Only used by Interceptors
+     *
+     * Restricts the Interceptor to requests whose path starts with one of the
+     * given path prefixes. For other requests the Interceptor is skipped without
+     * invoking resolve(). If empty the Interceptor applies to any path.
+     *
+     * @return the path prefixes of the requests the Interceptor applies to
+     */
+    String[] interceptPaths() default {};
+
     /**
      * Set to true to avoid interceptors to be executed on requests handled by this
      * plugin. Interceptor with interceptPoint=BEFORE_AUTH
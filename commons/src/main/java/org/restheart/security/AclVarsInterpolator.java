@@ -451,7 +451,7 @@ public class AclVarsInterpolator {
 
         // the TYPE of the resource:
         // - INVALID, ROOT, ROOT_SIZE, DB, DB_SIZE, DB_META, CHANGE_STREAM, COLLECTION,
-        // - COLLECTION_SIZE, COLLECTION_META, DOCUMENT, COLLECTION_INDEXES, INDEX,
+        // - COLLECTION_SIZE, COLLECTION_META, COLLECTION_EXPORT, DOCUMENT, COLLECTION_INDEXES, INDEX,
         // - FILES_BUCKET, FILES_BUCKET_SIZE, FILES_BUCKET_META, FILE, FILE_BINARY,
         // - AGGREGATION, SCHEMA, SCHEMA_STORE, SCHEMA_STORE_SIZE, SCHEMA_STORE_META,
         // - BULK_DOCUMENTS, METRICS, SESSION, SESSIONS, TRANSACTIONS, TRANSACTION
@@ -22,9 +22,14 @@ package org.restheart.utils;
 
 import com.google.common.collect.Sets;
 import com.mongodb.MongoClient;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -646,72 +651,86 @@ public class BsonUtils {
     }
 
     /**
-     * @param bson either a BsonDocument or a BsonArray
+     * @param bson the bson value, either a document, an array or a scalar
      * @return the minified string representation of the bson value
-     * @throws IllegalArgumentException if bson is not a BsonDocument or a
-     * BsonArray
      */
     public static String toJson(BsonValue bson) {
         return toJson(bson, null);
     }
 
     /**
-     * @param bson either a BsonDocument or a BsonArray
+     * @param bson the bson value, either a document, an array or a scalar
      * @param mode
      * @return the minified string representation of the bson value
-     * @throws IllegalArgumentException if bson is not a BsonDocument or a
-     * BsonArray
      */
     public static String toJson(BsonValue bson, JsonMode mode) {
         if (bson == null) {
             return null;
         }
 
-        var settings = mode != null
-                ? JsonWriterSettings.builder()
-                        .outputMode(mode)
-                        .indent(false)
-                        .build()
-                : JsonWriterSettings.builder()
-                        .indent(false)
-                        .dateTimeConverter(new Converter<Long>() {
-                            @Override
-                            public void convert(Long t, StrictJsonWriter writer) {
-                                writer.writeRaw("{\"$date\": " + t + " }");
-                            }
-                        })
-                        .build();
-
-        if (bson.isDocument()) {
-            return minify(bson.asDocument().toJson(settings));
-        } else if (bson.isArray()) {
-            BsonArray _array = bson.asArray();
+        var sw = new StringWriter();
 
-            BsonDocument wrappedArray = new BsonDocument("wrapped", _array);
+        new CompactJsonWriter(sw, jsonWriterSettings(mode)).writeValue(bson);
 
-            String json = wrappedArray.toJson(settings);
+        return sw.toString();
+    }
 
-            json = json.substring(0, json.length() - 1); // removes closing }
-            json = json.replaceFirst("\\{", "");
-            json = json.replaceFirst("\"wrapped\"", "");
-            json = json.replaceFirst(":", "");
+    /**
+     * Writes the compact json representation of the bson value to the writer.
+     * Differently from toJson() the json string is not built in memory, so
+     * this is suitable to stream big documents and arrays to the client.
+     *
+     * @param bson the bson value, either a document, an array or a scalar
+     * @param mode the json mode, null for the RESTHeart default format, that
+     * uses RELAXED mode but represents dates as {"$date": <millis> }
+     * @param writer the writer where the json is written to
+     * @throws IOException
+     */
+    public static void writeJson(BsonValue bson, JsonMode mode, Writer writer) throws IOException {
+        if (bson == null) {
+            return;
+        }
 
-            return minify(json);
-        } else {
-            BsonDocument doc = new BsonDocument("x", bson);
+        try {
+            new CompactJsonWriter(writer, jsonWriterSettings(mode)).writeValue(bson);
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
 
-            String ret = doc.toJson(settings);
+    private static final JsonWriterSettings DEFAULT_JSON_WRITER_SETTINGS = JsonWriterSettings.builder()
+            .indent(false)
+            .dateTimeConverter(new Converter<Long>() {
+                @Override
+                public void convert(Long t, StrictJsonWriter writer) {
+                    writer.writeStartObject();
+                    writer.writeNumber("$date", Long.toString(t));
+                    writer.writeEndObject();
+                }
+            })
+            .build();
 
-            ret = ret.replaceFirst("\\{", "");
-            ret = ret.replaceFirst("\"x\"", "");
-            ret = ret.replaceFirst(":", "");
-            int index = ret.lastIndexOf('}');
-            ret = ret.substring(0, index);
+    private static final Map<JsonMode, JsonWriterSettings> JSON_WRITER_SETTINGS = new EnumMap<>(JsonMode.class);
 
-            return minify(ret);
+    static {
+        for (var mode : JsonMode.values()) {
+            JSON_WRITER_SETTINGS.put(mode, JsonWriterSettings.builder()
+                    .outputMode(mode)
+                    .indent(false)
+                    .build());
         }
     }
 
+    /**
+     * @param mode the json mode, null for the RESTHeart default format
+     * @return the JsonWriterSettings for the json mode
+     */
+    static JsonWriterSettings jsonWriterSettings(JsonMode mode) {
+        return mode != null
+                ? JSON_WRITER_SETTINGS.get(mode)
+                : DEFAULT_JSON_WRITER_SETTINGS;
+    }
+
     /**
      *
      * @param id
@@ -728,7 +747,7 @@ public class BsonUtils {
         } else if (id.isObjectId()) {
             return id.asObjectId().getValue().toString();
         } else {
-            return minify(BsonUtils.toJson(id).replace("\"", "'"));
+            return BsonUtils.toJson(id).replace("\"", "'");
         }
     }
 
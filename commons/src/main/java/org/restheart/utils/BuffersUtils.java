@@ -22,6 +22,7 @@ package org.restheart.utils;
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import static org.restheart.exchange.Exchange.MAX_CONTENT_SIZE;
@@ -39,7 +40,8 @@ public class BuffersUtils {
 
     /**
      * @param srcs
-     * @return
+     * @return a ByteBuffer with a copy of the data of srcs, whose capacity is
+     * the size of the data
      * @throws IOException
      */
     public static ByteBuffer toByteBuffer(final PooledByteBuffer[] srcs) throws IOException {
@@ -47,26 +49,27 @@ public class BuffersUtils {
             return null;
         }
 
-        ByteBuffer dst = ByteBuffer.allocate(MAX_CONTENT_SIZE);
+        long size = 0;
 
-        for (int i = 0; i < srcs.length; i++) {
-            PooledByteBuffer src = srcs[i];
+        for (var src: srcs) {
             if (src != null) {
-                final ByteBuffer srcBuffer = src.getBuffer();
+                size += src.getBuffer().remaining();
+            }
+        }
 
-                if (srcBuffer.remaining() > dst.remaining()) {
-                    LOGGER.error("Request content exceeeded {} bytes limit",
-                            MAX_CONTENT_SIZE);
-                    throw new IOException("Request content exceeeded "
-                            + MAX_CONTENT_SIZE + " bytes limit");
-                }
+        if (size > MAX_CONTENT_SIZE) {
+            LOGGER.error("Request content exceeeded {} bytes limit",
+                    MAX_CONTENT_SIZE);
+            throw new IOException("Request content exceeeded "
+                    + MAX_CONTENT_SIZE + " bytes limit");
+        }
 
-                if (srcBuffer.hasRemaining()) {
-                    Buffers.copy(dst, srcBuffer);
+        var dst = ByteBuffer.allocate((int) size);
 
-                    // very important, I lost a day for this!
-                    srcBuffer.flip();
-                }
+        for (var src: srcs) {
+            if (src != null) {
+                // copy from a duplicate, the position of src is not modified
+                dst.put(src.getBuffer().duplicate());
             }
         }
 
@@ -74,13 +77,55 @@ public class BuffersUtils {
     }
 
     public static byte[] toByteArray(final PooledByteBuffer[] srcs) throws IOException {
-        ByteBuffer content = toByteBuffer(srcs);
+        // the capacity of the buffer is the size of the data, no need to copy it
+        return toByteBuffer(srcs).array();
+    }
+
+    /**
+     * @param srcs
+     * @return an InputStream that reads the data of srcs without copying it
+     * and without modifying the position of the buffers
+     */
+    public static InputStream toInputStream(final PooledByteBuffer[] srcs) {
+        return new InputStream() {
+            private int idx = -1;
+            private ByteBuffer current = null;
 
-        byte[] ret = new byte[content.limit()];
+            private boolean next() {
+                while (current == null || !current.hasRemaining()) {
+                    idx++;
 
-        content.get(ret);
+                    if (srcs == null || idx >= srcs.length) {
+                        return false;
+                    }
 
-        return ret;
+                    current = srcs[idx] == null ? null : srcs[idx].getBuffer().duplicate();
+                }
+
+                return true;
+            }
+
+            @Override
+            public int read() {
+                return next() ? current.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+
+                if (!next()) {
+                    return -1;
+                }
+
+                var n = Math.min(len, current.remaining());
+                current.get(b, off, n);
+
+                return n;
+            }
+        };
     }
 
     public static String toString(final PooledByteBuffer[] srcs, Charset cs) throws IOException {
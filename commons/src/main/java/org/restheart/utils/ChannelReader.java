@@ -22,13 +22,21 @@ package org.restheart.utils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import org.restheart.exchange.Request;
 import org.xnio.channels.Channels;
+import org.xnio.streams.ChannelInputStream;
 
 import io.undertow.server.HttpServerExchange;
 
 /**
+ * Reads the request content.
+ *
+ * If the content has been already read into pooled buffers by
+ * RequestContentInjector (see Request.getBufferedContent()) it is read from
+ * them, otherwise it is read from the request channel, blocking.
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
@@ -54,19 +62,25 @@ public class ChannelReader {
      * @throws IOException
      */
     public static byte[] readBytes(HttpServerExchange exchange) throws IOException {
+        var buffered = Request.getBufferedContent(exchange);
+
+        if (buffered != null) {
+            return BuffersUtils.toByteArray(buffered);
+        }
+
         var channel = exchange.getRequestChannel();
 
         if (channel == null) {
             return null;
         }
 
-        try (var os = new ByteArrayOutputStream(CAPACITY)) {
-            var pooledByteBuffer = exchange.getConnection().getByteBufferPool().getArrayBackedPool().allocate();
+        try (var os = new ByteArrayOutputStream(CAPACITY);
+            var pooledByteBuffer = exchange.getConnection().getByteBufferPool().getArrayBackedPool().allocate()) {
             var buffer = pooledByteBuffer.getBuffer();
 
             while (Channels.readBlocking(channel, buffer) != -1) {
                 buffer.flip();
-                os.write(buffer.array(), 0, buffer.remaining());
+                os.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
                 buffer.clear();
             }
 
@@ -76,11 +90,25 @@ public class ChannelReader {
 
     /**
      *
-     * @param stream
-     * @return
+     * @param exchange
+     * @return an InputStream to read the request content; if the content has
+     *         been buffered, it reads it from the pooled buffers without copying
+     *         it, otherwise it reads the request channel, blocking
      * @throws IOException
      */
-    // public static String read(InputStream stream) throws IOException {
-    // return CharStreams.toString(new InputStreamReader(stream, CHARSET));
-    // }
+    public static InputStream inputStream(HttpServerExchange exchange) throws IOException {
+        var buffered = Request.getBufferedContent(exchange);
+
+        if (buffered != null) {
+            return BuffersUtils.toInputStream(buffered);
+        }
+
+        var channel = exchange.getRequestChannel();
+
+        if (channel == null) {
+            return InputStream.nullInputStream();
+        }
+
+        return new ChannelInputStream(channel);
+    }
 }
@@ -0,0 +1,430 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.restheart.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import org.bson.BsonDbPointer;
+import org.bson.BsonMaxKey;
+import org.bson.BsonMinKey;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.json.StrictJsonWriter;
+
+/**
+ * A StrictJsonWriter that writes compact json, i.e. without any insignificant
+ * white space, directly to a java.io.Writer.
+ *
+ * Differently from org.bson.json.JsonWriter it can write any BsonValue, not
+ * only documents, so that arrays and scalars don't need to be wrapped in
+ * a document. Values are formatted with the converters of the given
+ * JsonWriterSettings; the output is the same of
+ * BsonUtils.minify(document.toJson(settings)).
+ *
+ * The writer is not thread safe.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CompactJsonWriter implements StrictJsonWriter {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final Writer out;
+    private final JsonWriterSettings settings;
+
+    // hasElements[depth] is true if the object or array at depth
+    // already contains an element, i.e. the next one needs a comma
+    private boolean[] hasElements = new boolean[16];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    /**
+     *
+     * @param out the writer where the json is written to
+     * @param settings the settings that define the converters to use
+     */
+    public CompactJsonWriter(Writer out, JsonWriterSettings settings) {
+        this.out = out;
+        this.settings = settings;
+    }
+
+    /**
+     * writes the json representation of a BsonValue
+     *
+     * @param value
+     * @throws UncheckedIOException if an I/O error occurs writing to the underlying writer
+     */
+    public void writeValue(BsonValue value) {
+        switch (value.getBsonType()) {
+            case DOCUMENT:
+                writeStartObject();
+                for (Map.Entry<String, BsonValue> e : value.asDocument().entrySet()) {
+                    writeName(e.getKey());
+                    writeValue(e.getValue());
+                }
+                writeEndObject();
+                break;
+            case ARRAY:
+                writeStartArray();
+                for (var e : value.asArray()) {
+                    writeValue(e);
+                }
+                writeEndArray();
+                break;
+            case DOUBLE:
+                settings.getDoubleConverter().convert(value.asDouble().getValue(), this);
+                break;
+            case STRING:
+                settings.getStringConverter().convert(value.asString().getValue(), this);
+                break;
+            case BINARY:
+                settings.getBinaryConverter().convert(value.asBinary(), this);
+                break;
+            case UNDEFINED:
+                settings.getUndefinedConverter().convert(null, this);
+                break;
+            case OBJECT_ID:
+                settings.getObjectIdConverter().convert(value.asObjectId().getValue(), this);
+                break;
+            case BOOLEAN:
+                settings.getBooleanConverter().convert(value.asBoolean().getValue(), this);
+                break;
+            case DATE_TIME:
+                settings.getDateTimeConverter().convert(value.asDateTime().getValue(), this);
+                break;
+            case NULL:
+                settings.getNullConverter().convert(null, this);
+                break;
+            case REGULAR_EXPRESSION:
+                settings.getRegularExpressionConverter().convert(value.asRegularExpression(), this);
+                break;
+            case DB_POINTER:
+                writeDbPointer(value.asDBPointer());
+                break;
+            case JAVASCRIPT:
+                settings.getJavaScriptConverter().convert(value.asJavaScript().getCode(), this);
+                break;
+            case SYMBOL:
+                settings.getSymbolConverter().convert(value.asSymbol().getSymbol(), this);
+                break;
+            case JAVASCRIPT_WITH_SCOPE:
+                writeStartObject();
+                writeString("$code", value.asJavaScriptWithScope().getCode());
+                writeName("$scope");
+                writeValue(value.asJavaScriptWithScope().getScope());
+                writeEndObject();
+                break;
+            case INT32:
+                settings.getInt32Converter().convert(value.asInt32().getValue(), this);
+                break;
+            case TIMESTAMP:
+                settings.getTimestampConverter().convert(value.asTimestamp(), this);
+                break;
+            case INT64:
+                settings.getInt64Converter().convert(value.asInt64().getValue(), this);
+                break;
+            case DECIMAL128:
+                settings.getDecimal128Converter().convert(value.asDecimal128().getValue(), this);
+                break;
+            case MIN_KEY:
+                settings.getMinKeyConverter().convert((BsonMinKey) value, this);
+                break;
+            case MAX_KEY:
+                settings.getMaxKeyConverter().convert((BsonMaxKey) value, this);
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported bson type " + value.getBsonType());
+        }
+    }
+
+    // same format of org.bson.json.JsonWriter
+    private void writeDbPointer(BsonDbPointer value) {
+        if (settings.getOutputMode() == JsonMode.EXTENDED) {
+            writeStartObject();
+            writeStartObject("$dbPointer");
+            writeString("$ref", value.getNamespace());
+            writeName("$id");
+            settings.getObjectIdConverter().convert(value.getId(), this);
+            writeEndObject();
+            writeEndObject();
+        } else {
+            writeStartObject();
+            writeString("$ref", value.getNamespace());
+            writeName("$id");
+            settings.getObjectIdConverter().convert(value.getId(), this);
+            writeEndObject();
+        }
+    }
+
+    @Override
+    public void writeName(String name) {
+        if (hasElements[depth]) {
+            write(',');
+        } else {
+            hasElements[depth] = true;
+        }
+
+        writeQuoted(name);
+        write(':');
+        afterName = true;
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        preWriteValue();
+        write(value ? "true" : "false");
+    }
+
+    @Override
+    public void writeBoolean(String name, boolean value) {
+        writeName(name);
+        writeBoolean(value);
+    }
+
+    @Override
+    public void writeNumber(String value) {
+        preWriteValue();
+        write(value);
+    }
+
+    @Override
+    public void writeNumber(String name, String value) {
+        writeName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        preWriteValue();
+        writeQuoted(value);
+    }
+
+    @Override
+    public void writeString(String name, String value) {
+        writeName(name);
+        writeString(value);
+    }
+
+    @Override
+    public void writeRaw(String value) {
+        preWriteValue();
+        write(value);
+    }
+
+    @Override
+    public void writeRaw(String name, String value) {
+        writeName(name);
+        writeRaw(value);
+    }
+
+    @Override
+    public void writeNull() {
+        preWriteValue();
+        write("null");
+    }
+
+    @Override
+    public void writeNull(String name) {
+        writeName(name);
+        writeNull();
+    }
+
+    @Override
+    public void writeStartArray() {
+        preWriteValue();
+        write('[');
+        push();
+    }
+
+    @Override
+    public void writeStartArray(String name) {
+        writeName(name);
+        writeStartArray();
+    }
+
+    @Override
+    public void writeStartObject() {
+        preWriteValue();
+        write('{');
+        push();
+    }
+
+    @Override
+    public void writeStartObject(String name) {
+        writeName(name);
+        writeStartObject();
+    }
+
+    @Override
+    public void writeEndArray() {
+        pop();
+        write(']');
+    }
+
+    @Override
+    public void writeEndObject() {
+        pop();
+        write('}');
+    }
+
+    @Override
+    public boolean isTruncated() {
+        return false;
+    }
+
+    private void preWriteValue() {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            if (hasElements[depth]) {
+                write(',');
+            } else {
+                hasElements[depth] = true;
+            }
+        }
+    }
+
+    private void push() {
+        depth++;
+
+        if (depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+
+        hasElements[depth] = false;
+    }
+
+    private void pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("no object or array to end");
+        }
+
+        depth--;
+    }
+
+    // escapes the same characters escaped by org.bson.json.StrictCharacterStreamJsonWriter
+    private void writeQuoted(String str) {
+        try {
+            out.write('"');
+
+            // start of the run of chars that don't need escaping
+            int start = 0;
+            int length = str.length();
+
+            for (int i = 0; i < length; i++) {
+                char c = str.charAt(i);
+
+                if (c >= 0x20 && c < 0x7f && c != '"' && c != '\\') {
+                    continue;
+                }
+
+                String escaped;
+
+                switch (c) {
+                    case '"': escaped = "\\\""; break;
+                    case '\\': escaped = "\\\\"; break;
+                    case '\b': escaped = "\\b"; break;
+                    case '\f': escaped = "\\f"; break;
+                    case '\n': escaped = "\\n"; break;
+                    case '\r': escaped = "\\r"; break;
+                    case '\t': escaped = "\\t"; break;
+                    default:
+                        if (needsUnicodeEscape(c)) {
+                            escaped = null;
+                        } else {
+                            continue;
+                        }
+                }
+
+                if (i > start) {
+                    out.write(str, start, i - start);
+                }
+
+                if (escaped != null) {
+                    out.write(escaped);
+                } else {
+                    out.write('\\');
+                    out.write('u');
+                    out.write(HEX_DIGITS[(c >> 12) & 0xf]);
+                    out.write(HEX_DIGITS[(c >> 8) & 0xf]);
+                    out.write(HEX_DIGITS[(c >> 4) & 0xf]);
+                    out.write(HEX_DIGITS[c & 0xf]);
+                }
+
+                start = i + 1;
+            }
+
+            if (length > start) {
+                out.write(str, start, length - start);
+            }
+
+            out.write('"');
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private static boolean needsUnicodeEscape(char c) {
+        switch (Character.getType(c)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+            case Character.SPACE_SEPARATOR:
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.MATH_SYMBOL:
+            case Character.CURRENCY_SYMBOL:
+            case Character.MODIFIER_SYMBOL:
+            case Character.OTHER_SYMBOL:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void write(String str) {
+        try {
+            out.write(str);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private void write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
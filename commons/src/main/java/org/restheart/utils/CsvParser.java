@@ -0,0 +1,333 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.bson.BsonBoolean;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+
+/**
+ * Streaming RFC 4180 csv parser, reads one record at a time.
+ *
+ * Fields can be enclosed in double quotes, in which case they can contain
+ * separators, line breaks and escaped double quotes (""). Records are
+ * terminated by CRLF, LF or CR; empty lines are skipped.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CsvParser implements Iterator<List<CsvParser.Field>> {
+    private static final int EOF = -1;
+
+    /**
+     * A field of a csv record
+     *
+     * @param value the value, without enclosing quotes and with escaped quotes
+     * unescaped
+     * @param quoted true if the field was enclosed in double quotes
+     */
+    public record Field(String value, boolean quoted) {
+        /**
+         * converts the field to a typed BsonValue: quoted fields and empty
+         * fields are strings; true, false, null and numbers are converted to
+         * the corresponding types (int32, int64 or double); values starting
+         * with { or [ and shell constructors, as ObjectId("...") or
+         * ISODate("..."), are parsed as json. Any other value is a string.
+         *
+         * @return the BsonValue
+         */
+        public BsonValue toBsonValue() {
+            if (quoted) {
+                return new BsonString(value);
+            }
+
+            var trimmed = value.trim();
+
+            if (trimmed.isEmpty()) {
+                return new BsonString(value);
+            }
+
+            switch (trimmed) {
+                case "true":
+                    return BsonBoolean.TRUE;
+                case "false":
+                    return BsonBoolean.FALSE;
+                case "null":
+                    return BsonNull.VALUE;
+                default:
+                    break;
+            }
+
+            var first = trimmed.charAt(0);
+
+            if (first == '{' || first == '[' || trimmed.endsWith(")")) {
+                try {
+                    return BsonUtils.parse(trimmed);
+                } catch (JsonParseException | BsonInvalidOperationException ex) {
+                    return new BsonString(value);
+                }
+            }
+
+            var number = toNumber(trimmed);
+
+            return number != null ? number : new BsonString(value);
+        }
+
+        /**
+         * @return the number as int32, int64 or double or null if the value
+         * is not a json number
+         */
+        private static BsonValue toNumber(String value) {
+            int idx = 0, len = value.length();
+            var integer = true;
+
+            if (value.charAt(idx) == '-') {
+                idx++;
+            }
+
+            var digits = idx;
+
+            while (idx < len && isDigit(value.charAt(idx))) {
+                idx++;
+            }
+
+            if (idx == digits) {
+                return null;
+            }
+
+            if (idx < len && value.charAt(idx) == '.') {
+                integer = false;
+                digits = ++idx;
+
+                while (idx < len && isDigit(value.charAt(idx))) {
+                    idx++;
+                }
+
+                if (idx == digits) {
+                    return null;
+                }
+            }
+
+            if (idx < len && (value.charAt(idx) == 'e' || value.charAt(idx) == 'E')) {
+                integer = false;
+                idx++;
+
+                if (idx < len && (value.charAt(idx) == '+' || value.charAt(idx) == '-')) {
+                    idx++;
+                }
+
+                digits = idx;
+
+                while (idx < len && isDigit(value.charAt(idx))) {
+                    idx++;
+                }
+
+                if (idx == digits) {
+                    return null;
+                }
+            }
+
+            if (idx < len) {
+                return null;
+            }
+
+            if (integer) {
+                try {
+                    var l = Long.parseLong(value);
+
+                    return l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE
+                            ? new BsonInt32((int) l)
+                            : new BsonInt64(l);
+                } catch (NumberFormatException nfe) {
+                    // too big for a long
+                }
+            }
+
+            return new BsonDouble(Double.parseDouble(value));
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int len = 0;
+    private int line = 1;
+
+    private final StringBuilder field = new StringBuilder();
+    private List<Field> next = null;
+    private boolean eof = false;
+
+    /**
+     *
+     * @param reader the reader of the csv data, it is read sequentially
+     * @param separator the field separator
+     */
+    public CsvParser(Reader reader, char separator) {
+        if (separator == '"' || separator == '\r' || separator == '\n') {
+            throw new IllegalArgumentException("invalid separator " + separator);
+        }
+
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !eof) {
+            next = readRecord();
+            eof = next == null;
+        }
+
+        return next != null;
+    }
+
+    /**
+     * @return the fields of the next record
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    @Override
+    public List<Field> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        var ret = next;
+        next = null;
+        return ret;
+    }
+
+    private List<Field> readRecord() {
+        int c;
+
+        // skip empty lines
+        while ((c = peek()) == '\r' || c == '\n') {
+            endOfLine(read());
+        }
+
+        if (c == EOF) {
+            return null;
+        }
+
+        var record = new ArrayList<Field>();
+
+        while (true) {
+            field.setLength(0);
+            var quoted = false;
+
+            if (peek() == '"') {
+                read();
+                quoted = true;
+                var start = line;
+
+                while (true) {
+                    c = read();
+
+                    if (c == EOF) {
+                        throw new IllegalArgumentException("quoted field not terminated, starting at line " + start);
+                    } else if (c == '"') {
+                        if (peek() == '"') {
+                            field.append((char) read());
+                        } else {
+                            break;
+                        }
+                    } else {
+                        if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                            line++;
+                        }
+
+                        field.append((char) c);
+                    }
+                }
+            }
+
+            // unquoted field, or chars following the closing quote
+            while ((c = read()) != EOF && c != separator && c != '\r' && c != '\n') {
+                field.append((char) c);
+            }
+
+            record.add(new Field(field.toString(), quoted));
+
+            if (c != separator) {
+                endOfLine(c);
+                return record;
+            }
+        }
+    }
+
+    private void endOfLine(int c) {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+
+        if (c != EOF) {
+            line++;
+        }
+    }
+
+    private int peek() {
+        return fill() ? buffer[pos] : EOF;
+    }
+
+    private int read() {
+        return fill() ? buffer[pos++] : EOF;
+    }
+
+    private boolean fill() {
+        if (pos < len) {
+            return true;
+        }
+
+        try {
+            int n;
+
+            do {
+                n = reader.read(buffer, 0, buffer.length);
+            } while (n == 0);
+
+            pos = 0;
+            len = Math.max(n, 0);
+            return n > 0;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.lang.reflect.Type;
 import java.util.Map;
 import org.restheart.cache.CacheFactory;
 import org.restheart.cache.LoadingCache;
+import org.restheart.exchange.ExchangeKeys.METHOD;
 import org.restheart.exchange.Request;
 
 import static org.restheart.exchange.PipelineInfo.PIPELINE_TYPE.SERVICE;
@@ -112,6 +113,54 @@ public class PluginUtils {
         }
     }
 
+    /**
+     *
+     * @param service
+     * @return true if the service reads the request content before the
+     *         authentication, i.e. in requestInitializer() or
+     *         responseInitializer()
+     */
+    @SuppressWarnings("rawtypes")
+    public static boolean requiresContentBeforeAuth(Service service) {
+        var a = service.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        return a != null && a.requiresContent();
+    }
+
+    /**
+     *
+     * @param interceptor
+     * @return the methods of the requests the interceptor applies to, an empty
+     *         array means any method
+     */
+    @SuppressWarnings("rawtypes")
+    public static METHOD[] interceptMethods(Interceptor interceptor) {
+        var a = interceptor.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        if (a == null) {
+            return new METHOD[0];
+        } else {
+            return a.interceptMethods();
+        }
+    }
+
+    /**
+     *
+     * @param interceptor
+     * @return the path prefixes of the requests the interceptor applies to, an
+     *         empty array means any path
+     */
+    @SuppressWarnings("rawtypes")
+    public static String[] interceptPaths(Interceptor interceptor) {
+        var a = interceptor.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        if (a == null) {
+            return new String[0];
+        } else {
+            return a.interceptPaths();
+        }
+    }
+
     /**
      *
      * @param plugin
@@ -276,9 +325,14 @@ public class PluginUtils {
      */
     @SuppressWarnings("rawtypes")
     public static PluginRecord<Service> handlingServicePluginRecord(PluginsRegistry registry, HttpServerExchange exchange) {
-        var pi = Request.of(exchange).getPipelineInfo();
+        var pi = Request.pipelineInfo(exchange);
 
         if (pi != null && pi.getType() == SERVICE) {
+            // the service is usually bound to the PipelineInfo by PluginsRegistry.plugService()
+            if (pi.getService() != null) {
+                return pi.getService();
+            }
+
             var srvName = pi.getName();
 
             if (srvName != null) {
@@ -22,9 +22,12 @@ package org.restheart.exchange;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HttpString;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -232,4 +235,17 @@ public class BsonRequestTest {
         request = MongoRequest.init(ex, whereUri, whatUri);
         assertEquals("/db/coll/x", request.getUnmappedRequestUri());
     }
+
+    /**
+     *
+     */
+    @Test
+    public void testIsReturnMinimalPreferred() {
+        assertFalse(MongoRequest.isReturnMinimalPreferred(null));
+        assertFalse(MongoRequest.isReturnMinimalPreferred(List.of("return=representation")));
+        assertTrue(MongoRequest.isReturnMinimalPreferred(List.of("return=minimal")));
+        assertTrue(MongoRequest.isReturnMinimalPreferred(List.of("Return = Minimal")));
+        assertTrue(MongoRequest.isReturnMinimalPreferred(List.of("respond-async, return=minimal; foo=bar")));
+        assertTrue(MongoRequest.isReturnMinimalPreferred(List.of("wait=10", "return=minimal")));
+    }
 }
@@ -20,6 +20,7 @@
 
 package org.restheart.utils;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -29,6 +30,7 @@ import org.bson.BsonDouble;
 import org.bson.BsonNull;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
 import org.bson.types.ObjectId;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -922,4 +924,41 @@ public class BsonUtilsTest {
                 BsonUtils.parse(
                         "{'n':{'$numberDouble':'11111111158873916063432424232349289023842309842039587209357329578573489573958734985753498573495743957349839'}}")));
     }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWriteJson() throws Exception {
+        var doc = BsonDocument.parse("{'s':'a \\\"quoted\\\" string\\n with accents and \\u0001', 'n':1, 'l':{'$numberLong':'5999999999'}, 'd':1.5, "
+                + "'b':true, 'nil':null, 'oid':{'$oid':'5d0b3e8b8a8f8c1b2c3d4e5f'}, 'date':{'$date':1000}, "
+                + "'dec':{'$numberDecimal':'1.1'}, 'bin':{'$binary':'AQI=','$type':'00'}, 'ts':{'$timestamp':{'t':1,'i':2}}, "
+                + "'re':{'$regex':'a.*','$options':'i'}, 'min':{'$minKey':1}, 'max':{'$maxKey':1}, "
+                + "'sub':{'a':[1,{'b':[]},{}], 'c':[[1,2],[3]]}}");
+
+        for (var mode: new JsonMode[] { null, JsonMode.RELAXED, JsonMode.EXTENDED }) {
+            // the json must be the minified output of org.bson.json.JsonWriter
+            var expected = BsonUtils.minify(doc.toJson(BsonUtils.jsonWriterSettings(mode)));
+
+            var sw = new StringWriter();
+            BsonUtils.writeJson(doc, mode, sw);
+            Assert.assertEquals("wrong json for mode " + mode, expected, sw.toString());
+            Assert.assertEquals("wrong json for mode " + mode, expected, BsonUtils.toJson(doc, mode));
+
+            // arrays and scalars
+            for (var value: doc.values()) {
+                var wrapped = BsonUtils.minify(new BsonDocument("x", value).toJson(BsonUtils.jsonWriterSettings(mode)));
+                Assert.assertEquals("wrong json for mode " + mode, wrapped, "{\"x\":" + BsonUtils.toJson(value, mode) + "}");
+            }
+        }
+
+        var sw = new StringWriter();
+        BsonUtils.writeJson(doc.get("date"), null, sw);
+        Assert.assertEquals("{\"$date\":1000}", sw.toString());
+
+        sw = new StringWriter();
+        BsonUtils.writeJson(new BsonString("àèìòù"), null, sw);
+        Assert.assertEquals("\"àèìòù\"", sw.toString());
+    }
 }
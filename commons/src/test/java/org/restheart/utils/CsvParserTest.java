@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.BsonBoolean;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CsvParserTest {
+
+    private static List<List<String>> parse(String csv, char sep) {
+        var records = new ArrayList<List<String>>();
+
+        new CsvParser(new StringReader(csv), sep).forEachRemaining(r -> records.add(r.stream()
+                .map(CsvParser.Field::value)
+                .collect(Collectors.toList())));
+
+        return records;
+    }
+
+    @Test
+    public void testRecords() {
+        assertEquals(List.of(List.of("a", "b", ""), List.of("1", "2", "3")), parse("a,b,\r\n1,2,3\n", ','));
+        assertEquals(List.of(List.of("a", "b"), List.of("1", "2")), parse("a;b\n\n1;2", ';'));
+    }
+
+    @Test
+    public void testQuotedFields() {
+        assertEquals(List.of(List.of("a,b", "say \"hi\"", "two\nlines", "")),
+                parse("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"\"", ','));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedQuotedField() {
+        parse("a,\"b\n1,2", ',');
+    }
+
+    @Test
+    public void testToBsonValue() {
+        assertEquals(new BsonInt32(1), new CsvParser.Field("1", false).toBsonValue());
+        assertEquals(new BsonInt64(3_000_000_000l), new CsvParser.Field("3000000000", false).toBsonValue());
+        assertEquals(new BsonDouble(-1.5e3), new CsvParser.Field("-1.5e3", false).toBsonValue());
+        assertEquals(BsonBoolean.TRUE, new CsvParser.Field("true", false).toBsonValue());
+        assertEquals(BsonNull.VALUE, new CsvParser.Field("null", false).toBsonValue());
+        assertEquals(new BsonString("1"), new CsvParser.Field("1", true).toBsonValue());
+        assertEquals(new BsonString("1a"), new CsvParser.Field("1a", false).toBsonValue());
+        assertEquals(new BsonString(""), new CsvParser.Field("", false).toBsonValue());
+        assertTrue(new CsvParser.Field("{\"a\":1}", false).toBsonValue().isDocument());
+        assertTrue(new CsvParser.Field("ObjectId(\"5f6a7b8c9d0e1f2a3b4c5d6e\")", false).toBsonValue().isObjectId());
+    }
+}
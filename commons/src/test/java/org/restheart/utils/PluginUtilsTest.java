@@ -120,6 +120,15 @@ public class PluginUtilsTest {
                 PluginUtils.requiresContent(plugin));
     }
 
+    @Test
+    public void testServiceRequiresContentBeforeAuth() {
+        assertEquals(true,
+                PluginUtils.requiresContentBeforeAuth(new TestPlugin()));
+
+        assertEquals(false,
+                PluginUtils.requiresContentBeforeAuth(new TestPluginDefault()));
+    }
+
     @RegisterPlugin(name = "testPlugin",
             description = "test description",
             defaultURI = "/test",
@@ -63,6 +63,8 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -81,12 +83,16 @@ import com.jayway.jsonpath.spi.mapper.MappingProvider;
 
 import org.fusesource.jansi.AnsiConsole;
 import org.graalvm.nativeimage.ImageInfo;
+import org.restheart.Configuration.WORKER_EXECUTION_MODE;
 import org.restheart.exchange.Exchange;
 import org.restheart.exchange.ExchangeKeys;
 import org.restheart.exchange.PipelineInfo;
 import org.restheart.graal.NativeImageBuildTimeChecker;
+import org.restheart.handlers.CompressionPolicy;
+import org.restheart.handlers.ConcurrencyLimiter;
 import org.restheart.handlers.ConfigurableEncodingHandler;
 import org.restheart.handlers.ErrorHandler;
+import org.restheart.handlers.PipelineStagesTimer;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.PipelinedWrappingHandler;
 import org.restheart.handlers.ProxyExchangeBuffersCloser;
@@ -95,6 +101,7 @@ import org.restheart.handlers.RequestInterceptorsExecutor;
 import org.restheart.handlers.RequestLogger;
 import org.restheart.handlers.RequestNotManagedHandler;
 import org.restheart.handlers.TracingInstrumentationHandler;
+import org.restheart.handlers.VirtualThreadsBlockingHandler;
 import org.restheart.handlers.injectors.AuthHeadersRemover;
 import org.restheart.handlers.injectors.ConduitInjector;
 import org.restheart.handlers.injectors.PipelineInfoInjector;
@@ -125,6 +132,7 @@ import org.xnio.ssl.XnioSsl;
 
 import io.undertow.Undertow;
 import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.AllowedMethodsHandler;
 import io.undertow.server.handlers.BlockingHandler;
 import io.undertow.server.handlers.GracefulShutdownHandler;
@@ -155,6 +163,7 @@ public class Bootstrapper {
     private static boolean IS_FORKED;
 
     private static final Map<String, File> TMP_EXTRACTED_FILES = new HashMap<>();
+    private static final List<Path> TMP_ENCODED_RESOURCES_DIRS = new ArrayList<>();
 
     private static Path CONFIGURATION_FILE;
     private static Path PROPERTIES_FILE;
@@ -679,6 +688,14 @@ public class Bootstrapper {
             }
         });
 
+        TMP_ENCODED_RESOURCES_DIRS.forEach(dir -> {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            } catch (IOException ex) {
+                LOGGER.error("Error cleaning up temporary directory {}", dir.toString(), ex);
+            }
+        });
+
         if (undertowServer != null) {
             undertowServer.stop();
         }
@@ -918,16 +935,26 @@ public class Bootstrapper {
      * @return
      */
     private static GracefulShutdownHandler getBasePipeline() {
+        return getBasePipeline(configuration.getWorkerExecutionMode(),
+                configuration.getRequestsLimit(),
+                PluginsRegistryImpl.getInstance().getRootPathHandler());
+    }
+
+    /**
+     *
+     * @param workerExecutionMode
+     * @param requestsLimit
+     * @param rootHandler the handler that routes the requests to the pipelines
+     * @return the base pipeline
+     */
+    private static GracefulShutdownHandler getBasePipeline(WORKER_EXECUTION_MODE workerExecutionMode, int requestsLimit, HttpHandler rootHandler) {
         return new GracefulShutdownHandler(
                 new RequestLimitingHandler(
-                        new RequestLimit(configuration.getRequestsLimit()),
+                        new RequestLimit(requestsLimit),
                         new AllowedMethodsHandler(
-                                new BlockingHandler(
+                                getBlockingHandler(workerExecutionMode,
                                         new ErrorHandler(
-                                                new HttpContinueAcceptingHandler(
-                                                        PluginsRegistryImpl
-                                                                .getInstance()
-                                                                .getRootPathHandler()))),
+                                                new HttpContinueAcceptingHandler(rootHandler))),
                                 // allowed methods
                                 HttpString.tryFromString(ExchangeKeys.METHOD.GET.name()),
                                 HttpString.tryFromString(ExchangeKeys.METHOD.POST.name()),
@@ -937,6 +964,32 @@ public class Bootstrapper {
                                 HttpString.tryFromString(ExchangeKeys.METHOD.OPTIONS.name()))));
     }
 
+    /**
+     * the handler that dispatches the exchange from the IO thread
+     * to the thread that executes the blocking request pipeline
+     * according to the worker-execution-mode configuration option
+     *
+     * @param workerExecutionMode
+     * @param next
+     * @return the blocking handler
+     */
+    private static HttpHandler getBlockingHandler(WORKER_EXECUTION_MODE workerExecutionMode, HttpHandler next) {
+        if (workerExecutionMode == WORKER_EXECUTION_MODE.VIRTUAL) {
+            var executor = VirtualThreadsBlockingHandler.newVirtualThreadPerTaskExecutor();
+
+            if (executor != null) {
+                LOGGER.info("Requests are executed by virtual threads");
+                return new VirtualThreadsBlockingHandler(executor, next);
+            } else {
+                LOGGER.warn(ansi().fg(RED).bold()
+                    .a("Virtual threads are not supported by the Java runtime {}, requests are executed by {} worker threads")
+                    .reset().toString(), Runtime.version(), configuration.getWorkerThreads());
+            }
+        }
+
+        return new BlockingHandler(next);
+    }
+
     /**
      * plug services
      *
@@ -1086,8 +1139,11 @@ public class Bootstrapper {
                         .setProxyClient(proxyClient)
                         .build();
 
-                var proxy = pipe(
-                        new PipelineInfoInjector(),
+                var pi = new PipelineInfo(PROXY, location, name);
+
+                var proxy = pipe(PipelineStagesTimer.instrument(pi,
+                        new PipelineInfoInjector(pi),
+                        ConcurrencyLimiter.fromConfiguration(conf, location),
                         new TracingInstrumentationHandler(),
                         new RequestLogger(),
                         new ProxyExchangeBuffersCloser(),
@@ -1102,9 +1158,9 @@ public class Bootstrapper {
                         new RequestInterceptorsExecutor(REQUEST_AFTER_AUTH),
                         new QueryStringRebuilder(),
                         new ConduitInjector(),
-                        PipelinedWrappingHandler.wrap(new ConfigurableEncodingHandler(proxyHandler))); // Must be after ConduitInjector 
+                        PipelinedWrappingHandler.wrap(new ConfigurableEncodingHandler(proxyHandler)))); // Must be after ConduitInjector 
 
-                PluginsRegistryImpl.getInstance().plugPipeline(location, proxy, new PipelineInfo(PROXY, location, name));
+                PluginsRegistryImpl.getInstance().plugPipeline(location, proxy, pi);
 
                 LOGGER.info(ansi().fg(GREEN).a("URI {} bound to proxy resource {}").reset().toString(), location, _proxyPass);
             } catch (URISyntaxException ex) {
@@ -1187,14 +1243,25 @@ public class Bootstrapper {
                                 .addWelcomeFiles(welcomeFile)
                                 .setDirectoryListingEnabled(false);
 
+                        var compression = CompressionPolicy.get();
+
+                        if (compression.isCacheStaticResources()) {
+                            // compressed resources are cached in a temporary directory
+                            var encodedDir = Files.createTempDirectory("restheart-encoded-");
+                            TMP_ENCODED_RESOURCES_DIRS.add(encodedDir);
+                            handler.setContentEncodedResourceManager(compression.staticResourcesManager(encodedDir));
+                        }
+
+                        var pi = new PipelineInfo(STATIC_RESOURCE, where, path);
+
                         PipelinedHandler ph = PipelinedHandler.pipe(
-                                new PipelineInfoInjector(),
+                                new PipelineInfoInjector(pi),
                                 new RequestLogger(),
                                 PipelinedWrappingHandler.wrap(handler)
                         );
 
                         PluginsRegistryImpl.getInstance()
-                                .plugPipeline(where, ph, new PipelineInfo(STATIC_RESOURCE, where, path));
+                                .plugPipeline(where, ph, pi);
 
                         LOGGER.info(ansi().fg(GREEN)
                                 .a("URI {} bound to static resource {}")
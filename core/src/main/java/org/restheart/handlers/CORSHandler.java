@@ -27,6 +27,7 @@ import io.undertow.util.Headers;
 import static io.undertow.util.Headers.LOCATION_STRING;
 import static io.undertow.util.Headers.ORIGIN;
 import io.undertow.util.HttpString;
+import static org.restheart.exchange.ExchangeKeys.CONTINUATION_TOKEN_HEADER;
 import static org.restheart.handlers.CORSHandler.CORSHeaders.ACCESS_CONTROL_ALLOW_CREDENTIAL;
 import static org.restheart.handlers.CORSHandler.CORSHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
 import static org.restheart.handlers.CORSHandler.CORSHeaders.ACCESS_CONTROL_EXPOSE_HEADERS;
@@ -70,6 +71,7 @@ public class CORSHandler extends PipelinedHandler {
                     + AUTH_TOKEN_HEADER.toString() + ", "
                     + AUTH_TOKEN_VALID_HEADER.toString() + ", "
                     + AUTH_TOKEN_LOCATION_HEADER.toString() + ", "
+                    + CONTINUATION_TOKEN_HEADER + ", "
                     + HttpHeaders.X_POWERED_BY);
         }
     }
@@ -0,0 +1,175 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.conduits.DeflatingStreamSinkConduit;
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodedResourceManager;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.server.handlers.resource.CachingResourceManager;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.util.Headers;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import org.restheart.Bootstrapper;
+import static org.restheart.ConfigurationUtils.asBoolean;
+import static org.restheart.ConfigurationUtils.asInteger;
+import static org.restheart.ConfigurationUtils.asListOfStrings;
+
+/**
+ * The response compression policy, configured by the compression
+ * configuration option.
+ *
+ * Responses are compressed only if their Content-Length, when known, is at
+ * least min-size bytes and their Content-Type is not excluded. The gzip and
+ * deflate encoders share a pool of Deflater instances with the configured
+ * compression level, rather than allocating one per response.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class CompressionPolicy {
+    static final List<String> DEFAULT_EXCLUDED_CONTENT_TYPES = List.of("image/", "video/", "audio/",
+        "application/zip", "application/gzip", "application/x-gzip", "application/octet-stream");
+
+    private static final int STATIC_RESOURCES_MAX_SIZE = 10 * 1024 * 1024;
+
+    private static CompressionPolicy INSTANCE = null;
+
+    private final int minSize;
+    private final int level;
+    private final String[] excludedContentTypes;
+    private final boolean cacheStaticResources;
+    private final ContentEncodingRepository repository;
+
+    /**
+     * @param conf the compression configuration options
+     */
+    public CompressionPolicy(Map<String, Object> conf) {
+        this.minSize = asInteger(conf, "min-size", 1024, true);
+        this.level = asInteger(conf, "level", Deflater.DEFAULT_COMPRESSION, true);
+
+        if (this.level < Deflater.DEFAULT_COMPRESSION || this.level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("wrong compression level " + this.level + ", allowed values are -1 and 1 to 9");
+        }
+
+        this.excludedContentTypes = asListOfStrings(conf, "excluded-content-types", DEFAULT_EXCLUDED_CONTENT_TYPES, true).stream()
+            .map(ct -> ct.toLowerCase(Locale.ROOT).trim())
+            .toArray(String[]::new);
+        this.cacheStaticResources = asBoolean(conf, "cache-static-resources", true, true);
+
+        var poolSize = asInteger(conf, "deflaters-pool-size", 64, true);
+
+        Predicate allowed = this::isCompressionAllowed;
+
+        this.repository = new ContentEncodingRepository()
+            .addEncodingHandler("gzip", new GzipEncodingProvider(DeflatingStreamSinkConduit.simpleDeflaterPool(poolSize, this.level)), 60, allowed)
+            .addEncodingHandler("deflate", new DeflateEncodingProvider(DeflatingStreamSinkConduit.simpleDeflaterPool(poolSize, this.level)), 50, allowed);
+    }
+
+    /**
+     * @return the policy defined by the compression configuration option,
+     *         shared by all pipelines so that they share the Deflater pools
+     */
+    public static synchronized CompressionPolicy get() {
+        if (INSTANCE == null) {
+            INSTANCE = new CompressionPolicy(Bootstrapper.getConfiguration().getCompression());
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * @return the ContentEncodingRepository that applies the policy
+     */
+    public ContentEncodingRepository getRepository() {
+        return repository;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isCacheStaticResources() {
+        return cacheStaticResources;
+    }
+
+    /**
+     * evaluated when the response channel is created, i.e. when Content-Length
+     * and Content-Type are known
+     *
+     * @param exchange
+     * @return true if the response can be compressed
+     */
+    boolean isCompressionAllowed(HttpServerExchange exchange) {
+        var contentLength = exchange.getResponseContentLength();
+
+        // -1 if unknown, e.g. chunked responses
+        if (contentLength >= 0 && contentLength < minSize) {
+            return false;
+        }
+
+        return isContentTypeAllowed(exchange);
+    }
+
+    boolean isContentTypeAllowed(HttpServerExchange exchange) {
+        var contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+
+        if (contentType == null) {
+            return true;
+        }
+
+        for (var excluded: excludedContentTypes) {
+            if (contentType.regionMatches(true, 0, excluded, 0, excluded.length())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param encodedResourcesDir the directory where the compressed resources are stored
+     * @return a ContentEncodedResourceManager that compresses static resources
+     *         once and serves the compressed versions from encodedResourcesDir
+     * @throws IOException
+     */
+    public ContentEncodedResourceManager staticResourcesManager(Path encodedResourcesDir) throws IOException {
+        var encodedResources = new CachingResourceManager(1024, STATIC_RESOURCES_MAX_SIZE, null, new PathResourceManager(encodedResourcesDir), -1);
+
+        return new ContentEncodedResourceManager(encodedResourcesDir,
+            encodedResources,
+            repository,
+            minSize,
+            STATIC_RESOURCES_MAX_SIZE,
+            this::isContentTypeAllowed);
+    }
+}
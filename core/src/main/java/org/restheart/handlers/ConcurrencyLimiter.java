@@ -0,0 +1,223 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.restheart.Configuration;
+import static org.restheart.ConfigurationUtils.asBoolean;
+import static org.restheart.ConfigurationUtils.asInteger;
+import static org.restheart.ConfigurationUtils.asMapOfMaps;
+import org.restheart.utils.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the concurrent requests of a pipeline, adjusting the limit from the
+ * observed latency.
+ *
+ * The limit follows a gradient algorithm: the latency of each request is
+ * compared with its long term average; while it stays below it (times a
+ * tolerance) the limit grows, when requests start queuing and the latency
+ * increases the limit shrinks proportionally. The limit is updated only when
+ * the pipeline is loaded (in-flight requests at least half the limit), since
+ * otherwise the latency says nothing about the capacity.
+ *
+ * Requests exceeding the limit are rejected with 503 Service Unavailable and
+ * the Retry-After header, without being queued.
+ *
+ * The limiters are configured by the concurrency-limits configuration option,
+ * see fromConfiguration()
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ConcurrencyLimiter extends PipelinedHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    private static final Map<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    // the tolerated latency increase before reducing the limit
+    private static final double TOLERANCE = 1.5;
+    // the smoothing factor of limit changes
+    private static final double SMOOTHING = 0.2;
+    // the number of samples of the long term latency average
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final String retryAfter;
+
+    private final AtomicInteger inflight = new AtomicInteger(0);
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private double longRtt = 0;
+
+    /**
+     * @param initialLimit
+     * @param minLimit
+     * @param maxLimit
+     * @param retryAfter the value of the Retry-After response header in seconds
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int retryAfter) {
+        super();
+
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("wrong concurrency limits, min-limit: " + minLimit + ", max-limit: " + maxLimit);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.retryAfter = Integer.toString(retryAfter);
+    }
+
+    /**
+     * creates the limiter of a pipeline from the concurrency-limits
+     * configuration option, applying the settings specified for the pipeline
+     * uri in concurrency-limits.pipelines over the default ones
+     *
+     * @param conf
+     * @param uri the pipeline uri
+     * @return the limiter of the pipeline or null if not enabled
+     */
+    public static ConcurrencyLimiter fromConfiguration(Configuration conf, String uri) {
+        if (conf == null) {
+            return null;
+        }
+
+        var cl = conf.getConcurrencyLimits();
+
+        var pipelines = asMapOfMaps(cl, "pipelines", Collections.emptyMap(), true);
+
+        var _cl = new HashMap<String, Object>(cl);
+
+        if (pipelines.containsKey(uri) && pipelines.get(uri) != null) {
+            _cl.putAll(pipelines.get(uri));
+        }
+
+        if (!asBoolean(_cl, "enabled", false, true)) {
+            return null;
+        }
+
+        try {
+            var limiter = new ConcurrencyLimiter(
+                asInteger(_cl, "initial-limit", 20, true),
+                asInteger(_cl, "min-limit", 4, true),
+                asInteger(_cl, "max-limit", 1000, true),
+                asInteger(_cl, "retry-after", 1, true));
+
+            LIMITERS.put(uri, limiter);
+
+            return limiter;
+        } catch (IllegalArgumentException | ClassCastException ex) {
+            LOGGER.error("Wrong concurrency-limits configuration for pipeline {}, concurrency limiter disabled", uri, ex);
+            return null;
+        }
+    }
+
+    /**
+     * @return the configured limiters, by pipeline uri
+     */
+    public static Map<String, ConcurrencyLimiter> limiters() {
+        return Collections.unmodifiableMap(LIMITERS);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        var _inflight = inflight.incrementAndGet();
+
+        if (_inflight > (int) limit) {
+            inflight.decrementAndGet();
+            rejected.increment();
+            exchange.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            exchange.getResponseHeaders().put(Headers.RETRY_AFTER, retryAfter);
+            exchange.endExchange();
+            return;
+        }
+
+        var start = System.nanoTime();
+
+        exchange.addExchangeCompleteListener((ex, nextListener) -> {
+            try {
+                update(System.nanoTime() - start, _inflight);
+            } finally {
+                inflight.decrementAndGet();
+                nextListener.proceed();
+            }
+        });
+
+        next(exchange);
+    }
+
+    private synchronized void update(long rtt, int _inflight) {
+        if (rtt <= 0) {
+            return;
+        }
+
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+
+        // the long term average lags behind a sustained latency decrease
+        if (longRtt > rtt * 2) {
+            longRtt = longRtt * 0.95;
+        }
+
+        var _limit = this.limit;
+
+        // not loaded, the latency does not reflect the capacity
+        if (_inflight < _limit / 2) {
+            return;
+        }
+
+        var gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        var newLimit = _limit * gradient + Math.sqrt(_limit);
+        newLimit = _limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        this.limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * @return the current limit
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of in-flight requests
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * @return the number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
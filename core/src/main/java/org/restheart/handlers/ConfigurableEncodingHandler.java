@@ -22,10 +22,7 @@ package org.restheart.handlers;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.server.handlers.encoding.ContentEncodingRepository;
-import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
 import io.undertow.server.handlers.encoding.EncodingHandler;
-import io.undertow.server.handlers.encoding.GzipEncodingProvider;
 import io.undertow.util.Headers;
 import java.util.Arrays;
 
@@ -51,12 +48,12 @@ public class ConfigurableEncodingHandler extends EncodingHandler {
      * requests without gzip or deflate encodingin Accept-Encoding header
      * will be rejected
      *
+     * responses are compressed according to the CompressionPolicy
+     *
      * @param next
      */
     public ConfigurableEncodingHandler(HttpHandler next) {
-        super(next, new ContentEncodingRepository()
-                .addEncodingHandler("gzip", new GzipEncodingProvider(), 60)
-                .addEncodingHandler("deflate", new DeflateEncodingProvider(), 50));
+        super(next, CompressionPolicy.get().getRepository());
 
         this.forceCompression = Bootstrapper.getConfiguration().isForceGzipEncoding();
     }
@@ -0,0 +1,212 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.server.Connectors;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.protocol.http.HttpContinue;
+import java.io.IOException;
+import static org.restheart.exchange.Exchange.MAX_CONTENT_SIZE;
+import org.restheart.exchange.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.channels.StreamSourceChannel;
+
+/**
+ * Reads the request content into pooled buffers before invoking the next
+ * handler, like io.undertow.server.handlers.RequestBufferingHandler
+ *
+ * The channel is read without blocking: when no data is available the exchange
+ * is suspended, the worker thread is released and, once the content has been
+ * entirely read by the IO thread, the exchange is dispatched again to the
+ * executor set by VirtualThreadsBlockingHandler or to the XNIO worker.
+ *
+ * The buffered content is replayed by the request channel and, if it has been
+ * read entirely, it is available via Request.getBufferedContent() so that
+ * ChannelReader reads it without copying it from the channel again.
+ *
+ * Requests whose Content-Length exceeds MAX_CONTENT_SIZE or that expect a
+ * 100-continue response are not buffered.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class NonBlockingRequestBufferingHandler implements HttpHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NonBlockingRequestBufferingHandler.class);
+
+    private final HttpHandler next;
+    private final int maxBuffers;
+
+    /**
+     * @param next
+     * @param maxBuffers the maximum number of pooled buffers to fill
+     */
+    public NonBlockingRequestBufferingHandler(HttpHandler next, int maxBuffers) {
+        this.next = next;
+        this.maxBuffers = maxBuffers;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (exchange.isRequestComplete()
+            || HttpContinue.requiresContinueResponse(exchange.getRequestHeaders())
+            || exchange.getRequestContentLength() > MAX_CONTENT_SIZE) {
+            next.handleRequest(exchange);
+            return;
+        }
+
+        var channel = exchange.getRequestChannel();
+
+        if (channel == null) {
+            next.handleRequest(exchange);
+            return;
+        }
+
+        var reader = new Reader(exchange, channel);
+
+        boolean done;
+
+        try {
+            done = reader.read();
+        } catch (IOException ioe) {
+            reader.abort(ioe);
+            return;
+        }
+
+        if (done) {
+            reader.complete();
+            next.handleRequest(exchange);
+        } else {
+            // no data available, release the thread and wait for the IO thread
+            channel.getReadSetter().set(ch -> {
+                try {
+                    if (!reader.read()) {
+                        return;
+                    }
+                } catch (IOException ioe) {
+                    ch.getReadSetter().set(null);
+                    ch.suspendReads();
+                    reader.abort(ioe);
+                    return;
+                }
+
+                ch.getReadSetter().set(null);
+                ch.suspendReads();
+                reader.complete();
+                exchange.dispatch(exchange.getAttachment(VirtualThreadsBlockingHandler.EXECUTOR_KEY), next);
+            });
+
+            channel.resumeReads();
+        }
+    }
+
+    private class Reader {
+        private final HttpServerExchange exchange;
+        private final StreamSourceChannel channel;
+        private final PooledByteBuffer[] buffers = new PooledByteBuffer[maxBuffers];
+        private int idx = 0;
+        private boolean eof = false;
+
+        Reader(HttpServerExchange exchange, StreamSourceChannel channel) {
+            this.exchange = exchange;
+            this.channel = channel;
+        }
+
+        /**
+         * reads all the available data
+         *
+         * @return true if the content has been entirely read or the buffers
+         * are full, false if the channel has no data available
+         */
+        boolean read() throws IOException {
+            while (idx < buffers.length) {
+                if (buffers[idx] == null) {
+                    buffers[idx] = exchange.getConnection().getByteBufferPool().allocate();
+                }
+
+                var buffer = buffers[idx].getBuffer();
+                var r = channel.read(buffer);
+
+                if (r == -1) {
+                    eof = true;
+                    return true;
+                } else if (r == 0) {
+                    return false;
+                } else if (!buffer.hasRemaining()) {
+                    idx++;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * pushes back the buffered data to the request channel
+         */
+        void complete() {
+            for (var i = 0; i < buffers.length; i++) {
+                if (buffers[i] == null) {
+                    break;
+                }
+
+                var buffer = buffers[i].getBuffer();
+
+                if (buffer.position() == 0) {
+                    // allocated but not filled
+                    buffers[i].close();
+                    buffers[i] = null;
+                    break;
+                }
+
+                buffer.flip();
+            }
+
+            if (buffers[0] == null) {
+                // empty content
+                return;
+            }
+
+            Connectors.ungetRequestBytes(exchange, buffers);
+            Connectors.resetRequestChannel(exchange);
+
+            if (eof) {
+                Request.setContentBuffered(exchange);
+            }
+        }
+
+        /**
+         * frees the buffers and ends the exchange
+         */
+        void abort(IOException ioe) {
+            LOGGER.debug("Error reading request content", ioe);
+
+            for (var i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    buffers[i].close();
+                    buffers[i] = null;
+                }
+            }
+
+            exchange.endExchange();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import com.codahale.metrics.Timer;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.restheart.exchange.PipelineInfo;
+
+/**
+ * Measures the time spent by the requests in each stage of a pipeline.
+ *
+ * instrument() interleaves the handlers of a pipeline with markers that record
+ * System.nanoTime() when the exchange enters each stage; when the exchange
+ * completes, the time spent in a stage, i.e. the time between entering it and
+ * entering the next one (or completing the exchange for the last stage
+ * reached), is recorded in the stage timer.
+ *
+ * Names and timers are resolved when the pipeline is built, so the per-request
+ * overhead is a long[] and a nanoTime() call per stage.
+ *
+ * The collected metrics are exposed by the pipelinesMetrics service.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class PipelineStagesTimer {
+    private static final AttachmentKey<long[]> STAGES_ENTRY_TIMES_KEY = AttachmentKey.create(long[].class);
+
+    private static final Map<String, PipelineStages> PIPELINES = new ConcurrentHashMap<>();
+
+    private PipelineStagesTimer() {
+    }
+
+    /**
+     * @param pi the PipelineInfo of the pipeline
+     * @param _stages the handlers of the pipeline, null elements are skipped
+     * @return the stages interleaved with the timing markers, to be passed to
+     *         PipelinedHandler.pipe()
+     */
+    public static PipelinedHandler[] instrument(PipelineInfo pi, PipelinedHandler... _stages) {
+        // optional stages, e.g. the ConcurrencyLimiter, are null when disabled
+        var stages = Arrays.stream(_stages).filter(Objects::nonNull).toArray(PipelinedHandler[]::new);
+
+        var pipelineStages = new PipelineStages(pi, stages);
+
+        PIPELINES.put(pi.getUri(), pipelineStages);
+
+        var ret = new PipelinedHandler[stages.length * 2];
+
+        for (var idx = 0; idx < stages.length; idx++) {
+            ret[idx * 2] = new Mark(pipelineStages, idx);
+            ret[idx * 2 + 1] = stages[idx];
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the stages of the instrumented pipelines, by pipeline uri
+     */
+    public static Map<String, PipelineStages> pipelines() {
+        return Collections.unmodifiableMap(PIPELINES);
+    }
+
+    private static String stageName(PipelineInfo pi, PipelinedHandler stage) {
+        if (stage instanceof PipelinedWrappingHandler) {
+            // it wraps the service or the proxy handler
+            return pi.getType().name().toLowerCase();
+        } else {
+            return stage.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * The timers of the stages of a pipeline
+     */
+    public static class PipelineStages {
+        private final PipelineInfo pipelineInfo;
+        private final String[] names;
+        private final Timer[] timers;
+        private final Timer total = new Timer();
+
+        private PipelineStages(PipelineInfo pi, PipelinedHandler[] stages) {
+            this.pipelineInfo = pi;
+            this.names = new String[stages.length];
+            this.timers = new Timer[stages.length];
+
+            var occurrences = new HashMap<String, Integer>();
+
+            for (var idx = 0; idx < stages.length; idx++) {
+                var name = stageName(pi, stages[idx]);
+                // handlers can occur more than once, e.g. QueryStringRebuilder
+                var n = occurrences.merge(name, 1, Integer::sum);
+                this.names[idx] = n == 1 ? name : name + "-" + n;
+                this.timers[idx] = new Timer();
+            }
+        }
+
+        public PipelineInfo getPipelineInfo() {
+            return pipelineInfo;
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public String name(int idx) {
+            return names[idx];
+        }
+
+        public Timer timer(int idx) {
+            return timers[idx];
+        }
+
+        /**
+         * @return the timer of the whole pipeline
+         */
+        public Timer total() {
+            return total;
+        }
+
+        private void update(long[] entryTimes, long end) {
+            var last = -1;
+
+            for (var idx = 0; idx < entryTimes.length; idx++) {
+                if (entryTimes[idx] == 0) {
+                    // stage not reached
+                    continue;
+                }
+
+                if (last >= 0) {
+                    timers[last].update(entryTimes[idx] - entryTimes[last], TimeUnit.NANOSECONDS);
+                }
+
+                last = idx;
+            }
+
+            if (last >= 0) {
+                timers[last].update(end - entryTimes[last], TimeUnit.NANOSECONDS);
+                total.update(end - entryTimes[0], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * records the time the exchange enters a stage
+     */
+    private static class Mark extends PipelinedHandler {
+        private final PipelineStages stages;
+        private final int idx;
+
+        Mark(PipelineStages stages, int idx) {
+            this.stages = stages;
+            this.idx = idx;
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            var now = System.nanoTime();
+
+            if (idx == 0) {
+                var entryTimes = new long[stages.size()];
+                entryTimes[0] = now;
+                exchange.putAttachment(STAGES_ENTRY_TIMES_KEY, entryTimes);
+
+                exchange.addExchangeCompleteListener((ex, nextListener) -> {
+                    stages.update(entryTimes, System.nanoTime());
+                    nextListener.proceed();
+                });
+            } else {
+                var entryTimes = exchange.getAttachment(STAGES_ENTRY_TIMES_KEY);
+
+                if (entryTimes != null && entryTimes.length > idx) {
+                    entryTimes[idx] = now;
+                }
+            }
+
+            next(exchange);
+        }
+    }
+}
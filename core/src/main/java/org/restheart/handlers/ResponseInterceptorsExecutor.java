@@ -21,22 +21,21 @@
 package org.restheart.handlers;
 
 import io.undertow.server.HttpServerExchange;
-import java.util.List;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.Exchange;
+import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.Request;
 import org.restheart.exchange.Response;
 import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
-import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.InterceptorsChain;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.plugins.Service;
 import org.restheart.utils.LambdaUtils;
 import org.restheart.utils.PluginUtils;
-import static org.restheart.utils.PluginUtils.requiresContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,7 +50,7 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
 
     private final boolean filterRequiringContent;
 
-    private final PluginsRegistry pluginsRegistry = PluginsRegistryImpl.getInstance();
+    private final PluginsRegistryImpl pluginsRegistry = PluginsRegistryImpl.getInstance();
 
     public ResponseInterceptorsExecutor() {
         this(null, false);
@@ -103,23 +102,31 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
 
         Exchange.setResponseInterceptorsExecuted(exchange);
 
-        List<Interceptor> inteceptors;
+        InterceptorsChain inteceptors;
 
         if (handlingService != null) {
-            inteceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, InterceptPoint.RESPONSE);
+            inteceptors = this.pluginsRegistry.getServiceInterceptorsChain(handlingService, InterceptPoint.RESPONSE);
         } else {
-            inteceptors = this.pluginsRegistry.getProxyInterceptors(InterceptPoint.RESPONSE);
+            inteceptors = this.pluginsRegistry.getProxyInterceptorsChain(InterceptPoint.RESPONSE);
         }
 
-        inteceptors.stream()
-            .filter(ri -> !this.filterRequiringContent || !requiresContent(ri)).filter(ri -> {
-                try {
-                    return ri.resolve(request, response);
-                } catch (Exception e) {
-                    LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), InterceptPoint.RESPONSE, e);
-                    return false;
-                }
-            }).forEachOrdered(ri -> {
+        for (var idx = 0; idx < inteceptors.size(); idx++) {
+            if ((this.filterRequiringContent && inteceptors.requiresContent(idx)) || !inteceptors.applies(idx, request)) {
+                continue;
+            }
+
+            var ri = inteceptors.get(idx);
+
+            boolean resolved;
+
+            try {
+                resolved = ri.resolve(request, response);
+            } catch (Exception e) {
+                LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), InterceptPoint.RESPONSE, e);
+                resolved = false;
+            }
+
+            if (resolved) {
                 LOGGER.debug("Executing interceptor {} for {} on intercept point {}", PluginUtils.name(ri), exchange.getRequestPath(), InterceptPoint.RESPONSE);
 
                 try {
@@ -130,34 +137,48 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
                     Exchange.setInError(exchange);
                     LambdaUtils.throwsSneakyException(ex);
                 }
-            });
+            }
+        }
     }
 
     @SuppressWarnings({"unchecked","rawtypes"})
     private void executeAsyncResponseInterceptor(HttpServerExchange exchange, Service handlingService, Request request, Response response) {
 
-        List<Interceptor> inteceptors;
+        InterceptorsChain inteceptors;
 
         if (handlingService != null) {
-            inteceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, InterceptPoint.RESPONSE_ASYNC);
+            inteceptors = this.pluginsRegistry.getServiceInterceptorsChain(handlingService, InterceptPoint.RESPONSE_ASYNC);
         } else {
-            inteceptors = this.pluginsRegistry.getProxyInterceptors(InterceptPoint.RESPONSE_ASYNC);
+            inteceptors = this.pluginsRegistry.getProxyInterceptorsChain(InterceptPoint.RESPONSE_ASYNC);
         }
 
         Exchange.setResponseInterceptorsExecuted(exchange);
 
-        inteceptors.stream()
-            .filter(ri -> !this.filterRequiringContent || !requiresContent(ri))
-            .filter(ri -> {
-                try {
-                    return ri.resolve(request, response);
-                } catch (Exception e) {
-                    LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), InterceptPoint.RESPONSE_ASYNC);
-
-                    return false;
+        for (var idx = 0; idx < inteceptors.size(); idx++) {
+            if ((this.filterRequiringContent && inteceptors.requiresContent(idx)) || !inteceptors.applies(idx, request)) {
+                continue;
+            }
+
+            Interceptor ri = inteceptors.get(idx);
+
+            boolean resolved;
+
+            try {
+                resolved = ri.resolve(request, response);
+            } catch (Exception e) {
+                LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), InterceptPoint.RESPONSE_ASYNC);
+                resolved = false;
+            }
+
+            if (resolved) {
+                if (inteceptors.requiresContent(idx)
+                        && response instanceof MongoResponse mresponse
+                        && mresponse.isContentStreamed()) {
+                    // the cursor of the streamed content is not thread safe and it is also
+                    // read by ResponseSender: read the content before dispatching the interceptor
+                    mresponse.getContent();
                 }
-            })
-            .forEachOrdered(ri -> {
+
                 exchange.getConnection().getWorker().execute(() -> {
                     LOGGER.debug("Executing interceptor {} for {} on intercept point {}", PluginUtils.name(ri), exchange.getRequestPath(), InterceptPoint.RESPONSE_ASYNC);
 
@@ -170,7 +191,8 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
                         LambdaUtils.throwsSneakyException(ex);
                     }
                 });
-            });
+            }
+        }
     }
 
 }
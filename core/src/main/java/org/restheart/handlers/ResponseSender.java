@@ -22,10 +22,13 @@ package org.restheart.handlers;
 
 import io.undertow.server.HttpServerExchange;
 import java.nio.ByteBuffer;
+import org.restheart.exchange.BsonResponse;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.PipelineInfo;
+import org.restheart.exchange.Request;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.PluginsRegistryImpl;
+import org.restheart.utils.PluginUtils;
 
 /**
  *
@@ -56,18 +59,17 @@ public class ResponseSender extends PipelinedHandler {
     @Override
     @SuppressWarnings({"unchecked","rawtypes"})
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        var registry = PluginsRegistryImpl.getInstance();
-        var path = exchange.getRequestPath();
+        var pi = Request.pipelineInfo(exchange);
 
-        var pi = registry.getPipelineInfo(path);
+        if (pi == null) {
+            pi = PluginsRegistryImpl.getInstance().getPipelineInfo(exchange.getRequestPath());
+        }
 
         if (pi.getType() == PipelineInfo.PIPELINE_TYPE.SERVICE) {
-            var srv = registry.getServices().stream()
-                    .filter(s -> s.getName().equals(pi.getName()))
-                    .findAny();
+            var srv = PluginUtils.handlingServicePluginRecord(PluginsRegistryImpl.getInstance(), exchange);
 
-            if (srv.isPresent()) {
-                var response = (ServiceResponse) srv.get().getInstance().response().apply(exchange);
+            if (srv != null) {
+                var response = (ServiceResponse) srv.getInstance().response().apply(exchange);
 
                 if (response.getStatusCode() > 0) {
                     exchange.setStatusCode(response.getStatusCode());
@@ -77,6 +79,12 @@ public class ResponseSender extends PipelinedHandler {
                 if (response.getCustomerSender() != null) {
                     // use the custom sender if it has been set
                     response.getCustomerSender().run();
+                } else if (response instanceof BsonResponse bresponse) {
+                    // stream the json content to the client
+                    // without building its string representation
+                    try (var os = exchange.getOutputStream()) {
+                        bresponse.writeContent(os);
+                    }
                 } else {
                     var content = response.readContent();
                     if (content != null) {
@@ -30,6 +30,7 @@ import org.restheart.exchange.Exchange;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
+import org.restheart.utils.PluginUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,19 +53,12 @@ public class ServiceExchangeInitializer extends PipelinedHandler {
     @Override
     @SuppressWarnings("unchecked")
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        var registry = PluginsRegistryImpl.getInstance();
-        var path = exchange.getRequestPath();
+        var srv = PluginUtils.handlingServicePluginRecord(PluginsRegistryImpl.getInstance(), exchange);
 
-        var pi = registry.getPipelineInfo(path);
-
-        var srv = registry.getServices().stream()
-                .filter(s -> s.getName().equals(pi.getName()))
-                .findAny();
-
-        if (srv.isPresent()) {
+        if (srv != null) {
             try {
-                srv.get().getInstance().requestInitializer().accept(exchange);
-                srv.get().getInstance().responseInitializer().accept(exchange);
+                srv.getInstance().requestInitializer().accept(exchange);
+                srv.getInstance().responseInitializer().accept(exchange);
             } catch (BadRequestException bre) {
                 LOGGER.debug("Error handling the request: {}", bre.getMessage(), bre);
                 exchange.setStatusCode(bre.getStatusCode());
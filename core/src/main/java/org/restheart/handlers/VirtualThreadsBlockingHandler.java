@@ -0,0 +1,102 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The virtual threads counterpart of io.undertow.server.handlers.BlockingHandler
+ *
+ * It puts the exchange in blocking mode and dispatches it to a new virtual
+ * thread rather than to the XNIO worker thread pool, so that requests waiting
+ * for blocking operations (db calls, password hashing, polyglot code) don't
+ * hold one of the limited worker threads.
+ *
+ * Virtual threads require Java 21 or later: on older runtimes
+ * newVirtualThreadPerTaskExecutor() returns null and the caller should
+ * fall back to io.undertow.server.handlers.BlockingHandler
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class VirtualThreadsBlockingHandler implements HttpHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsBlockingHandler.class);
+
+    /**
+     * the executor the exchange is dispatched to; handlers that suspend the
+     * exchange, e.g. to read the request content without blocking, use it to
+     * resume the exchange on a virtual thread
+     */
+    public static final AttachmentKey<Executor> EXECUTOR_KEY = AttachmentKey.create(Executor.class);
+
+    private final ExecutorService executor;
+    private final HttpHandler next;
+
+    /**
+     * Creates a new instance of VirtualThreadsBlockingHandler
+     *
+     * @param executor the executor service that creates a virtual thread per task
+     * @param next
+     */
+    public VirtualThreadsBlockingHandler(ExecutorService executor, HttpHandler next) {
+        this.executor = executor;
+        this.next = next;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        exchange.startBlocking();
+        exchange.putAttachment(EXECUTOR_KEY, executor);
+
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(executor, next);
+        } else {
+            next.handleRequest(exchange);
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively
+     * since RESTHeart is compiled targeting Java 17
+     *
+     * @return an executor that starts a new virtual thread for each task
+     * or null if the Java runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException nsme) {
+            LOGGER.debug("Virtual threads are not supported by Java runtime {}", Runtime.version());
+            return null;
+        } catch (Throwable t) {
+            // on Java 19 and 20 virtual threads are a preview feature
+            LOGGER.debug("Virtual threads are not available", t);
+            return null;
+        }
+    }
+}
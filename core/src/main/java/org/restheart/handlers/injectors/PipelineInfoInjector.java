@@ -21,6 +21,7 @@
 package org.restheart.handlers.injectors;
 
 import io.undertow.server.HttpServerExchange;
+import org.restheart.exchange.PipelineInfo;
 import org.restheart.exchange.Request;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.plugins.PluginsRegistryImpl;
@@ -34,6 +35,7 @@ import org.restheart.plugins.PluginsRegistryImpl;
  * Request.getPipelineInfo()
  */
 public class PipelineInfoInjector extends PipelinedHandler {
+    private final PipelineInfo pipelineInfo;
 
     /**
      * Creates a new instance of PipelineInfoInjector
@@ -42,6 +44,7 @@ public class PipelineInfoInjector extends PipelinedHandler {
      */
     public PipelineInfoInjector(PipelinedHandler next) {
         super(next);
+        this.pipelineInfo = null;
     }
 
     /**
@@ -49,7 +52,19 @@ public class PipelineInfoInjector extends PipelinedHandler {
      *
      */
     public PipelineInfoInjector() {
-        this(null);
+        this((PipelinedHandler) null);
+    }
+
+    /**
+     * Creates a new instance of PipelineInfoInjector that injects
+     * the given PipelineInfo, avoiding to match the request path
+     * against the paths of all pipelines
+     *
+     * @param pipelineInfo the PipelineInfo of the pipeline this handler belongs to
+     */
+    public PipelineInfoInjector(PipelineInfo pipelineInfo) {
+        super(null);
+        this.pipelineInfo = pipelineInfo;
     }
 
     /**
@@ -59,8 +74,9 @@ public class PipelineInfoInjector extends PipelinedHandler {
      */
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        Request.setPipelineInfo(exchange, PluginsRegistryImpl.getInstance()
-                    .getPipelineInfo(exchange.getRequestPath()));
+        Request.setPipelineInfo(exchange, this.pipelineInfo != null
+                    ? this.pipelineInfo
+                    : PluginsRegistryImpl.getInstance().getPipelineInfo(exchange.getRequestPath()));
 
         next(exchange);
     }
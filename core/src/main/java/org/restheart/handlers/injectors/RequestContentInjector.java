@@ -22,7 +22,6 @@ package org.restheart.handlers.injectors;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.server.handlers.RequestBufferingHandler;
 import io.undertow.util.AttachmentKey;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
@@ -32,18 +31,15 @@ import org.restheart.exchange.Request;
 import org.restheart.exchange.Response;
 import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
+import org.restheart.handlers.NonBlockingRequestBufferingHandler;
 import org.restheart.handlers.PipelinedHandler;
 import static org.restheart.handlers.injectors.RequestContentInjector.Policy.ALWAYS;
 import static org.restheart.handlers.injectors.RequestContentInjector.Policy.ON_REQUIRES_CONTENT_AFTER_AUTH;
 import static org.restheart.handlers.injectors.RequestContentInjector.Policy.ON_REQUIRES_CONTENT_BEFORE_AUTH;
 import org.restheart.plugins.InterceptPoint;
-import org.restheart.plugins.Interceptor;
-import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.InterceptorsChain;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.PluginUtils;
-import static org.restheart.utils.PluginUtils.requiresContent;
-
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +52,9 @@ import org.slf4j.LoggerFactory;
  * proxied resources. To mitigate DoS attacks the injector limits the size of
  * the content to MAX_CONTENT_SIZE bytes
  *
+ * The content is read without blocking the worker thread, see
+ * NonBlockingRequestBufferingHandler
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class RequestContentInjector extends PipelinedHandler {
@@ -67,7 +66,7 @@ public class RequestContentInjector extends PipelinedHandler {
 
     private HttpHandler bufferingHandler = null;
 
-    private final PluginsRegistry pluginsRegistry = PluginsRegistryImpl.getInstance();
+    private final PluginsRegistryImpl pluginsRegistry = PluginsRegistryImpl.getInstance();
 
     /**
      * @param next
@@ -75,7 +74,7 @@ public class RequestContentInjector extends PipelinedHandler {
      */
     public RequestContentInjector(PipelinedHandler next, Policy policy) {
         super(next);
-        this.bufferingHandler = new RequestBufferingHandler(next, MAX_BUFFERS);
+        this.bufferingHandler = new NonBlockingRequestBufferingHandler(next, MAX_BUFFERS);
         this.policy = policy;
     }
 
@@ -91,7 +90,7 @@ public class RequestContentInjector extends PipelinedHandler {
     @Override
     protected void setNext(PipelinedHandler next) {
         super.setNext(next);
-        this.bufferingHandler = new RequestBufferingHandler(next, MAX_BUFFERS);
+        this.bufferingHandler = new NonBlockingRequestBufferingHandler(next, MAX_BUFFERS);
     }
 
     /**
@@ -136,28 +135,37 @@ public class RequestContentInjector extends PipelinedHandler {
 
         var handlingService = PluginUtils.handlingService(pluginsRegistry, exchange);
 
-        List<Interceptor> interceptors;
+        InterceptorsChain interceptors;
 
         if (handlingService != null) {
             request = ServiceRequest.of(exchange, ServiceRequest.class);
             response = ServiceResponse.of(exchange, ServiceResponse.class);
-            interceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, interceptPoint);
+            interceptors = this.pluginsRegistry.getServiceInterceptorsChain(handlingService, interceptPoint);
 
         } else {
             request = ByteArrayProxyRequest.of(exchange);
             response = ByteArrayProxyResponse.of(exchange);
-            interceptors = this.pluginsRegistry.getProxyInterceptors(interceptPoint);
+            interceptors = this.pluginsRegistry.getProxyInterceptorsChain(interceptPoint);
         }
 
-        return interceptors.stream().filter(ri -> {
-                try {
-                    return ri.resolve(request, response);
-                } catch (Exception e) {
-                    LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), interceptPoint, e);
-                    return false;
+        for (var idx = 0; idx < interceptors.size(); idx++) {
+            // requiresContent is static, check it before resolving the interceptor
+            if (!interceptors.requiresContent(idx) || !interceptors.applies(idx, request)) {
+                continue;
+            }
+
+            var ri = interceptors.get(idx);
+
+            try {
+                if (ri.resolve(request, response)) {
+                    return true;
                 }
-            })
-            .anyMatch(ri -> requiresContent(ri));
+            } catch (Exception e) {
+                LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}", ri.getClass().getSimpleName(), exchange.getRequestPath(), interceptPoint, e);
+            }
+        }
+
+        return false;
     }
 
     private void markInjected(HttpServerExchange exchange) {
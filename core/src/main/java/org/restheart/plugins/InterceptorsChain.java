@@ -0,0 +1,148 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.plugins;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.restheart.exchange.Request;
+import org.restheart.utils.PluginUtils;
+
+/**
+ * An immutable, array backed chain of the Interceptors that apply to a given
+ * Service (or to proxied requests) at a given InterceptPoint
+ *
+ * The chain is compiled once by PluginsRegistryImpl and rebuilt only when
+ * plugins change. It keeps the static applicability of each Interceptor (as
+ * declared by the RegisterPlugin annotation) so that executors can skip an
+ * Interceptor without invoking resolve()
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@SuppressWarnings("rawtypes")
+public final class InterceptorsChain {
+    static final InterceptorsChain EMPTY = new InterceptorsChain(new Interceptor[0]);
+
+    private final Interceptor[] interceptors;
+    private final List<Interceptor> asList;
+
+    // bit mask of the ordinals of the METHODs, 0 means any method
+    private final int[] methods;
+
+    // path prefixes, null means any path
+    private final String[][] paths;
+
+    private final boolean[] requiresContent;
+
+    InterceptorsChain(Interceptor[] interceptors) {
+        this.interceptors = interceptors;
+        this.asList = Collections.unmodifiableList(Arrays.asList(interceptors));
+        this.methods = new int[interceptors.length];
+        this.paths = new String[interceptors.length][];
+        this.requiresContent = new boolean[interceptors.length];
+
+        for (var i = 0; i < interceptors.length; i++) {
+            for (var m : PluginUtils.interceptMethods(interceptors[i])) {
+                this.methods[i] |= 1 << m.ordinal();
+            }
+
+            var _paths = PluginUtils.interceptPaths(interceptors[i]);
+            this.paths[i] = _paths.length == 0 ? null : _paths;
+
+            this.requiresContent[i] = PluginUtils.requiresContent(interceptors[i]);
+        }
+    }
+
+    /**
+     *
+     * @return the number of interceptors in the chain
+     */
+    public int size() {
+        return interceptors.length;
+    }
+
+    /**
+     *
+     * @param idx
+     * @return the interceptor at position idx
+     */
+    public Interceptor get(int idx) {
+        return interceptors[idx];
+    }
+
+    /**
+     *
+     * @param idx
+     * @return true if the interceptor at position idx requires content
+     */
+    public boolean requiresContent(int idx) {
+        return requiresContent[idx];
+    }
+
+    /**
+     * checks the static applicability of the interceptor at position idx, as
+     * declared by RegisterPlugin.interceptMethods() and
+     * RegisterPlugin.interceptPaths(). When it returns false there is no need
+     * to invoke resolve()
+     *
+     * @param idx
+     * @param request
+     * @return true if the interceptor at position idx can apply to the request
+     */
+    public boolean applies(int idx, Request<?> request) {
+        if (methods[idx] != 0 && (methods[idx] & (1 << request.getMethod().ordinal())) == 0) {
+            return false;
+        }
+
+        if (paths[idx] == null) {
+            return true;
+        }
+
+        var path = request.getPath();
+
+        for (var prefix : paths[idx]) {
+            if (matches(path, prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matches(String path, String prefix) {
+        if (!path.startsWith(prefix)) {
+            return false;
+        }
+
+        return path.length() == prefix.length()
+            || prefix.endsWith("/")
+            || path.charAt(prefix.length()) == '/';
+    }
+
+    /**
+     *
+     * @return an unmodifiable List view of the chain
+     */
+    public List<Interceptor> asList() {
+        return asList;
+    }
+}
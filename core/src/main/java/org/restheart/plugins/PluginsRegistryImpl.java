@@ -22,13 +22,14 @@ package org.restheart.plugins;
 
 import static io.undertow.Handlers.path;
 
-import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import java.util.Objects;
@@ -36,14 +37,15 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.mongodb.MongoClient;
 
+import org.restheart.Bootstrapper;
 import org.restheart.ConfigurationException;
-import org.restheart.cache.CacheFactory;
-import org.restheart.cache.LoadingCache;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.PipelineInfo;
 import org.restheart.handlers.CORSHandler;
+import org.restheart.handlers.ConcurrencyLimiter;
 import org.restheart.handlers.ConfigurableEncodingHandler;
+import org.restheart.handlers.PipelineStagesTimer;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.PipelinedWrappingHandler;
 import org.restheart.handlers.QueryStringRebuilder;
@@ -54,6 +56,7 @@ import org.restheart.handlers.ResponseSender;
 import org.restheart.handlers.ServiceExchangeInitializer;
 import org.restheart.handlers.TracingInstrumentationHandler;
 import org.restheart.handlers.injectors.PipelineInfoInjector;
+import org.restheart.handlers.injectors.RequestContentInjector;
 import org.restheart.handlers.injectors.XPoweredByInjector;
 import org.restheart.plugins.RegisterPlugin.MATCH_POLICY;
 import org.restheart.plugins.security.AuthMechanism;
@@ -249,7 +252,7 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @Override
     @SuppressWarnings("rawtypes")
     public void addInterceptor(PluginRecord<Interceptor> i) {
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+        invalidateInterceptorsChains();
 
         if (this.interceptors == null) {
             // avoid NPE if not already initialized
@@ -262,20 +265,46 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @Override
     @SuppressWarnings("rawtypes")
     public boolean removeInterceptorIf(java.util.function.Predicate<? super PluginRecord<Interceptor>> filter) {
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+        invalidateInterceptorsChains();
         return this.interceptors.removeIf(filter);
     }
 
+    // the compiled interceptors chains of services, indexed by InterceptPoint.ordinal()
     @SuppressWarnings("rawtypes")
-    private LoadingCache<AbstractMap.SimpleEntry<Service, InterceptPoint>, List<Interceptor>> SRV_INTERCEPTORS_CACHE = CacheFactory
-        .createHashMapLoadingCache((key) -> __interceptors(key.getKey(), key.getValue()));
+    private final Map<Service, InterceptorsChain[]> SRV_INTERCEPTORS_CHAINS = new ConcurrentHashMap<>();
+
+    // the compiled interceptors chains of proxies, indexed by InterceptPoint.ordinal()
+    private volatile InterceptorsChain[] PROXY_INTERCEPTORS_CHAINS = null;
+
+    /**
+     * discards the compiled interceptors chains, they get rebuilt on next request.
+     * To be invoked when plugins change
+     */
+    private void invalidateInterceptorsChains() {
+        this.SRV_INTERCEPTORS_CHAINS.clear();
+        this.PROXY_INTERCEPTORS_CHAINS = null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private InterceptorsChain[] compileInterceptorsChains(Service service) {
+        var ips = InterceptPoint.values();
+        var ret = new InterceptorsChain[ips.length];
+
+        for (var ip: ips) {
+            var interceptors = __interceptors(service, ip);
+            ret[ip.ordinal()] = interceptors.isEmpty()
+                ? InterceptorsChain.EMPTY
+                : new InterceptorsChain(interceptors.toArray(new Interceptor[interceptors.size()]));
+        }
+
+        return ret;
+    }
 
     @SuppressWarnings("rawtypes")
     private List<Interceptor> __interceptors(Service service, InterceptPoint interceptPoint) {
         if (service != null) {
             // if the request is handled by a service set to not execute interceptors
             // at this interceptPoint, skip interceptors execution
-            // var vip = PluginUtils.dontIntercept(PluginsRegistryImpl.getInstance(), exchange);
             var vip = PluginUtils.dontIntercept(service);
             if (Arrays.stream(vip).anyMatch(interceptPoint::equals)) {
                 return Lists.newArrayList();
@@ -303,20 +332,53 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     }
 
     /**
-     * @return the interceptors of the service srv
+     * @return the compiled chain of the interceptors of the service srv
      * @param srv
      * @param interceptPoint
      *
      */
-    @Override
     @SuppressWarnings("rawtypes")
-    public List<Interceptor> getServiceInterceptors(Service<?,?> srv, InterceptPoint interceptPoint) {
+    public InterceptorsChain getServiceInterceptorsChain(Service<?,?> srv, InterceptPoint interceptPoint) {
         Objects.requireNonNull(srv);
         Objects.requireNonNull(interceptPoint);
 
-        var _ret =  SRV_INTERCEPTORS_CACHE.getLoading(new AbstractMap.SimpleEntry<Service, InterceptPoint>(srv, interceptPoint));
+        var chains = SRV_INTERCEPTORS_CHAINS.get(srv);
+
+        if (chains == null) {
+            chains = SRV_INTERCEPTORS_CHAINS.computeIfAbsent(srv, this::compileInterceptorsChains);
+        }
 
-        return _ret.isPresent() ? _ret.get() : Lists.newArrayList();
+        return chains[interceptPoint.ordinal()];
+    }
+
+    /**
+     * @return the compiled chain of the interceptors of the proxy
+     * @param interceptPoint
+     *
+     */
+    public InterceptorsChain getProxyInterceptorsChain(InterceptPoint interceptPoint) {
+        Objects.requireNonNull(interceptPoint);
+
+        var chains = PROXY_INTERCEPTORS_CHAINS;
+
+        if (chains == null) {
+            chains = compileInterceptorsChains(null);
+            PROXY_INTERCEPTORS_CHAINS = chains;
+        }
+
+        return chains[interceptPoint.ordinal()];
+    }
+
+    /**
+     * @return the interceptors of the service srv
+     * @param srv
+     * @param interceptPoint
+     *
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List<Interceptor> getServiceInterceptors(Service<?,?> srv, InterceptPoint interceptPoint) {
+        return getServiceInterceptorsChain(srv, interceptPoint).asList();
     }
 
     /**
@@ -327,9 +389,7 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @Override
     @SuppressWarnings("rawtypes")
     public List<Interceptor> getProxyInterceptors(InterceptPoint interceptPoint) {
-        var _ret =  SRV_INTERCEPTORS_CACHE.getLoading(new AbstractMap.SimpleEntry<Service, InterceptPoint>(null, interceptPoint));
-
-        return _ret.isPresent() ? _ret.get() : Lists.newArrayList();
+        return getProxyInterceptorsChain(interceptPoint).asList();
     }
 
     /**
@@ -424,15 +484,25 @@ public class PluginsRegistryImpl implements PluginsRegistry {
                         tokenManager);
             }
 
-            var _srv = pipe(new PipelineInfoInjector(),
+            // bind the service to the PipelineInfo, so that handlers
+            // can resolve it without looking it up in the services set
+            var pi = new PipelineInfo(SERVICE, uri, mp, srv.getName(), srv);
+
+            var _srv = pipe(PipelineStagesTimer.instrument(pi,
+                    new PipelineInfoInjector(pi),
+                    ConcurrencyLimiter.fromConfiguration(Bootstrapper.getConfiguration(), uri),
                     new TracingInstrumentationHandler(),
                     new RequestLogger(),
+                    // read the content before the authentication only for
+                    // the services that declare it, null stages are skipped
+                    PluginUtils.requiresContentBeforeAuth(srv.getInstance()) ? new RequestContentInjector(RequestContentInjector.Policy.ALWAYS) : null,
                     new ServiceExchangeInitializer(),
                     new CORSHandler(),
                     new XPoweredByInjector(),
                     new RequestInterceptorsExecutor(REQUEST_BEFORE_AUTH),
                     new QueryStringRebuilder(),
                     securityHandler,
+                    new RequestContentInjector(RequestContentInjector.Policy.ALWAYS),
                     new RequestInterceptorsExecutor(REQUEST_AFTER_AUTH),
                     new QueryStringRebuilder(),
                     PipelinedWrappingHandler
@@ -441,14 +511,14 @@ public class PluginsRegistryImpl implements PluginsRegistry {
                                         srv.getInstance()))),
                     new ResponseInterceptorsExecutor(),
                     new ResponseSender()
-            );
+            ));
 
-            plugPipeline(uri, _srv, new PipelineInfo(SERVICE, uri, mp, srv.getName()));
+            plugPipeline(uri, _srv, pi);
 
             this.services.add(srv);
 
             // service list changed, invalidate cache
-            this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+            invalidateInterceptorsChains();
     }
 
     /**
@@ -471,6 +541,6 @@ public class PluginsRegistryImpl implements PluginsRegistry {
         }
 
         // service list changed, invalidate cache
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+        invalidateInterceptorsChains();
     }
 }
@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.services;
+
+import com.codahale.metrics.Timer;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.restheart.exchange.JsonRequest;
+import org.restheart.exchange.JsonResponse;
+import org.restheart.handlers.ConcurrencyLimiter;
+import org.restheart.handlers.PipelineStagesTimer;
+import org.restheart.plugins.JsonService;
+import org.restheart.plugins.RegisterPlugin;
+import org.restheart.utils.HttpStatus;
+
+/**
+ * Returns the latency breakdown of the pipelines by stage, as measured by
+ * PipelineStagesTimer, and the state of their ConcurrencyLimiter, if enabled.
+ * Durations are in milliseconds.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@RegisterPlugin(name = "pipelinesMetrics",
+    description = "returns the latency of the pipelines by stage",
+    secure = true,
+    enabledByDefault = true,
+    defaultURI = "/pipelines-metrics")
+public class PipelinesMetricsService implements JsonService {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    @Override
+    public void handle(JsonRequest request, JsonResponse response) throws Exception {
+        if (request.isOptions()) {
+            handleOptions(request);
+        } else if (request.isGet()) {
+            var content = new JsonObject();
+
+            PipelineStagesTimer.pipelines().forEach((uri, stages) -> {
+                var pi = stages.getPipelineInfo();
+                var pipeline = new JsonObject();
+                pipeline.addProperty("type", pi.getType().name());
+                pipeline.addProperty("name", pi.getName());
+                pipeline.add("total", toJson(null, stages.total()));
+
+                var _stages = new JsonArray();
+
+                for (var idx = 0; idx < stages.size(); idx++) {
+                    _stages.add(toJson(stages.name(idx), stages.timer(idx)));
+                }
+
+                pipeline.add("stages", _stages);
+
+                var limiter = ConcurrencyLimiter.limiters().get(uri);
+
+                if (limiter != null) {
+                    var concurrency = new JsonObject();
+                    concurrency.addProperty("limit", limiter.getLimit());
+                    concurrency.addProperty("inflight", limiter.getInflight());
+                    concurrency.addProperty("rejected", limiter.getRejected());
+                    pipeline.add("concurrency", concurrency);
+                }
+
+                content.add(uri, pipeline);
+            });
+
+            response.setContent(content);
+            response.setStatusCode(HttpStatus.SC_OK);
+        } else {
+            response.setStatusCode(HttpStatus.SC_METHOD_NOT_ALLOWED);
+        }
+    }
+
+    private static JsonObject toJson(String stage, Timer timer) {
+        var snapshot = timer.getSnapshot();
+        var ret = new JsonObject();
+
+        if (stage != null) {
+            ret.addProperty("stage", stage);
+        }
+
+        ret.addProperty("count", timer.getCount());
+        ret.addProperty("mean", snapshot.getMean() / NANOS_PER_MILLI);
+        ret.addProperty("min", snapshot.getMin() / NANOS_PER_MILLI);
+        ret.addProperty("p50", snapshot.getMedian() / NANOS_PER_MILLI);
+        ret.addProperty("p75", snapshot.get75thPercentile() / NANOS_PER_MILLI);
+        ret.addProperty("p95", snapshot.get95thPercentile() / NANOS_PER_MILLI);
+        ret.addProperty("p99", snapshot.get99thPercentile() / NANOS_PER_MILLI);
+        ret.addProperty("max", snapshot.getMax() / NANOS_PER_MILLI);
+
+        return ret;
+    }
+}
@@ -27,8 +27,10 @@ import io.undertow.util.HttpString;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -47,14 +49,32 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final List<ExchangeCompletionListener> exchangeCompleteListeners = new ArrayList<>();
+    private boolean responseComplete = false;
+    private final HeaderMap responseHeaders = new HeaderMap();
 
     public HttpServerExchange() {
     }
 
+    /**
+     * invokes the exchange complete listeners, the last added first
+     *
+     * @return
+     */
     public HttpServerExchange endExchange() {
+        for (var idx = exchangeCompleteListeners.size() - 1; idx >= 0; idx--) {
+            exchangeCompleteListeners.get(idx).exchangeEvent(this, () -> {});
+        }
+
+        exchangeCompleteListeners.clear();
+        responseComplete = true;
         return this;
     }
 
+    public boolean isResponseComplete() {
+        return responseComplete;
+    }
+
     /**
      * Returns a mutable map of query parameters.
      *
@@ -79,7 +99,9 @@ public class HttpServerExchange extends AbstractAttachable {
         return this;
     }
 
-    void addExchangeCompleteListener(ExchangeCompletionListener listener) {
+    public HttpServerExchange addExchangeCompleteListener(final ExchangeCompletionListener listener) {
+        exchangeCompleteListeners.add(listener);
+        return this;
     }
 
     /**
@@ -154,6 +176,10 @@ public class HttpServerExchange extends AbstractAttachable {
         return null;
     }
 
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
     public SecurityContext getSecurityContext() {
         return null;
     }
@@ -0,0 +1,175 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.restheart.handlers.PipelinedHandler.pipe;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ConcurrencyLimiterTest {
+
+    /**
+     * counts the requests that pass the limiter; as the exchanges are not
+     * ended, the requests stay in flight until the test ends them
+     */
+    private static class Counter extends PipelinedHandler {
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * sends as many requests as the current limit, i.e. with the pipeline
+     * loaded, and ends them after latency milliseconds
+     */
+    private static void round(PipelinedHandler pipeline, ConcurrencyLimiter limiter, long latency) throws Exception {
+        var exchanges = new ArrayList<HttpServerExchange>();
+
+        for (var n = 0; n < limiter.getLimit(); n++) {
+            var exchange = new HttpServerExchange();
+            pipeline.handleRequest(exchange);
+            exchanges.add(exchange);
+        }
+
+        Thread.sleep(latency);
+
+        exchanges.forEach(HttpServerExchange::endExchange);
+    }
+
+    @Test
+    public void testRequestsOverLimitAreRejected() throws Exception {
+        var limiter = new ConcurrencyLimiter(2, 1, 10, 3);
+        var counter = new Counter();
+        var pipeline = pipe(limiter, counter);
+
+        var first = new HttpServerExchange();
+        var second = new HttpServerExchange();
+
+        pipeline.handleRequest(first);
+        pipeline.handleRequest(second);
+
+        assertEquals(2, counter.count.get());
+        assertEquals(2, limiter.getInflight());
+
+        var rejected = new HttpServerExchange();
+        pipeline.handleRequest(rejected);
+
+        assertEquals(2, counter.count.get());
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals("3", rejected.getResponseHeaders().getFirst(Headers.RETRY_AFTER));
+        assertTrue(rejected.isResponseComplete());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(2, limiter.getInflight());
+
+        // a completed request frees its place
+        first.endExchange();
+        assertEquals(1, limiter.getInflight());
+
+        var third = new HttpServerExchange();
+        pipeline.handleRequest(third);
+
+        assertEquals(3, counter.count.get());
+        assertEquals(0, third.getStatusCode());
+        assertEquals(1, limiter.getRejected());
+
+        second.endExchange();
+        third.endExchange();
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testLimitIsNotUpdatedWhenNotLoaded() throws Exception {
+        var limiter = new ConcurrencyLimiter(10, 1, 100, 1);
+        var pipeline = pipe(limiter, new Counter());
+
+        for (var n = 0; n < 5; n++) {
+            var exchange = new HttpServerExchange();
+            pipeline.handleRequest(exchange);
+            Thread.sleep(n * 5);
+            exchange.endExchange();
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitGrowsAndShrinksWithLatency() throws Exception {
+        var limiter = new ConcurrencyLimiter(10, 4, 30, 1);
+        var pipeline = pipe(limiter, new Counter());
+
+        // steady latency, the limit grows
+        var limit = limiter.getLimit();
+
+        for (var n = 0; n < 3; n++) {
+            round(pipeline, limiter, 10);
+            assertTrue("limit must grow with steady latency", limiter.getLimit() >= limit);
+            limit = limiter.getLimit();
+        }
+
+        assertTrue(limiter.getLimit() > 10);
+
+        var peak = limiter.getLimit();
+
+        // requests queue up and the latency increases, the limit shrinks
+        for (var n = 0; n < 2; n++) {
+            round(pipeline, limiter, 60);
+            assertTrue("limit must shrink when latency increases", limiter.getLimit() <= limit);
+            limit = limiter.getLimit();
+        }
+
+        assertTrue(limiter.getLimit() < peak);
+        assertEquals(0, limiter.getRejected());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testLimitIsBounded() throws Exception {
+        var limiter = new ConcurrencyLimiter(10, 4, 12, 1);
+        var pipeline = pipe(limiter, new Counter());
+
+        for (var n = 0; n < 6; n++) {
+            round(pipeline, limiter, 5);
+        }
+
+        assertEquals(12, limiter.getLimit());
+
+        // the initial limit is bounded as well
+        assertEquals(4, new ConcurrencyLimiter(1, 4, 12, 1).getLimit());
+        assertEquals(12, new ConcurrencyLimiter(100, 4, 12, 1).getLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLimits() {
+        new ConcurrencyLimiter(10, 20, 12, 1);
+    }
+}
@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.restheart.exchange.PipelineInfo;
+import static org.restheart.exchange.PipelineInfo.PIPELINE_TYPE.SERVICE;
+import static org.restheart.handlers.PipelinedHandler.pipe;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class PipelineStagesTimerTest {
+
+    private static class Stage extends PipelinedHandler {
+        private final long sleep;
+        private final boolean last;
+
+        Stage(long sleep, boolean last) {
+            this.sleep = sleep;
+            this.last = last;
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            }
+
+            if (!last) {
+                next(exchange);
+            }
+        }
+    }
+
+    @Test
+    public void testStagesAreTimed() throws Exception {
+        var pi = new PipelineInfo(SERVICE, "/test-stages-timed", "test");
+
+        var pipeline = pipe(PipelineStagesTimer.instrument(pi,
+                new Stage(0, false),
+                null, // disabled stage
+                new Stage(20, false),
+                PipelinedWrappingHandler.wrap(exchange -> Thread.sleep(10))));
+
+        var stages = PipelineStagesTimer.pipelines().get("/test-stages-timed");
+
+        assertNotNull(stages);
+        assertSame(pi, stages.getPipelineInfo());
+        assertEquals(3, stages.size());
+        assertEquals("Stage", stages.name(0));
+        assertEquals("Stage-2", stages.name(1));
+        assertEquals("service", stages.name(2));
+
+        var exchange = new HttpServerExchange();
+
+        pipeline.handleRequest(exchange);
+
+        // the timers are updated when the exchange completes
+        assertEquals(0, stages.total().getCount());
+
+        exchange.endExchange();
+
+        for (var idx = 0; idx < stages.size(); idx++) {
+            assertEquals(1, stages.timer(idx).getCount());
+        }
+
+        assertEquals(1, stages.total().getCount());
+        assertTrue(stages.timer(1).getSnapshot().getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(stages.timer(2).getSnapshot().getMax() >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(stages.total().getSnapshot().getMax() >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    public void testStagesNotReachedAreNotTimed() throws Exception {
+        var pi = new PipelineInfo(SERVICE, "/test-stages-not-reached", "test");
+
+        var pipeline = pipe(PipelineStagesTimer.instrument(pi,
+                new Stage(0, false),
+                // ends the pipeline, e.g. a request not authenticated
+                new Stage(10, true),
+                new Stage(0, false)));
+
+        var exchange = new HttpServerExchange();
+
+        pipeline.handleRequest(exchange);
+        exchange.endExchange();
+
+        var stages = PipelineStagesTimer.pipelines().get("/test-stages-not-reached");
+
+        assertEquals(1, stages.timer(0).getCount());
+        assertEquals(1, stages.timer(1).getCount());
+        assertEquals(0, stages.timer(2).getCount());
+        // the last stage reached is timed until the exchange completes
+        assertTrue(stages.timer(1).getSnapshot().getMax() >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(1, stages.total().getCount());
+    }
+}
@@ -0,0 +1,204 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.plugins;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.util.LinkedHashSet;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.restheart.exchange.ExchangeKeys.METHOD;
+import org.restheart.exchange.JsonRequest;
+import org.restheart.exchange.JsonResponse;
+import org.restheart.exchange.PipelineInfo;
+import static org.restheart.exchange.PipelineInfo.PIPELINE_TYPE.SERVICE;
+import org.restheart.exchange.Request;
+import org.restheart.handlers.RequestInterceptorsExecutor;
+import static org.restheart.plugins.InterceptPoint.REQUEST_BEFORE_AUTH;
+import org.restheart.plugins.RegisterPlugin.MATCH_POLICY;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class InterceptorsChainTest {
+
+    @RegisterPlugin(name = "testService", description = "")
+    public static class TestService implements JsonService {
+        @Override
+        public void handle(JsonRequest request, JsonResponse response) throws Exception {
+        }
+    }
+
+    private static abstract class CountingInterceptor implements JsonInterceptor {
+        int resolved = 0;
+        int handled = 0;
+
+        @Override
+        public boolean resolve(JsonRequest request, JsonResponse response) {
+            resolved++;
+            return true;
+        }
+
+        @Override
+        public void handle(JsonRequest request, JsonResponse response) throws Exception {
+            handled++;
+        }
+    }
+
+    @RegisterPlugin(name = "postInterceptor", description = "",
+        interceptPoint = REQUEST_BEFORE_AUTH,
+        interceptMethods = { METHOD.POST })
+    private static class PostInterceptor extends CountingInterceptor {
+    }
+
+    @RegisterPlugin(name = "collInterceptor", description = "",
+        interceptPoint = REQUEST_BEFORE_AUTH,
+        interceptPaths = { "/coll" })
+    private static class CollInterceptor extends CountingInterceptor {
+    }
+
+    @RegisterPlugin(name = "anyInterceptor", description = "",
+        interceptPoint = REQUEST_BEFORE_AUTH)
+    private static class AnyInterceptor extends CountingInterceptor {
+    }
+
+    private PluginsRegistryImpl registry;
+    private TestService service;
+    private PostInterceptor postInterceptor;
+    private CollInterceptor collInterceptor;
+    private AnyInterceptor anyInterceptor;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PluginRecord<Interceptor> record(Interceptor interceptor) {
+        return new PluginRecord(interceptor.getClass().getSimpleName(), "", false, true, interceptor.getClass().getName(), interceptor, null);
+    }
+
+    /**
+     * sets the interceptors of the registry, without scanning the classpath
+     * for plugins, that requires the RESTHeart configuration
+     */
+    private void setInterceptors(LinkedHashSet<PluginRecord<Interceptor>> interceptors) throws Exception {
+        var field = PluginsRegistryImpl.class.getDeclaredField("interceptors");
+        field.setAccessible(true);
+        field.set(registry, interceptors);
+    }
+
+    @Before
+    @SuppressWarnings("rawtypes")
+    public void setup() throws Exception {
+        this.registry = PluginsRegistryImpl.getInstance();
+        this.service = new TestService();
+        this.postInterceptor = new PostInterceptor();
+        this.collInterceptor = new CollInterceptor();
+        this.anyInterceptor = new AnyInterceptor();
+
+        setInterceptors(new LinkedHashSet<>());
+
+        // invalidates the chains
+        registry.removeInterceptorIf(i -> true);
+
+        registry.addInterceptor(record(postInterceptor));
+        registry.addInterceptor(record(collInterceptor));
+        registry.addInterceptor(record(anyInterceptor));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.removeInterceptorIf(i -> true);
+        setInterceptors(null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void execute(String method, String path) throws Exception {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestMethod(HttpString.tryFromString(method));
+        exchange.setRequestPath(path);
+
+        var srv = new PluginRecord<Service>("testService", "", false, true, TestService.class.getName(), (Service) service, null);
+        Request.setPipelineInfo(exchange, new PipelineInfo(SERVICE, "/", MATCH_POLICY.PREFIX, "testService", srv));
+        JsonRequest.init(exchange);
+        JsonResponse.init(exchange);
+
+        new RequestInterceptorsExecutor(REQUEST_BEFORE_AUTH).handleRequest(exchange);
+    }
+
+    @Test
+    public void testNonMatchingMethodsAreSkipped() throws Exception {
+        execute("GET", "/coll");
+
+        assertEquals(0, postInterceptor.resolved);
+        assertEquals(0, postInterceptor.handled);
+        assertEquals(1, collInterceptor.resolved);
+        assertEquals(1, anyInterceptor.resolved);
+    }
+
+    @Test
+    public void testNonMatchingPathsAreSkipped() throws Exception {
+        execute("POST", "/other");
+        // a prefix matches whole path segments only
+        execute("POST", "/collection");
+
+        assertEquals(0, collInterceptor.resolved);
+        assertEquals(0, collInterceptor.handled);
+        assertEquals(2, postInterceptor.resolved);
+        assertEquals(2, anyInterceptor.resolved);
+    }
+
+    @Test
+    public void testMatchingRequestsAreResolved() throws Exception {
+        execute("POST", "/coll");
+        execute("POST", "/coll/doc");
+
+        for (var interceptor : new CountingInterceptor[] { postInterceptor, collInterceptor, anyInterceptor }) {
+            assertEquals(2, interceptor.resolved);
+            assertEquals(2, interceptor.handled);
+        }
+    }
+
+    @Test
+    public void testChainsAreRebuiltWhenPluginsChange() throws Exception {
+        var chain = registry.getServiceInterceptorsChain(service, REQUEST_BEFORE_AUTH);
+
+        assertEquals(3, chain.size());
+        // the chain is compiled once
+        assertSame(chain, registry.getServiceInterceptorsChain(service, REQUEST_BEFORE_AUTH));
+        assertEquals(0, registry.getServiceInterceptorsChain(service, InterceptPoint.REQUEST_AFTER_AUTH).size());
+
+        var added = new AnyInterceptor();
+        registry.addInterceptor(record(added));
+
+        chain = registry.getServiceInterceptorsChain(service, REQUEST_BEFORE_AUTH);
+        assertEquals(4, chain.size());
+        assertSame(added, chain.get(3));
+
+        execute("GET", "/other");
+        assertEquals(1, added.resolved);
+
+        registry.removeInterceptorIf(i -> i.getInstance() == postInterceptor);
+
+        chain = registry.getServiceInterceptorsChain(service, REQUEST_BEFORE_AUTH);
+        assertEquals(3, chain.size());
+        assertFalse(chain.asList().contains(postInterceptor));
+    }
+}
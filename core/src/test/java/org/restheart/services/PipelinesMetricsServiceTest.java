@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.services;
+
+import com.google.gson.JsonObject;
+import io.undertow.server.HttpServerExchange;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+import org.restheart.exchange.JsonRequest;
+import org.restheart.exchange.JsonResponse;
+import org.restheart.exchange.PipelineInfo;
+import static org.restheart.exchange.PipelineInfo.PIPELINE_TYPE.PROXY;
+import org.restheart.handlers.PipelineStagesTimer;
+import org.restheart.handlers.PipelinedHandler;
+import static org.restheart.handlers.PipelinedHandler.pipe;
+import org.restheart.handlers.PipelinedWrappingHandler;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class PipelinesMetricsServiceTest {
+
+    private static class Stage extends PipelinedHandler {
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            next(exchange);
+        }
+    }
+
+    @Test
+    public void testMetricsOfPipelines() throws Exception {
+        var pi = new PipelineInfo(PROXY, "/test-pipelines-metrics", "test-proxy");
+
+        var pipeline = pipe(PipelineStagesTimer.instrument(pi,
+                new Stage(),
+                PipelinedWrappingHandler.wrap(exchange -> Thread.sleep(5))));
+
+        for (var n = 0; n < 2; n++) {
+            var exchange = new HttpServerExchange();
+            pipeline.handleRequest(exchange);
+            exchange.endExchange();
+        }
+
+        var request = mock(JsonRequest.class);
+        var response = mock(JsonResponse.class);
+        when(request.isGet()).thenReturn(true);
+
+        new PipelinesMetricsService().handle(request, response);
+
+        var content = ArgumentCaptor.forClass(JsonObject.class);
+        verify(response).setContent(content.capture());
+        verify(response).setStatusCode(HttpStatus.SC_OK);
+
+        var metrics = content.getValue().getAsJsonObject("/test-pipelines-metrics");
+
+        assertNotNull(metrics);
+        assertEquals("PROXY", metrics.get("type").getAsString());
+        assertEquals("test-proxy", metrics.get("name").getAsString());
+        // no ConcurrencyLimiter in the pipeline
+        assertFalse(metrics.has("concurrency"));
+
+        var total = metrics.getAsJsonObject("total");
+        assertFalse(total.has("stage"));
+        assertEquals(2, total.get("count").getAsLong());
+        // durations are in milliseconds
+        assertTrue(total.get("min").getAsDouble() >= 5);
+        assertTrue(total.get("max").getAsDouble() < 60_000);
+
+        var stages = metrics.getAsJsonArray("stages");
+        assertEquals(2, stages.size());
+
+        var stage = stages.get(0).getAsJsonObject();
+        assertEquals("Stage", stage.get("stage").getAsString());
+        assertEquals(2, stage.get("count").getAsLong());
+
+        var proxy = stages.get(1).getAsJsonObject();
+        assertEquals("proxy", proxy.get("stage").getAsString());
+        assertEquals(2, proxy.get("count").getAsLong());
+
+        for (var field : new String[] { "mean", "min", "p50", "p75", "p95", "p99", "max" }) {
+            assertTrue(field, proxy.has(field));
+        }
+
+        assertTrue(proxy.get("p50").getAsDouble() >= 5);
+    }
+
+    @Test
+    public void testMethodNotAllowed() throws Exception {
+        var request = mock(JsonRequest.class);
+        var response = mock(JsonResponse.class);
+        when(request.isPost()).thenReturn(true);
+
+        new PipelinesMetricsService().handle(request, response);
+
+        verify(response).setStatusCode(HttpStatus.SC_METHOD_NOT_ALLOWED);
+        verify(response, never()).setContent(any());
+    }
+}
@@ -41,8 +41,12 @@ import static org.restheart.plugins.ConfigurablePlugin.argValue;
 
 import java.util.Map;
 
+import org.bson.BsonDocument;
+
 import com.mongodb.MongoClient;
 
+import static com.mongodb.client.model.Filters.eq;
+
 
 @RegisterPlugin(name="graphAppDefinitionPatchChecker",
         description = "checks GraphQL application definitions on PATCH requests",
@@ -85,6 +89,19 @@ public class GraphAppDefinitionPatchChecker implements MongoInterceptor {
 
         var appDef = response.getDbOperationResult().getNewData();
 
+        if (appDef == null) {
+            // the write did not return the new document, i.e. 'Prefer: return=minimal'
+            var coll = mclient.getDatabase(request.getDBName()).getCollection(request.getCollectionName(), BsonDocument.class);
+            var cs = request.getClientSession();
+            var query = eq("_id", request.getDocumentId());
+
+            appDef = cs == null ? coll.find(query).first() : coll.find(cs, query).first();
+
+            if (appDef == null) {
+                return;
+            }
+        }
+
         try {
             GraphQLAppDeserializer.fromBsonDocument(appDef);
         } catch(GraphQLIllegalAppDefinitionException e) {
@@ -102,6 +119,6 @@ public class GraphAppDefinitionPatchChecker implements MongoInterceptor {
             || (request.isDocument()
             && request.isPatch()
             && response.getDbOperationResult() != null
-            && response.getDbOperationResult().getNewData() != null));
+            && response.getDbOperationResult().getHttpCode() < 300));
     }
 }
\ No newline at end of file
@@ -73,6 +73,8 @@ import org.slf4j.LoggerFactory;
         secure = true,
         enabledByDefault = true,
         defaultURI = "/",
+        // the content is read by responseInitializer(), before the authentication
+        requiresContent = true,
         priority = Integer.MIN_VALUE)
 public class MongoService implements Service<MongoRequest, MongoResponse> {
     private static final Logger LOGGER = LoggerFactory.getLogger(MongoService.class);
@@ -70,6 +70,16 @@ public class MongoServiceConfiguration {
     private final long localCacheTtl;
     private final boolean schemaCacheEnabled;
     private final long schemaCacheTtl;
+    private final long countCacheTtl;
+    private final boolean responseCacheEnabled;
+    private final long responseCacheTtl;
+    private final long responseCacheMaxSize;
+    private final boolean streamingResponses;
+    private final boolean pageEtags;
+    private final long writeCoalescingLinger;
+    private final int writeCoalescingMaxBatchSize;
+    private final int bulkWriteChunkSize;
+    private final int bulkWriteParallelism;
     private final int requestsLimit;
     private final int eagerPoolSize;
     private final int eagerLinearSliceWidht;
@@ -85,6 +95,7 @@ public class MongoServiceConfiguration {
     private final long aggregationTimeLimit;
     private final boolean aggregationCheckOperators;
     private final int cursorBatchSize;
+    private final int exportBatchSize;
     private final int defaultPagesize;
     private final int maxPagesize;
     private final METRICS_GATHERING_LEVEL metricsGatheringLevel;
@@ -175,6 +186,20 @@ public class MongoServiceConfiguration {
         schemaCacheEnabled = asBoolean(conf, SCHEMA_CACHE_ENABLED_KEY, true, silent);
         schemaCacheTtl = asLong(conf, SCHEMA_CACHE_TTL_KEY, (long) 1000, silent);
 
+        countCacheTtl = asLong(conf, COUNT_CACHE_TTL_KEY, (long) 2000, silent);
+
+        responseCacheEnabled = asBoolean(conf, RESPONSE_CACHE_ENABLED_KEY, false, silent);
+        responseCacheTtl = asLong(conf, RESPONSE_CACHE_TTL_KEY, (long) 10000, silent);
+        responseCacheMaxSize = asLong(conf, RESPONSE_CACHE_MAX_SIZE_KEY, (long) 64 * 1024 * 1024, silent);
+
+        streamingResponses = asBoolean(conf, STREAMING_RESPONSES_KEY, true, silent);
+        pageEtags = asBoolean(conf, PAGE_ETAGS_KEY, false, silent);
+
+        writeCoalescingLinger = asLong(conf, WRITE_COALESCING_LINGER_KEY, (long) 0, silent);
+        writeCoalescingMaxBatchSize = asInteger(conf, WRITE_COALESCING_MAX_BATCH_SIZE_KEY, 100, silent);
+        bulkWriteChunkSize = asInteger(conf, BULK_WRITE_CHUNK_SIZE_KEY, 1000, silent);
+        bulkWriteParallelism = asInteger(conf, BULK_WRITE_PARALLELISM_KEY, 4, silent);
+
         eagerPoolSize = asInteger(conf, EAGER_POOL_SIZE, 100, silent);
         eagerLinearSliceWidht = asInteger(conf, EAGER_LINEAR_SLICE_WIDHT, 1000, silent);
         eagerLinearSliceDelta = asInteger(conf, EAGER_LINEAR_SLICE_DELTA, 100, silent);
@@ -234,6 +259,8 @@ public class MongoServiceConfiguration {
 
         cursorBatchSize = asInteger(conf, CURSOR_BATCH_SIZE_KEY, DEFAULT_CURSOR_BATCH_SIZE, silent);
 
+        exportBatchSize = asInteger(conf, EXPORT_BATCH_SIZE_KEY, DEFAULT_EXPORT_BATCH_SIZE, silent);
+
         defaultPagesize = asInteger(conf, DEFAULT_PAGESIZE_KEY, DEFAULT_DEFAULT_PAGESIZE, silent);
 
         maxPagesize = asInteger(conf, MAX_PAGESIZE_KEY, DEFAULT_MAX_PAGESIZE, silent);
@@ -256,7 +283,7 @@ public class MongoServiceConfiguration {
                 + ", defaultRepresentationFromat=" + defaultRepresentationFormat + ", mongoUri=" + mongoUri
                 + ", mongoMounts=" + mongoMounts + ", pluginsArgs=" + getPluginsArgs() + ", localCacheEnabled="
                 + localCacheEnabled + ", localCacheTtl=" + localCacheTtl + ", schemaCacheEnabled=" + schemaCacheEnabled
-                + ", schemaCacheTtl=" + schemaCacheTtl + ", requestsLimit=" + requestsLimit + ", metricsGatheringLevel="
+                + ", schemaCacheTtl=" + schemaCacheTtl + ", countCacheTtl=" + countCacheTtl + ", responseCacheEnabled=" + responseCacheEnabled + ", responseCacheTtl=" + responseCacheTtl + ", responseCacheMaxSize=" + responseCacheMaxSize + ", streamingResponses=" + streamingResponses + ", pageEtags=" + pageEtags + ", writeCoalescingLinger=" + writeCoalescingLinger + ", writeCoalescingMaxBatchSize=" + writeCoalescingMaxBatchSize + ", bulkWriteChunkSize=" + bulkWriteChunkSize + ", bulkWriteParallelism=" + bulkWriteParallelism + ", requestsLimit=" + requestsLimit + ", metricsGatheringLevel="
                 + metricsGatheringLevel + ", eagerPoolSize=" + eagerPoolSize + ", eagerLinearSliceWidht="
                 + eagerLinearSliceWidht + ", eagerLinearSliceDelta=" + eagerLinearSliceDelta
                 + ", eagerLinearSliceHeights=" + Arrays.toString(eagerLinearSliceHeights) + ", eagerRndSliceMinWidht="
@@ -264,7 +291,7 @@ public class MongoServiceConfiguration {
                 + dbEtagCheckPolicy + ", collEtagCheckPolicy=" + collEtagCheckPolicy + ", docEtagCheckPolicy="
                 + docEtagCheckPolicy + ", connectionOptions=" + connectionOptions + ", queryTimeLimit=" + queryTimeLimit
                 + ", aggregationTimeLimit=" + aggregationTimeLimit + ", aggregationCheckOperators="
-                + aggregationCheckOperators + ", cursorBatchSize=" + cursorBatchSize + ", defaultPagesize="
+                + aggregationCheckOperators + ", cursorBatchSize=" + cursorBatchSize + ", exportBatchSize=" + exportBatchSize + ", defaultPagesize="
                 + defaultPagesize + ", maxPagesize=" + maxPagesize + ", configurationFileMap=" + configurationFileMap
                 + '}';
     }
@@ -388,6 +415,76 @@ public class MongoServiceConfiguration {
         return schemaCacheTtl;
     }
 
+    /**
+     * @return the countCacheTtl
+     */
+    public long getCountCacheTtl() {
+        return countCacheTtl;
+    }
+
+    /**
+     * @return the responseCacheEnabled
+     */
+    public boolean isResponseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    /**
+     * @return the responseCacheTtl
+     */
+    public long getResponseCacheTtl() {
+        return responseCacheTtl;
+    }
+
+    /**
+     * @return the responseCacheMaxSize
+     */
+    public long getResponseCacheMaxSize() {
+        return responseCacheMaxSize;
+    }
+
+    /**
+     * @return the streamingResponses
+     */
+    public boolean isStreamingResponses() {
+        return streamingResponses;
+    }
+
+    /**
+     * @return the pageEtags
+     */
+    public boolean isPageEtags() {
+        return pageEtags;
+    }
+
+    /**
+     * @return the writeCoalescingLinger
+     */
+    public long getWriteCoalescingLinger() {
+        return writeCoalescingLinger;
+    }
+
+    /**
+     * @return the writeCoalescingMaxBatchSize
+     */
+    public int getWriteCoalescingMaxBatchSize() {
+        return writeCoalescingMaxBatchSize;
+    }
+
+    /**
+     * @return the bulkWriteChunkSize
+     */
+    public int getBulkWriteChunkSize() {
+        return bulkWriteChunkSize;
+    }
+
+    /**
+     * @return the bulkWriteParallelism
+     */
+    public int getBulkWriteParallelism() {
+        return bulkWriteParallelism;
+    }
+
     /**
      * @return the dbEtagCheckPolicy
      */
@@ -444,6 +541,13 @@ public class MongoServiceConfiguration {
         return cursorBatchSize;
     }
 
+    /**
+     * @return the exportBatchSize
+     */
+    public int getExportBatchSize() {
+        return exportBatchSize;
+    }
+
     /**
      * @return the maxPagesize
      */
@@ -78,6 +78,11 @@ public interface MongoServiceConfigurationKeys {
      */
     public static final int DEFAULT_CURSOR_BATCH_SIZE = 1000;
 
+    /**
+     * default value for the cursor batch size of exports
+     */
+    public static final int DEFAULT_EXPORT_BATCH_SIZE = 10000;
+
     /**
      * the key for the plugins-args property.
      */
@@ -103,6 +108,56 @@ public interface MongoServiceConfigurationKeys {
      */
     public static final String SCHEMA_CACHE_TTL_KEY = "schema-cache-ttl";
 
+    /**
+     * the key for the count-cache-ttl property.
+     */
+    public static final String COUNT_CACHE_TTL_KEY = "count-cache-ttl";
+
+    /**
+     * the key for the response-cache-enabled property.
+     */
+    public static final String RESPONSE_CACHE_ENABLED_KEY = "response-cache-enabled";
+
+    /**
+     * the key for the response-cache-ttl property.
+     */
+    public static final String RESPONSE_CACHE_TTL_KEY = "response-cache-ttl";
+
+    /**
+     * the key for the response-cache-max-size property.
+     */
+    public static final String RESPONSE_CACHE_MAX_SIZE_KEY = "response-cache-max-size";
+
+    /**
+     * the key for the streaming-responses property.
+     */
+    public static final String STREAMING_RESPONSES_KEY = "streaming-responses";
+
+    /**
+     * the key for the page-etags property.
+     */
+    public static final String PAGE_ETAGS_KEY = "page-etags";
+
+    /**
+     * the key for the write-coalescing-linger property.
+     */
+    public static final String WRITE_COALESCING_LINGER_KEY = "write-coalescing-linger";
+
+    /**
+     * the key for the write-coalescing-max-batch-size property.
+     */
+    public static final String WRITE_COALESCING_MAX_BATCH_SIZE_KEY = "write-coalescing-max-batch-size";
+
+    /**
+     * the key for the bulk-write-chunk-size property.
+     */
+    public static final String BULK_WRITE_CHUNK_SIZE_KEY = "bulk-write-chunk-size";
+
+    /**
+     * the key for the bulk-write-parallelism property.
+     */
+    public static final String BULK_WRITE_PARALLELISM_KEY = "bulk-write-parallelism";
+
     /**
      * the key for the requests-limit property.
      */
@@ -238,4 +293,9 @@ public interface MongoServiceConfigurationKeys {
      * The key for specifying the cursor batch size
      */
     public static final String CURSOR_BATCH_SIZE_KEY = "cursor-batch-size";
+
+    /**
+     * The key for specifying the cursor batch size of exports
+     */
+    public static final String EXPORT_BATCH_SIZE_KEY = "export-batch-size";
 }
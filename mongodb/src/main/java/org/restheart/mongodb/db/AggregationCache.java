@@ -0,0 +1,172 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.codahale.metrics.Counter;
+import com.mongodb.MongoNamespace;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.bson.BsonArray;
+import org.bson.BsonValue;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.mongodb.handlers.aggregation.AbstractAggregationOperation.CachePolicy;
+import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
+
+/**
+ * The cache of the results of the aggregations that define a cache policy.
+ *
+ * Entries are keyed by the namespace, the uri of the aggregation and its
+ * resolved definition, i.e. with the aggregation variables (including the
+ * default ones, as @user and @mongoPermissions.readFilter) bound, so that
+ * requests sharing a key get the same results from the db.
+ *
+ * Each aggregation has its own cache, sized and expired according to its
+ * cache policy. Writes via RESTHeart invalidate the entries of the namespace
+ * via the ResponseCache generations; writes to other collections read by the
+ * aggregation (e.g. with $lookup) are visible after the ttl.
+ *
+ * Concurrent misses of the same key execute the aggregation once.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AggregationCache {
+    /**
+     * the key of cached results
+     */
+    public record Key(MongoNamespace namespace, String uri, BsonValue resolvedDefinition) {
+    }
+
+    private record Entry(BsonArray data, long generation) {
+    }
+
+    private record AggregationEntries(CachePolicy policy, Cache<Key, Entry> entries) {
+    }
+
+    private final ConcurrentHashMap<String, AggregationEntries> caches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, CompletableFuture<BsonArray>> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    AggregationCache() {
+        var registry = new SharedMetricRegistryProxy().registry();
+        this.hits = registry.counter("aggregation-cache.hits");
+        this.misses = registry.counter("aggregation-cache.misses");
+    }
+
+    /**
+     *
+     * @return the AggregationCache
+     */
+    public static AggregationCache getInstance() {
+        return AggregationCacheHolder.INSTANCE;
+    }
+
+    private static class AggregationCacheHolder {
+        private static final AggregationCache INSTANCE = new AggregationCache();
+    }
+
+    /**
+     * gets the cached results or, in case of a miss, executes the aggregation
+     * via the loader and caches its results. The returned array is a copy
+     * that can be modified.
+     *
+     * @param key
+     * @param policy the cache policy of the aggregation
+     * @param loader executes the aggregation
+     * @return the results of the aggregation
+     */
+    public BsonArray get(Key key, CachePolicy policy, Supplier<BsonArray> loader) {
+        var entries = entries(key, policy);
+        var generations = ResponseCache.getInstance();
+
+        var cached = entries.get(key);
+
+        if (cached != null && cached.isPresent()) {
+            if (cached.get().generation() == generations.generation(key.namespace())) {
+                hits.inc();
+                return cached.get().data().clone();
+            }
+
+            entries.invalidate(key);
+        }
+
+        misses.inc();
+
+        var future = new CompletableFuture<BsonArray>();
+        var running = loading.putIfAbsent(key, future);
+
+        if (running != null) {
+            // the same aggregation is being executed by another request
+            try {
+                return running.join().clone();
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException re) {
+                    throw re;
+                } else {
+                    throw ce;
+                }
+            }
+        }
+
+        try {
+            // read the generation before executing the aggregation
+            var generation = generations.generation(key.namespace());
+
+            // the results might have been cached meanwhile
+            var recheck = entries.get(key);
+            BsonArray data;
+
+            if (recheck != null && recheck.isPresent() && recheck.get().generation() == generation) {
+                data = recheck.get().data();
+            } else {
+                data = loader.get();
+
+                if (generation == generations.generation(key.namespace())) {
+                    entries.put(key, new Entry(data, generation));
+                }
+            }
+
+            future.complete(data);
+            return data.clone();
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * the cache of the aggregation; it is replaced when the policy changes
+     */
+    private Cache<Key, Entry> entries(Key key, CachePolicy policy) {
+        var id = key.namespace().getFullName() + "/" + key.uri();
+
+        return caches.compute(id, (k, current) -> current != null && current.policy().equals(policy)
+                ? current
+                : new AggregationEntries(policy, CacheFactory.createLocalCache(policy.maxEntries(), Cache.EXPIRE_POLICY.AFTER_WRITE, policy.ttl())))
+            .entries();
+    }
+}
@@ -0,0 +1,289 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.bson.BsonDocument;
+import static org.restheart.mongodb.db.DAOUtils.BWO_NOT_ORDERED;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ * Writes the documents of a bulk request as chunks of unordered bulk writes.
+ *
+ * The documents are read from an iterator, that can parse them from the
+ * request content, while up to parallelism chunks are being written; the
+ * results of the chunks are aggregated as if the documents were written with
+ * a single bulk write. Within a client session the chunks are written one
+ * after the other by the calling thread.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ChunkedBulkWriter {
+
+    private record Chunk(int offset, CompletableFuture<BulkWriteResult> result) {
+    }
+
+    private final int chunkSize;
+    private final int parallelism;
+    // shared by all requests, so that the number of threads is bounded
+    private final ExecutorService executor;
+
+    private ChunkedBulkWriter() {
+        this(MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getBulkWriteChunkSize()
+                    : 1000,
+            MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getBulkWriteParallelism()
+                    : 4);
+    }
+
+    /**
+     * @param chunkSize the number of documents of a chunk
+     * @param parallelism the maximum number of chunks of a request being
+     * written at the same time, also the number of threads writing the chunks
+     * of all requests
+     */
+    ChunkedBulkWriter(int chunkSize, int parallelism) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = Executors.newFixedThreadPool(this.parallelism, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("bulk-write-%d")
+            .build());
+    }
+
+    /**
+     *
+     * @return the ChunkedBulkWriter
+     */
+    public static ChunkedBulkWriter getInstance() {
+        return ChunkedBulkWriterHolder.INSTANCE;
+    }
+
+    private static class ChunkedBulkWriterHolder {
+        private static final ChunkedBulkWriter INSTANCE = new ChunkedBulkWriter();
+    }
+
+    /**
+     * writes the documents; if reading them fails, e.g. for invalid json, the
+     * chunks completely read before the error are written anyway and a
+     * PartialBulkWriteException is thrown, with the error as cause and the
+     * result of the written chunks; if no chunk was written, the error is
+     * thrown as it is
+     *
+     * @param cs the client session, can be null
+     * @param coll the collection
+     * @param documents the documents to write
+     * @param writeModels gives the write models of a chunk of documents
+     * @return the aggregated result of the chunks, the indexes of upserts and
+     * inserts refer to the position of the documents in the request
+     * @throws MongoBulkWriteException with the aggregated result and the write
+     * errors of all the chunks, if any
+     * @throws PartialBulkWriteException if reading the documents fails after
+     * some chunks have been written
+     */
+    public BulkWriteResult write(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final Iterator<BsonDocument> documents,
+            final Function<List<BsonDocument>, List<WriteModel<BsonDocument>>> writeModels) {
+        var chunks = new ArrayList<Chunk>();
+        var permits = new Semaphore(parallelism);
+        // set when a chunk fails with an error other than write errors
+        var failed = new AtomicBoolean(false);
+
+        RuntimeException readError = null;
+
+        try {
+            var offset = 0;
+
+            while (!failed.get() && documents.hasNext()) {
+                var chunk = new ArrayList<BsonDocument>(chunkSize);
+
+                while (chunk.size() < chunkSize && documents.hasNext()) {
+                    chunk.add(documents.next());
+                }
+
+                var models = writeModels.apply(chunk);
+                var result = new CompletableFuture<BulkWriteResult>();
+
+                chunks.add(new Chunk(offset, result));
+                offset += chunk.size();
+
+                if (cs != null) {
+                    // a client session cannot be used concurrently
+                    write(coll, cs, models, result, failed);
+                } else {
+                    permits.acquireUninterruptibly();
+
+                    executor.execute(() -> {
+                        try {
+                            write(coll, null, models, result, failed);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+        } catch (RuntimeException re) {
+            readError = re;
+        }
+
+        if (readError != null && chunks.isEmpty()) {
+            // nothing has been written
+            throw readError;
+        } else if (readError != null) {
+            // wait for the chunks being written before reporting the error
+            BulkWriteResult writeResult;
+            List<BulkWriteError> writeErrors;
+
+            try {
+                writeResult = aggregate(chunks);
+                writeErrors = List.of();
+            } catch (MongoBulkWriteException mbwe) {
+                writeResult = mbwe.getWriteResult();
+                writeErrors = mbwe.getWriteErrors();
+            } catch (RuntimeException re) {
+                // the result of the written chunks is unknown
+                readError.addSuppressed(re);
+                throw readError;
+            }
+
+            throw new PartialBulkWriteException(readError, writeResult, writeErrors);
+        }
+
+        return aggregate(chunks);
+    }
+
+    private static void write(MongoCollection<BsonDocument> coll,
+            ClientSession cs,
+            List<WriteModel<BsonDocument>> models,
+            CompletableFuture<BulkWriteResult> result,
+            AtomicBoolean failed) {
+        try {
+            result.complete(cs == null
+                    ? coll.bulkWrite(models, BWO_NOT_ORDERED)
+                    : coll.bulkWrite(cs, models, BWO_NOT_ORDERED));
+        } catch (MongoBulkWriteException mbwe) {
+            result.completeExceptionally(mbwe);
+        } catch (Throwable t) {
+            failed.set(true);
+            result.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * waits for all chunks and aggregates their results
+     */
+    private static BulkWriteResult aggregate(List<Chunk> chunks) {
+        int inserted = 0, matched = 0, deleted = 0, modified = 0;
+        var upserts = new ArrayList<BulkWriteUpsert>();
+        var inserts = new ArrayList<BulkWriteInsert>();
+        var errors = new ArrayList<BulkWriteError>();
+        var acknowledged = true;
+        WriteConcernError writeConcernError = null;
+        ServerAddress serverAddress = null;
+        var errorLabels = new HashSet<String>();
+        RuntimeException failure = null;
+
+        for (var chunk : chunks) {
+            BulkWriteResult result;
+
+            try {
+                result = chunk.result().join();
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof MongoBulkWriteException mbwe) {
+                    result = mbwe.getWriteResult();
+
+                    mbwe.getWriteErrors().stream()
+                        .map(e -> new BulkWriteError(e.getCode(), e.getMessage(), e.getDetails(), e.getIndex() + chunk.offset()))
+                        .forEachOrdered(errors::add);
+
+                    if (writeConcernError == null) {
+                        writeConcernError = mbwe.getWriteConcernError();
+                    }
+
+                    serverAddress = mbwe.getServerAddress();
+                    errorLabels.addAll(mbwe.getErrorLabels());
+                } else {
+                    if (failure == null) {
+                        failure = ce.getCause() instanceof RuntimeException re ? re : ce;
+                    }
+
+                    continue;
+                }
+            }
+
+            if (!result.wasAcknowledged()) {
+                acknowledged = false;
+                continue;
+            }
+
+            inserted += result.getInsertedCount();
+            matched += result.getMatchedCount();
+            deleted += result.getDeletedCount();
+            modified += result.getModifiedCount();
+
+            result.getUpserts().stream()
+                .map(u -> new BulkWriteUpsert(u.getIndex() + chunk.offset(), u.getId()))
+                .forEachOrdered(upserts::add);
+
+            result.getInserts().stream()
+                .map(i -> new BulkWriteInsert(i.getIndex() + chunk.offset(), i.getId()))
+                .forEachOrdered(inserts::add);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        var ret = acknowledged
+            ? BulkWriteResult.acknowledged(inserted, matched, deleted, modified, upserts, inserts)
+            : BulkWriteResult.unacknowledged();
+
+        if (!errors.isEmpty() || writeConcernError != null) {
+            throw new MongoBulkWriteException(ret, errors, writeConcernError, serverAddress, errorLabels);
+        }
+
+        return ret;
+    }
+}
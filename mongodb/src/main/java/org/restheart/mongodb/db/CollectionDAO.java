@@ -22,10 +22,15 @@ package org.restheart.mongodb.db;
 
 import com.mongodb.MongoClient;
 import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import static com.mongodb.client.model.Filters.eq;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
@@ -37,6 +42,8 @@ import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
 import org.bson.types.ObjectId;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import static org.restheart.exchange.ExchangeKeys.COLL_META_DOCID_PREFIX;
 import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
 import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
@@ -61,6 +68,23 @@ class CollectionDAO {
                     : DEFAULT_CURSOR_BATCH_SIZE;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CollectionDAO.class);
+
+    private static final long COUNT_CACHE_TTL = MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getCountCacheTtl()
+                    : 0;
+
+    private record CountCacheKey(MongoNamespace namespace, BsonDocument filters) {}
+
+    private record CountCacheEntry(long count, long generation) {}
+
+    /**
+     * caches the number of documents per collection and filter, null if
+     * disabled; writes invalidate the entries of the collection by
+     * incrementing its ResponseCache generation
+     */
+    private static final Cache<CountCacheKey, CountCacheEntry> COUNT_CACHE = COUNT_CACHE_TTL > 0
+                    ? CacheFactory.createLocalCache(1000, Cache.EXPIRE_POLICY.AFTER_WRITE, COUNT_CACHE_TTL)
+                    : null;
     private static final BsonDocument FIELDS_TO_RETURN;
 
     static {
@@ -96,10 +120,41 @@ class CollectionDAO {
      * @param filters the filters to apply. it is a Deque collection of mongodb
      * query conditions.
      * @return the number of documents in the given collection (taking into
-     * account the filters in case)
+     * account the filters in case); out of sessions, the result is cached for
+     * count-cache-ttl milliseconds
      */
     public long getCollectionSize(final ClientSession cs, final MongoCollection<BsonDocument> coll, final BsonDocument filters) {
-        return cs == null ? coll.countDocuments(filters) : coll.countDocuments(cs, filters);
+        if (cs != null) {
+            // counts in sessions must see the session's writes, not cached
+            return coll.countDocuments(cs, filters);
+        }
+
+        if (COUNT_CACHE == null) {
+            return count(coll, filters);
+        }
+
+        var key = new CountCacheKey(coll.getNamespace(), filters);
+        // read before counting, so that a count concurrent to a write is not reused
+        var generation = ResponseCache.getInstance().generation(coll.getNamespace());
+        var cached = COUNT_CACHE.get(key);
+
+        if (cached != null && cached.isPresent() && cached.get().generation() == generation) {
+            return cached.get().count();
+        }
+
+        var ret = count(coll, filters);
+        COUNT_CACHE.put(key, new CountCacheEntry(ret, generation));
+        return ret;
+    }
+
+    /**
+     * uses estimatedDocumentCount(), that reads the collection metadata,
+     * when there is no filter
+     */
+    private long count(final MongoCollection<BsonDocument> coll, final BsonDocument filters) {
+        return filters == null || filters.isEmpty()
+                ? coll.estimatedDocumentCount()
+                : coll.countDocuments(filters);
     }
 
     /**
@@ -147,27 +202,63 @@ class CollectionDAO {
 
         var ret = new BsonArray();
 
+        try (var mc = getCollectionDataCursor(cs, coll, page, pagesize, sortBy, filters, hint, keys, eager)) {
+            for (int cont = pagesize; cont > 0 && mc.hasNext(); cont--) {
+                ret.add(mc.next());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns an open cursor positioned at the first document of the page.
+     * Note that the cursor can return more than pagesize documents when it
+     * comes from the CursorPool, so the caller must read at most pagesize
+     * documents and close it.
+     *
+     * @param cs the client session
+     * @param coll the mongodb collection
+     * @param page the page
+     * @param pagesize the page size
+     * @param sortBy the sort document
+     * @param filters the filters to apply
+     * @param hint the index hint
+     * @param keys the keys to return (projection)
+     * @param eager the cursor allocation policy
+     * @return the cursor
+     * @throws JsonParseException
+     */
+    MongoCursor<BsonDocument> getCollectionDataCursor(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final EAGER_CURSOR_ALLOCATION_POLICY eager)
+            throws JsonParseException {
+
         int toskip = pagesize * (page - 1);
 
         SkippedFindIterable _cursor = null;
 
         if (eager != EAGER_CURSOR_ALLOCATION_POLICY.NONE) {
-            _cursor = CursorPool.getInstance().get(new CursorPoolEntryKey(cs, coll, sortBy, filters, hint, keys, toskip,0), eager);
+            _cursor = CursorPool.getInstance().get(new CursorPoolEntryKey(cs, coll, sortBy, filters, keys, hint, toskip, 0), eager);
         }
 
-        // in case there is not cursor in the pool to reuse
-        FindIterable<BsonDocument> cursor;
+        MongoCursor<BsonDocument> mc;
 
+        // in case there is not cursor in the pool to reuse
         if (_cursor == null) {
-            cursor = getFindIterable(cs, coll, sortBy, filters, hint, keys);
-            cursor.skip(toskip).limit(pagesize);
-
-            StreamSupport.stream(cursor.spliterator(),false).forEachOrdered(c -> ret.add(c));
+            mc = getFindIterable(cs, coll, sortBy, filters, hint, keys)
+                .skip(toskip)
+                .limit(pagesize)
+                .iterator();
         } else {
-            int alreadySkipped;
-
-            cursor = _cursor.findIterable();
-            alreadySkipped = _cursor.alreadySkipped();
+            int alreadySkipped = _cursor.alreadySkipped();
 
             long startSkipping = 0;
             int cursorSkips = alreadySkipped;
@@ -178,7 +269,7 @@ class CollectionDAO {
 
             LOGGER.debug("got cursor from pool with skips {}. need to reach {} skips.", alreadySkipped, toskip);
 
-            var mc = cursor.iterator();
+            mc = _cursor.findIterable().iterator();
 
             while (toskip > alreadySkipped && mc.hasNext()) {
                 mc.next();
@@ -188,15 +279,46 @@ class CollectionDAO {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("skipping {} times took {} msecs",toskip - cursorSkips, System.currentTimeMillis() - startSkipping);
             }
-
-            for (int cont = pagesize; cont > 0 && mc.hasNext(); cont--) {
-                ret.add(mc.next());
-            }
         }
 
         // the pool is populated here because, skipping with cursor.next() is heavy operation
         // and we want to minimize the chances that pool cursors are allocated in parallel
-        CursorPool.getInstance().populateCache(new CursorPoolEntryKey(cs, coll, sortBy, filters, hint, keys, toskip, 0), eager);
+        CursorPool.getInstance().populateCache(new CursorPoolEntryKey(cs, coll, sortBy, filters, keys, hint, toskip, 0), eager);
+
+        return mc;
+    }
+
+    /**
+     * Returns a page of documents with keyset pagination, i.e. the documents
+     * that follow the given sort key values, without skipping.
+     *
+     * @param cs the client session
+     * @param coll the mongodb collection
+     * @param pagesize the page size
+     * @param sortBy the keyset sort document, see KeysetPagination.sortDocument()
+     * @param filters the filters to apply, including the range predicate that
+     * selects the documents following the continuation token, see
+     * KeysetPagination.rangeFilter()
+     * @param hint the index hint
+     * @param keys the keys to return (projection)
+     * @return the page of documents
+     * @throws JsonParseException
+     */
+    BsonArray getCollectionDataAfter(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys)
+            throws JsonParseException {
+
+        var ret = new BsonArray();
+
+        getFindIterable(cs, coll, sortBy, filters, hint, keys)
+                .limit(pagesize)
+                .forEach(ret::add);
 
         return ret;
     }
@@ -227,6 +349,47 @@ class CollectionDAO {
         return props;
     }
 
+    /**
+     * Returns the properties documents of the given existing collections with
+     * a single query; collections without properties document get the
+     * default one, i.e. {_id: collName}
+     *
+     * @param cs the client session
+     * @param dbName the database name of the collections
+     * @param collNames the names of existing collections
+     * @return the map of collection names to their properties document
+     */
+    public Map<String, BsonDocument> getCollectionsProps(final ClientSession cs, final String dbName, final List<String> collNames) {
+        var ret = new HashMap<String, BsonDocument>();
+
+        if (collNames.isEmpty()) {
+            return ret;
+        }
+
+        var propsColl = getCollection(dbName, META_COLLNAME);
+
+        var ids = new BsonArray();
+        collNames.stream().map(collName -> new BsonString(COLL_META_DOCID_PREFIX.concat(collName))).forEach(ids::add);
+
+        var query = new BsonDocument("_id", new BsonDocument("$in", ids));
+
+        var found = cs == null
+                ? propsColl.find(query)
+                : propsColl.find(cs, query);
+
+        for (var props : found.batchSize(collNames.size())) {
+            var collName = props.getString("_id").getValue().substring(COLL_META_DOCID_PREFIX.length());
+            props.append("_id", new BsonString(collName));
+            ret.put(collName, props);
+        }
+
+        collNames.stream()
+                .filter(collName -> !ret.containsKey(collName))
+                .forEach(collName -> ret.put(collName, new BsonDocument("_id", new BsonString(collName))));
+
+        return ret;
+    }
+
     /**
      * Returns true if the collection exists
      *
@@ -359,7 +522,9 @@ class CollectionDAO {
                     null,
                     dcontent,
                     false,
-                    WRITE_MODE.UPSERT);
+                    false,
+                    WRITE_MODE.UPSERT,
+                    false);
 
             return new OperationResult(ret.getHttpCode() > 0 ? ret.getHttpCode() : HttpStatus.SC_OK, newEtag);
         } else if (updating) {
@@ -20,33 +20,48 @@
  */
 package org.restheart.mongodb.db;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.MongoNamespace;
 import com.mongodb.client.FindIterable;
 import static java.lang.Thread.MIN_PRIORITY;
-import java.util.Comparator;
-import java.util.Objects;
+import java.util.Formatter;
 import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 import org.bson.BsonDocument;
 import static org.fusesource.jansi.Ansi.Color.GREEN;
 import static org.fusesource.jansi.Ansi.Color.RED;
 import static org.fusesource.jansi.Ansi.Color.YELLOW;
 import static org.fusesource.jansi.Ansi.ansi;
-import org.restheart.cache.Cache;
 import org.restheart.cache.CacheFactory;
 import org.restheart.cache.LoadingCache;
 import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * The pool of cursors used to speed up deep paging.
+ *
+ * Cursors are indexed by query shape (namespace, filter, sort, projection and
+ * hint); each shape maps to a navigable map of the skip offsets of its pooled
+ * cursors, so that finding the closest cursor and counting the cursors of a
+ * slice take O(log n) and don't require locking the whole pool.
+ *
+ * Hits, misses, evictions and the pool size are published in the default
+ * metrics registry as cursor-pool.hits, cursor-pool.misses,
+ * cursor-pool.evictions and cursor-pool.size.
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
@@ -89,6 +104,10 @@ public class CursorPool {
 
     private final DatabaseImpl dbsDAO;
 
+    private final long poolSize;
+
+    private final long ttl;
+
     private final int SKIP_SLICE_LINEAR_DELTA = MongoServiceConfiguration.get().getEagerLinearSliceDelta();
 
     private final int SKIP_SLICE_LINEAR_WIDTH = MongoServiceConfiguration.get().getEagerLinearSliceWidht();
@@ -99,16 +118,34 @@ public class CursorPool {
 
     private final int SKIP_SLICE_RND_MAX_CURSORS = MongoServiceConfiguration.get().getEagerRndMaxCursors();
 
-    private final Cache<CursorPoolEntryKey, FindIterable<BsonDocument>> cache;
+    private final ConcurrentHashMap<QueryShape, ConcurrentNavigableMap<Integer, ConcurrentLinkedQueue<PooledCursor>>> pool = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong(0);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
     private final LoadingCache<CursorPoolEntryKey, Long> collSizes;
 
     private CursorPool(DatabaseImpl dbsDAO) {
+        this(dbsDAO, POOL_SIZE, TTL);
+    }
+
+    /**
+     * @param dbsDAO the DatabaseImpl used to create the cursors
+     * @param poolSize the maximum number of cursors in the pool
+     * @param ttl the time to live of the cursors in the pool, in milliseconds
+     */
+    CursorPool(DatabaseImpl dbsDAO, long poolSize, long ttl) {
         this.dbsDAO = dbsDAO;
+        this.poolSize = poolSize;
+        this.ttl = ttl;
 
-        cache = CacheFactory.createLocalCache(
-            POOL_SIZE,
-            Cache.EXPIRE_POLICY.AFTER_READ,
-            TTL);
+        var registry = new SharedMetricRegistryProxy().registry();
+        this.hits = registry.counter("cursor-pool.hits");
+        this.misses = registry.counter("cursor-pool.misses");
+        this.evictions = registry.counter("cursor-pool.evictions");
+        registry.gauge("cursor-pool.size", () -> (Gauge<Long>) size::get);
 
         collSizes = CacheFactory.createLocalLoadingCache(100,
             org.restheart.cache.Cache.EXPIRE_POLICY.AFTER_WRITE,
@@ -121,16 +158,12 @@ public class CursorPool {
             }
         );
 
-        if (LOGGER.isTraceEnabled()) {
-            // print stats every 1 minute
-            Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-                getCacheSizes().forEach((s, c) -> {
-                    LOGGER.debug("db cursor pool size: {}\t{}", s, c);
-                });
-
-                LOGGER.trace("db cursor pool entries: {}", cache.asMap().keySet());
-            }, 1, 1, TimeUnit.MINUTES);
-        }
+        // evict expired cursors every 1 minute
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("cursor-pool-evictor-%d")
+                .build())
+            .scheduleAtFixedRate(this::evictExpired, 1, 1, TimeUnit.MINUTES);
     }
 
     /**
@@ -139,40 +172,97 @@ public class CursorPool {
      * @param allocationPolicy
      * @return
      */
-    public synchronized SkippedFindIterable get(CursorPoolEntryKey key, EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
+    public SkippedFindIterable get(CursorPoolEntryKey key, EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
         if (key.skipped() < SKIP_SLICE_LINEAR_WIDTH) {
             LOGGER.trace("{} cursor to reuse found with less skips than SKIP_SLICE_LINEAR_WIDTH {}", ansi().fg(GREEN).bold().a("no").reset().toString(), SKIP_SLICE_LINEAR_WIDTH);
             return null;
         }
 
-        // return the dbcursor with the closest skips to the request
-        var _bestKey = cache.asMap().keySet().stream()
-                .filter(cursorsPoolFilterGte(key))
-                .sorted(Comparator.comparingInt(CursorPoolEntryKey::skipped).reversed())
-                .findFirst();
+        var slices = pool.get(QueryShape.of(key));
+
+        if (slices != null) {
+            // the cursors with the closest skips to the request first
+            var minSkips = (int) Math.ceil(key.skipped() - MIN_SKIP_DISTANCE_PERCENTAGE * key.skipped());
+            var now = System.currentTimeMillis();
+
+            for (var slice : slices.subMap(minSkips, true, key.skipped(), true).descendingMap().entrySet()) {
+                PooledCursor cursor;
 
-        SkippedFindIterable ret;
+                while ((cursor = slice.getValue().poll()) != null) {
+                    size.decrementAndGet();
 
-        if (_bestKey.isPresent()) {
-            var _dbcur = cache.get(_bestKey.get());
+                    if (cursor.isExpired(now)) {
+                        evictions.inc();
+                        continue;
+                    }
 
-            if (_dbcur != null && _dbcur.isPresent()) {
-                ret = new SkippedFindIterable(_dbcur.get(), _bestKey.get().skipped());
-                cache.invalidate(_bestKey.get());
+                    hits.inc();
 
-                LOGGER.debug("{} cursor in pool. id {}, saving {} skips", ansi().fg(GREEN).bold().a("found").reset().toString(), _bestKey.get().cursorId(), key.skipped(), _bestKey.get().skipped());
-            } else {
-                ret = null;
+                    LOGGER.debug("{} cursor in pool. id {}, saving {} skips", ansi().fg(GREEN).bold().a("found").reset().toString(), cursor.cursorId(), slice.getKey());
 
-                LOGGER.debug("{} cursor in pool.", ansi().fg(RED).bold().a("no").reset().toString());
+                    return new SkippedFindIterable(cursor.findIterable(), slice.getKey());
+                }
             }
-        } else {
-            ret = null;
+        }
 
-            LOGGER.debug(ansi().fg(RED).bold().a("no").reset().toString() + " cursor in pool.");
+        misses.inc();
+
+        LOGGER.debug("{} cursor in pool.", ansi().fg(RED).bold().a("no").reset().toString());
+
+        return null;
+    }
+
+    /**
+     * adds a cursor to the pool. If the pool is full the cursor is discarded
+     * and counted as evicted.
+     *
+     * @param key the key, its skipped() must match the skips of the cursor
+     * @param cursor the cursor
+     */
+    void put(CursorPoolEntryKey key, FindIterable<BsonDocument> cursor) {
+        if (size.incrementAndGet() > poolSize) {
+            size.decrementAndGet();
+            evictions.inc();
+            return;
         }
 
-        return ret;
+        pool.computeIfAbsent(QueryShape.of(key), k -> new ConcurrentSkipListMap<>())
+            .computeIfAbsent(key.skipped(), k -> new ConcurrentLinkedQueue<>())
+            .add(new PooledCursor(cursor, key.cursorId(), System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     *
+     * @return the number of cursors in the pool
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     *
+     * @return the number of requests that got a cursor from the pool
+     */
+    public long getHits() {
+        return hits.getCount();
+    }
+
+    /**
+     *
+     * @return the number of eligible requests that did not find a cursor in
+     * the pool
+     */
+    public long getMisses() {
+        return misses.getCount();
+    }
+
+    /**
+     *
+     * @return the number of cursors discarded because expired or because the
+     * pool was full
+     */
+    public long getEvictions() {
+        return evictions.getCount();
     }
 
     void populateCache(CursorPoolEntryKey key, EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
@@ -197,47 +287,12 @@ public class CursorPool {
                 for (int tohave : SKIP_SLICES_HEIGHTS) {
                     int sliceSkips = slice * SKIP_SLICE_LINEAR_WIDTH - SKIP_SLICE_LINEAR_DELTA;
 
-                    var sliceKey = new CursorPoolEntryKey(
-                        key.session(),
-                        key.collection(),
-                        key.sort(),
-                        key.filter(),
-                        key.keys(),
-                        key.hint(),
-                        sliceSkips,
-                        -1);
-
-                    long existing = getSliceHeight(sliceKey);
+                    long existing = getSliceHeight(key, sliceSkips);
 
                     long tocreate = tohave - existing;
 
                     for (long cont = tocreate; cont > 0; cont--) {
-                        // create the first cursor
-                        var cursor = dbsDAO.getFindIterable(
-                            key.session(),
-                            key.collection(),
-                            key.sort(),
-                            key.filter(),
-                            key.hint(),
-                            key.keys());
-
-                        cursor.skip(sliceSkips);
-
-                        cursor.iterator(); // this forces the actual skipping
-
-                        var newkey = new CursorPoolEntryKey(
-                            key.session(),
-                            key.collection(),
-                            key.sort(),
-                            key.filter(),
-                            key.hint(),
-                            key.keys(),
-                            sliceSkips,
-                            System.nanoTime());
-
-                        cache.put(newkey, cursor);
-
-                        LOGGER.debug("{} cursor in pool: {}", ansi().fg(YELLOW).bold().a("new").reset().toString(), newkey);
+                        createCursor(key, sliceSkips);
                     }
 
                     slice++;
@@ -270,78 +325,122 @@ public class CursorPool {
                 for (int slice = 1; slice < slices; slice++) {
                     int sliceSkips = slice * sliceWidht;
 
-                    var sliceKey = CursorPoolEntryKey.clone(key);
+                    if (getSliceHeight(key, sliceSkips) == 0) {
+                        createCursor(key, sliceSkips);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException rej) {
+            LOGGER.debug("populate cursor pool {}", ansi().fg(RED).bold().a("rejected").reset().toString());
+        }
+    }
+
+    private void createCursor(CursorPoolEntryKey key, int skips) {
+        var cursor = dbsDAO.getFindIterable(
+                key.session(),
+                key.collection(),
+                key.sort(),
+                key.filter(),
+                key.hint(),
+                key.keys())
+                .skip(skips);
+
+        cursor.iterator(); // this forces the actual skipping
+
+        var newkey = new CursorPoolEntryKey(
+                key.session(),
+                key.collection(),
+                key.sort(),
+                key.filter(),
+                key.keys(),
+                key.hint(),
+                skips,
+                System.nanoTime());
+
+        put(newkey, cursor);
+
+        LOGGER.debug("{} cursor in pool: {}", ansi().fg(YELLOW).bold().a("new").reset().toString(), newkey);
+    }
+
+    private long getSliceHeight(CursorPoolEntryKey key, int skips) {
+        var slices = pool.get(QueryShape.of(key));
+        var slice = slices == null ? null : slices.get(skips);
 
-                    LOGGER.debug("{} cursor in pool: {}", ansi().fg(YELLOW).bold().a("new").reset() .toString(), sliceKey);
+        long ret = slice == null ? 0 : slice.size();
 
-                    long existing = getSliceHeight(sliceKey);
+        LOGGER.trace("cursor in pool with skips {} are {}", skips, ret);
 
-                    if (existing == 0) {
-                        var cursor = dbsDAO.getFindIterable(
-                                key.session(),
-                                key.collection(),
-                                key.sort(),
-                                key.filter(),
-                                key.hint(),
-                                key.keys())
-                                .skip(sliceSkips);
+        return ret;
+    }
+
+    /**
+     * removes the expired cursors and the empty slices and shapes.
+     *
+     * A cursor added concurrently to a slice being removed gets lost; this is
+     * harmless (it is just not reused) and the size is recounted here anyway.
+     */
+    void evictExpired() {
+        var now = System.currentTimeMillis();
+        long count = 0;
 
-                        cursor.iterator(); // this forces the actual skipping
+        for (var shape : pool.entrySet()) {
+            var slices = shape.getValue();
 
-                        var newkey = new CursorPoolEntryKey(
-                                key.session(),
-                                key.collection(),
-                                key.sort(),
-                                key.filter(),
-                                key.hint(),
-                                key.keys(),
-                                sliceSkips,
-                                System.nanoTime());
-                        cache.put(newkey, cursor);
+            for (var slice : slices.entrySet()) {
+                var queue = slice.getValue();
 
-                        LOGGER.debug("{} cursor in pool (copied): {}", ansi().fg(YELLOW).bold().a("new").reset().toString(), sliceKey);
+                for (var it = queue.iterator(); it.hasNext();) {
+                    if (it.next().isExpired(now)) {
+                        it.remove();
+                        evictions.inc();
                     }
                 }
-            });
-        } catch (RejectedExecutionException rej) {
-            LOGGER.debug("populate cursor pool {}", ansi().fg(RED).bold().a("rejected").reset().toString());
+
+                if (queue.isEmpty()) {
+                    slices.remove(slice.getKey(), queue);
+                } else {
+                    count += queue.size();
+                }
+            }
+
+            if (slices.isEmpty()) {
+                pool.remove(shape.getKey(), slices);
+            }
         }
 
+        size.set(count);
+
+        if (LOGGER.isTraceEnabled()) {
+            getCacheSizes().forEach((s, c) -> LOGGER.trace("db cursor pool size: {}\t{}", s, c));
+        }
     }
 
-    private long getSliceHeight(CursorPoolEntryKey key) {
-        long ret = cache.asMap().keySet().stream().filter(cursorsPoolFilterEq(key)).count();
+    private TreeMap<String, Long> getCacheSizes() {
+        var ret = new TreeMap<String, Long>();
 
-        LOGGER.trace("cursor in pool with skips {} are {}", key.skipped(), ret);
+        pool.forEach((shape, slices) -> slices.forEach((skips, queue) -> {
+            try (var f = new Formatter()) {
+                ret.put(shape.toString() + " - " + f.format("%10d", skips), (long) queue.size());
+            }
+        }));
 
         return ret;
     }
 
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterEq( CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.collection().getNamespace(), requestCursor.collection().getNamespace())
-                && Objects.equals(poolCursor.filter(), requestCursor.filter())
-                && Objects.equals(poolCursor.sort(), requestCursor.sort())
-                && Objects.equals(poolCursor.keys(), requestCursor.keys())
-                && poolCursor.skipped() == requestCursor.skipped();
-    }
-
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterGte(
-            CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.collection().getNamespace(), requestCursor.collection().getNamespace())
-                && Objects.equals(poolCursor.filter(), requestCursor.filter())
-                && Objects.equals(poolCursor.sort(), requestCursor.sort())
-                && Objects.equals(poolCursor.keys(), requestCursor.keys())
-                && poolCursor.skipped() <= requestCursor.skipped()
-                && requestCursor.skipped() - poolCursor.skipped() <= MIN_SKIP_DISTANCE_PERCENTAGE * requestCursor.skipped();
+    /**
+     * the query shape, i.e. the key of the cursors that can be reused for a
+     * request, regardless of the skips
+     */
+    private record QueryShape(MongoNamespace namespace, BsonDocument filter, BsonDocument sort, BsonDocument keys, BsonDocument hint) {
+        static QueryShape of(CursorPoolEntryKey key) {
+            return new QueryShape(key.collection().getNamespace(), key.filter(), key.sort(), key.keys(), key.hint());
+        }
     }
 
-    private TreeMap<String, Long> getCacheSizes() {
-        return new TreeMap<>(cache.asMap()
-                .keySet()
-                .stream()
-                .collect(Collectors.groupingBy(CursorPoolEntryKey::getCacheStatsGroup, Collectors.counting())));
+    private record PooledCursor(FindIterable<BsonDocument> findIterable, long cursorId, long expiresAt) {
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
     }
 
     private static class DBCursorPoolSingletonHolder {
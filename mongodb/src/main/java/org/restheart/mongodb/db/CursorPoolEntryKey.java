@@ -46,10 +46,10 @@ public record CursorPoolEntryKey(
         return new CursorPoolEntryKey(
             key.session,
             key.collection,
+            key.sort,
             key.filter,
             key.keys,
             key.hint,
-            key.sort,
             key.skipped,
             key.cursorId);
     }
@@ -105,6 +105,26 @@ public class DAOUtils {
      */
     public final static FindOneAndReplaceOptions FOR_AFTER_NOT_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(false).returnDocument(ReturnDocument.AFTER);
 
+    /**
+     *
+     */
+    public final static FindOneAndUpdateOptions FOU_BEFORE_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndUpdateOptions FOU_BEFORE_NOT_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(false).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_NOT_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(false).returnDocument(ReturnDocument.BEFORE);
+
     /**
      *
      */
@@ -205,12 +225,11 @@ public class DAOUtils {
      * @param shardKeys
      * @param data
      * @param replace
-     * @param upsert if true then we will flatten any nested BsonDocuments
+     * @param deepPatching if true then we will flatten any nested BsonDocuments
      * into dot notation to ensure only the requested fields are updated.
-     * @param allowUpsert whether or not to allow upsert mode
-     * @return the new or old document depending on returnNew
+     * @param writeMode the write mode
+     * @return the OperationResult with the old and the new document
      */
-    @SuppressWarnings("rawtypes")
     public static OperationResult writeDocument(
         final ClientSession cs,
         final MongoCollection<BsonDocument> coll,
@@ -221,56 +240,87 @@ public class DAOUtils {
         final boolean replace,
         final boolean deepPatching,
         final WRITE_MODE writeMode) {
+        return writeDocument(
+            cs,
+            coll,
+            documentId,
+            filter,
+            shardKeys,
+            data,
+            replace,
+            deepPatching,
+            writeMode,
+            true);
+    }
+
+    /**
+     * Update a mongo document
+     *
+     * The write is a single round trip: the old document is returned by
+     * findOneAndReplace or findOneAndUpdate with ReturnDocument.BEFORE and the
+     * new document is the inserted or the replacement one. Only patching
+     * requires reading back the new document, and only if returnNew is true.
+     *
+     * @param cs the client session
+     * @param coll
+     * @param documentId use Optional.empty() to specify no documentId (null is
+     * _id: null)
+     * @param filter
+     * @param shardKeys
+     * @param data
+     * @param replace
+     * @param deepPatching if true then we will flatten any nested BsonDocuments
+     * into dot notation to ensure only the requested fields are updated.
+     * @param writeMode the write mode
+     * @param returnNew if false, the new document of a patch is not read back
+     * and the OperationResult's new data is null
+     * @return the OperationResult with the old and the new document
+     */
+    @SuppressWarnings("rawtypes")
+    public static OperationResult writeDocument(
+        final ClientSession cs,
+        final MongoCollection<BsonDocument> coll,
+        final Object documentId,
+        final BsonDocument filter,
+        final BsonDocument shardKeys,
+        final BsonDocument data,
+        final boolean replace,
+        final boolean deepPatching,
+        final WRITE_MODE writeMode,
+        final boolean returnNew) {
         Objects.requireNonNull(coll);
         Objects.requireNonNull(data);
         Objects.requireNonNull(writeMode);
 
-        Bson query;
+        Bson idQuery;
 
         var idPresent = true;
 
         if (documentId instanceof Optional && !((Optional) documentId).isPresent()) {
-            query = IMPOSSIBLE_CONDITION;
+            idQuery = IMPOSSIBLE_CONDITION;
             idPresent = false;
         } else {
-            query = eq("_id", documentId);
+            idQuery = eq("_id", documentId);
         }
 
         if (shardKeys != null) {
-            query = and(query, shardKeys);
-        }
-
-        if (filter != null && !filter.isEmpty()) {
-            query = and(query, filter);
+            idQuery = and(idQuery, shardKeys);
         }
 
-        BsonDocument oldDocument;
-
-        if (idPresent) {
-            oldDocument = cs == null ? coll.find(query).first() : coll.find(cs, query).first();
+        var query = filter != null && !filter.isEmpty() ? and(idQuery, filter) : idQuery;
 
-            // if document not exits and not-update request => fail request with 404
-            if (writeMode == WRITE_MODE.UPDATE && oldDocument == null) {
-                return new OperationResult(HttpStatus.SC_NOT_FOUND);
-            }
-        } else {
-            // if not-update, docId is mandatory
-            if (writeMode == WRITE_MODE.UPDATE) {
-                LOGGER.debug("write request with writeMode=update missing document id");
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST);
-            }
-
-            oldDocument = null;
+        // if not-update, docId is mandatory
+        if (!idPresent && writeMode == WRITE_MODE.UPDATE) {
+            LOGGER.debug("write request with writeMode=update missing document id");
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST);
         }
 
         if (writeMode == WRITE_MODE.INSERT) {
             // don't allow $ prefixed operators as key values
             if (BsonUtils.containsUpdateOperators(data, true)) {
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST, oldDocument);
+                return new OperationResult(HttpStatus.SC_BAD_REQUEST);
             }
 
-            BsonDocument newDocument;
-
             try {
                 resolveCurrentDateOperator(data);
 
@@ -278,52 +328,101 @@ public class DAOUtils {
                     ? coll.insertOne(data).getInsertedId()
                     : coll.insertOne(cs, data).getInsertedId();
 
-                var insertedQuery = eq("_id", insertedId);
-
-                if (shardKeys != null) {
-                    insertedQuery = and(insertedQuery, shardKeys);
+                // the inserted document is data, no need to read it back
+                if (!data.containsKey("_id") && insertedId != null) {
+                    data.put("_id", insertedId);
                 }
-
-                newDocument = cs == null ? coll.find(insertedQuery).first() : coll.find(cs, insertedQuery).first();
             } catch (IllegalArgumentException iae) {
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST, oldDocument, iae);
+                return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
             }
 
-            return new OperationResult(-1, oldDocument, newDocument);
+            return new OperationResult(-1, null, data);
         } else if (replace) {
-            BsonDocument newDocument;
-            try {
-                if (filter != null && !filter.isEmpty()) {
-                    query = and(query, filter);
-                }
+            BsonDocument replacement;
 
-                newDocument = cs == null
-                    ? coll.findOneAndReplace(query, getReplaceDocument(data),
-                        writeMode == WRITE_MODE.UPSERT ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS)
-                    : coll.findOneAndReplace(cs, query, getReplaceDocument(data),
-                        writeMode == WRITE_MODE.UPSERT ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS);
+            try {
+                replacement = getReplaceDocument(data);
             } catch (IllegalArgumentException iae) {
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST, oldDocument, iae);
+                return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
             }
 
-            return new OperationResult(-1, oldDocument, newDocument);
+            if (!idPresent) {
+                // upserting a new document: the old one is null and
+                // ReturnDocument.AFTER gives the _id generated by the server
+                var newDocument = cs == null
+                    ? coll.findOneAndReplace(query, replacement, FOR_AFTER_UPSERT_OPS)
+                    : coll.findOneAndReplace(cs, query, replacement, FOR_AFTER_UPSERT_OPS);
+
+                return new OperationResult(-1, null, newDocument);
+            }
+
+            var oldDocument = cs == null
+                ? coll.findOneAndReplace(query, replacement,
+                    writeMode == WRITE_MODE.UPSERT ? FOR_BEFORE_UPSERT_OPS : FOR_BEFORE_NOT_UPSERT_OPS)
+                : coll.findOneAndReplace(cs, query, replacement,
+                    writeMode == WRITE_MODE.UPSERT ? FOR_BEFORE_UPSERT_OPS : FOR_BEFORE_NOT_UPSERT_OPS);
+
+            // if document not exits and not-update request => fail request with 404
+            if (writeMode == WRITE_MODE.UPDATE && oldDocument == null) {
+                return new OperationResult(HttpStatus.SC_NOT_FOUND);
+            }
+
+            return new OperationResult(-1, oldDocument, withId(coll, replacement, documentId));
         } else {
-            BsonDocument newDocument;
+            BsonDocument update;
 
             try {
-                newDocument = cs == null
-                    ? coll.findOneAndUpdate(query, getUpdateDocument(data, deepPatching),
-                        writeMode == WRITE_MODE.UPSERT ? FAU_UPSERT_OPS : FAU_NOT_UPSERT_OPS)
-                    : coll.findOneAndUpdate(cs, query, getUpdateDocument(data, deepPatching),
-                        writeMode == WRITE_MODE.UPSERT ? FAU_UPSERT_OPS : FAU_NOT_UPSERT_OPS);
+                update = getUpdateDocument(data, deepPatching);
             } catch (IllegalArgumentException iae) {
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST, oldDocument, iae);
+                return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
+            }
+
+            if (!idPresent) {
+                var newDocument = cs == null
+                    ? coll.findOneAndUpdate(query, update, FAU_UPSERT_OPS)
+                    : coll.findOneAndUpdate(cs, query, update, FAU_UPSERT_OPS);
+
+                return new OperationResult(-1, null, newDocument);
+            }
+
+            var oldDocument = cs == null
+                ? coll.findOneAndUpdate(query, update,
+                    writeMode == WRITE_MODE.UPSERT ? FOU_BEFORE_UPSERT_OPS : FOU_BEFORE_NOT_UPSERT_OPS)
+                : coll.findOneAndUpdate(cs, query, update,
+                    writeMode == WRITE_MODE.UPSERT ? FOU_BEFORE_UPSERT_OPS : FOU_BEFORE_NOT_UPSERT_OPS);
+
+            // if document not exits and not-update request => fail request with 404
+            if (writeMode == WRITE_MODE.UPDATE && oldDocument == null) {
+                return new OperationResult(HttpStatus.SC_NOT_FOUND);
+            }
+
+            if (!returnNew) {
+                return new OperationResult(-1, oldDocument, (BsonDocument) null);
             }
 
+            // the result of the update operators is only known to the server;
+            // note that the filter might not match the updated document
+            var newDocument = cs == null ? coll.find(idQuery).first() : coll.find(cs, idQuery).first();
+
             return new OperationResult(-1, oldDocument, newDocument);
         }
     }
 
+    /**
+     * @return the replacement document with the _id of the replaced one, i.e.
+     * the new document, without reading it back
+     */
+    private static BsonDocument withId(final MongoCollection<BsonDocument> coll, final BsonDocument replacement, final Object documentId) {
+        if (replacement.containsKey("_id")) {
+            return replacement;
+        }
+
+        var ret = eq("_id", documentId).toBsonDocument(BsonDocument.class, coll.getCodecRegistry());
+        ret.putAll(replacement);
+
+        return ret;
+    }
+
     /**
      *
      * @param cs the client session
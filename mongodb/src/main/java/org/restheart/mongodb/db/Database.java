@@ -23,8 +23,10 @@ package org.restheart.mongodb.db;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import java.util.List;
+import java.util.Map;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
@@ -125,6 +127,52 @@ public interface Database {
             final BsonDocument keys,
             final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy);
 
+    /**
+     *
+     * @param cs the client session
+     * @param collection
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param cursorAllocationPolicy
+     * @return an open cursor positioned at the first document of the page;
+     * the caller must read at most pagesize documents and close it
+     */
+    MongoCursor<BsonDocument> getCollectionDataCursor(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> collection,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy);
+
+    /**
+     *
+     * @param cs the client session
+     * @param collection
+     * @param pagesize
+     * @param sortBy the keyset sort document
+     * @param filter the filters, including the keyset range predicate
+     * @param hint
+     * @param keys
+     * @return Collection Data as ArrayList of BsonDocument, using keyset
+     * pagination
+     */
+    BsonArray getCollectionDataAfter(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> collection,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys);
+
     /**
      *
      * @param cs the client session
@@ -137,6 +185,18 @@ public interface Database {
             final String dbName,
             final String collectionName);
 
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collectionNames the names of existing collections
+     * @return the properties of the collections, by collection name
+     */
+    Map<String, BsonDocument> getCollectionsProperties(
+            final ClientSession cs,
+            final String dbName,
+            final List<String> collectionNames);
+
     /**
      *
      * @param cs the client session
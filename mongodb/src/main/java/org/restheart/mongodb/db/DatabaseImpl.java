@@ -24,10 +24,12 @@ import com.mongodb.MongoClient;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import org.bson.BsonArray;
@@ -241,23 +243,26 @@ public class DatabaseImpl implements Database {
                         ? _colls.size()
                         : (page - 1) * pagesize + pagesize);
 
+        // load the properties of all the collections of the page at once
+        Map<String, BsonDocument> collsProperties;
+
+        if (MetadataCachesSingleton.isEnabled() && !noCache) {
+            collsProperties = MetadataCachesSingleton.getInstance()
+                    .getCollectionsProperties(dbName, _colls);
+        } else {
+            collsProperties = collectionDAO.getCollectionsProps(
+                    cs,
+                    dbName,
+                    _colls);
+        }
+
         var data = new BsonArray();
 
         _colls.stream().map((collName) -> {
             BsonDocument properties
                     = new BsonDocument("_id", new BsonString(collName));
 
-            BsonDocument collProperties;
-
-            if (MetadataCachesSingleton.isEnabled() && !noCache) {
-                collProperties = MetadataCachesSingleton.getInstance()
-                        .getCollectionProperties(dbName, collName);
-            } else {
-                collProperties = collectionDAO.getCollectionProps(
-                        cs,
-                        dbName,
-                        collName);
-            }
+            BsonDocument collProperties = collsProperties.get(collName);
 
             if (collProperties != null) {
                 properties.putAll(collProperties);
@@ -375,7 +380,9 @@ public class DatabaseImpl implements Database {
                 null,
                 dcontent,
                 false,
-                WRITE_MODE.UPSERT);
+                false,
+                WRITE_MODE.UPSERT,
+                false);
             return new OperationResult(ret.getHttpCode() > 0 ? ret.getHttpCode() : HttpStatus.SC_OK, newEtag);
         } else if (updating) {
             var ret = DAOUtils.writeDocument(
@@ -397,7 +404,9 @@ public class DatabaseImpl implements Database {
                 null,
                 dcontent,
                 false,
-                WRITE_MODE.UPSERT);
+                false,
+                WRITE_MODE.UPSERT,
+                false);
             return new OperationResult(ret.getHttpCode() > 0 ? ret.getHttpCode() : HttpStatus.SC_CREATED, newEtag);
         }
     }
@@ -458,6 +467,18 @@ public class DatabaseImpl implements Database {
         return collectionDAO.getCollectionProps(cs, dbName, collName);
     }
 
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collNames the names of existing collections
+     * @return the properties of the collections, by collection name
+     */
+    @Override
+    public Map<String, BsonDocument> getCollectionsProperties(final ClientSession cs, final String dbName, final List<String> collNames) {
+        return collectionDAO.getCollectionsProps(cs, dbName, collNames);
+    }
+
     /**
      *
      * @param dbName
@@ -574,6 +595,72 @@ public class DatabaseImpl implements Database {
             cursorAllocationPolicy);
     }
 
+    /**
+     *
+     * @param cs the client session
+     * @param coll
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param cursorAllocationPolicy
+     * @return
+     */
+    @Override
+    public MongoCursor<BsonDocument> getCollectionDataCursor(
+        final ClientSession cs,
+        final MongoCollection<BsonDocument> coll,
+        final int page,
+        final int pagesize,
+        final BsonDocument sortBy,
+        final BsonDocument filter,
+        final BsonDocument hint,
+        final BsonDocument keys,
+        final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy) {
+        return collectionDAO.getCollectionDataCursor(
+            cs,
+            coll,
+            page,
+            pagesize,
+            sortBy,
+            filter,
+            hint,
+            keys,
+            cursorAllocationPolicy);
+    }
+
+    /**
+     *
+     * @param cs the client session
+     * @param coll
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @return
+     */
+    @Override
+    public BsonArray getCollectionDataAfter(
+        final ClientSession cs,
+        final MongoCollection<BsonDocument> coll,
+        final int pagesize,
+        final BsonDocument sortBy,
+        final BsonDocument filter,
+        final BsonDocument hint,
+        final BsonDocument keys) {
+        return collectionDAO.getCollectionDataAfter(
+            cs,
+            coll,
+            pagesize,
+            sortBy,
+            filter,
+            hint,
+            keys);
+    }
+
     /**
      *
      * @param cs the client session
@@ -21,6 +21,7 @@
 package org.restheart.mongodb.db;
 
 import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
@@ -30,9 +31,12 @@ import static com.mongodb.client.model.Filters.eq;
 import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.WriteModel;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.bson.BsonArray;
+import org.bson.BsonBoolean;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
 import org.bson.BsonObjectId;
@@ -43,7 +47,9 @@ import org.bson.types.ObjectId;
 import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
 
 import static org.restheart.mongodb.db.DAOUtils.BAD_VALUE_KEY_ERROR;
+import static org.restheart.mongodb.db.DAOUtils.DUPLICATE_KEY_ERROR;
 import org.restheart.mongodb.utils.ResponseHelper;
+import org.restheart.utils.BsonUtils;
 import org.restheart.utils.HttpStatus;
 
 /**
@@ -98,6 +104,7 @@ public class DocumentDAO implements DocumentRepository {
      * @param patching
      * @param writeMode
      * @param checkEtag
+     * @param returnNew
      * @return the HttpStatus code
      */
     @Override
@@ -112,75 +119,62 @@ public class DocumentDAO implements DocumentRepository {
             final String requestEtag,
             final boolean patching,
             final WRITE_MODE writeMode,
-            final boolean checkEtag) {
+            final boolean checkEtag,
+            final boolean returnNew) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
-        // genereate new etag
-        ObjectId newEtag = new ObjectId();
-
-        final var content = DAOUtils.validContent(newContent);
+        try {
+            // genereate new etag
+            ObjectId newEtag = new ObjectId();
 
-        content.put("_etag", new BsonObjectId(newEtag));
+            final var content = DAOUtils.validContent(newContent);
 
-        var updateResult = DAOUtils.writeDocument(
-            cs,
-            mcoll,
-            documentId,
-            filter,
-            shardKeys,
-            content,
-            !patching,
-            writeMode);
+            content.put("_etag", new BsonObjectId(newEtag));
 
-        var oldDocument = updateResult.getOldData();
+            OperationResult updateResult;
 
-        if (patching) {
-            if (oldDocument == null) {
-                return new OperationResult(updateResult.getHttpCode() > 0 
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_CREATED, newEtag, null, updateResult.getNewData());
-            } else if (checkEtag) {
-                // check the old etag (in case restore the old document version)
-                return optimisticCheckEtag(
+            try {
+                // the etag check is part of the write filter
+                updateResult = DAOUtils.writeDocument(
                     cs,
                     mcoll,
+                    documentId,
+                    checkEtag ? etagFilter(filter, requestEtag) : filter,
                     shardKeys,
-                    oldDocument,
-                    newEtag,
-                    requestEtag,
-                    HttpStatus.SC_OK,
-                    false);
-            } else {
-                var query = eq("_id", documentId);
-                var newDocument = cs == null ? mcoll.find(query).first() : mcoll.find(cs, query).first();
+                    content,
+                    !patching,
+                    false,
+                    writeMode,
+                    returnNew);
+            } catch (MongoException me) {
+                var etagCheckFailure = checkEtag && me.getCode() == DUPLICATE_KEY_ERROR
+                    ? etagCheckFailure(cs, mcoll, documentId, filter, shardKeys, requestEtag)
+                    : null;
+
+                if (etagCheckFailure != null) {
+                    return etagCheckFailure;
+                } else {
+                    throw me;
+                }
+            }
+
+            if (checkEtag && updateResult.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                var etagCheckFailure = etagCheckFailure(cs, mcoll, documentId, filter, shardKeys, requestEtag);
 
-                return new OperationResult(updateResult.getHttpCode() > 0
-                        ? updateResult.getHttpCode()
-                        : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
+                if (etagCheckFailure != null) {
+                    return etagCheckFailure;
+                }
             }
-        } else if (oldDocument != null && checkEtag) { // upsertDocument
-            // check the old etag (in case restore the old document)
-            return optimisticCheckEtag(
-                cs,
-                mcoll,
-                shardKeys,
-                oldDocument,
-                newEtag,
-                requestEtag,
-                HttpStatus.SC_OK,
-                false);
-        } else if (oldDocument != null) {  // insert
-            var newDocument = mcoll.find(eq("_id", documentId)).first();
 
-            return new OperationResult(updateResult.getHttpCode() > 0
-                ? updateResult.getHttpCode()
-                : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
-        } else {
-            var newDocument = mcoll.find(eq("_id", documentId)).first();
+            var oldDocument = updateResult.getOldData();
 
             return new OperationResult(updateResult.getHttpCode() > 0
                 ? updateResult.getHttpCode()
-                : HttpStatus.SC_CREATED, newEtag, null, newDocument);
+                : oldDocument == null ? HttpStatus.SC_CREATED : HttpStatus.SC_OK,
+                newEtag, oldDocument, updateResult.getNewData());
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
         }
     }
 
@@ -194,6 +188,7 @@ public class DocumentDAO implements DocumentRepository {
      * @param writeMode
      * @param requestEtag
      * @param checkEtag
+     * @param returnNew
      * @return the OperationResult
      */
     @Override
@@ -206,67 +201,115 @@ public class DocumentDAO implements DocumentRepository {
         final BsonDocument content,
         final WRITE_MODE writeMode,
         final String requestEtag,
-        final boolean checkEtag) {
+        final boolean checkEtag,
+        final boolean returnNew) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
-        var newEtag = new ObjectId();
+        try {
+            var newEtag = new ObjectId();
 
-        final var _content = DAOUtils.validContent(content);
+            final var _content = DAOUtils.validContent(content);
 
-        _content.put("_etag", new BsonObjectId(newEtag));
+            _content.put("_etag", new BsonObjectId(newEtag));
 
-        Object documentId;
+            if (cs == null
+                && writeMode == WRITE_MODE.INSERT
+                && !_content.containsKey("_id")
+                && WriteCoalescer.getInstance().isEnabled()) {
+                return coalescedInsert(mcoll, _content, newEtag);
+            }
 
-        if (_content.containsKey("_id")) {
-            documentId = _content.get("_id");
-        } else {
-            // new document since the id is missing
-            // if update => error
-            if (writeMode == WRITE_MODE.UPDATE) {
-                return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, null, null);
+            Object documentId;
+
+            if (_content.containsKey("_id")) {
+                documentId = _content.get("_id");
             } else {
-                documentId = Optional.empty(); // key _id is not present
+                // new document since the id is missing
+                // if update => error
+                if (writeMode == WRITE_MODE.UPDATE) {
+                    return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, null, null);
+                } else {
+                    documentId = Optional.empty(); // key _id is not present
+                }
             }
-        }
 
-        var updateResult = DAOUtils.writeDocument(
-            cs,
-            mcoll,
-            documentId,
-            filter,
-            shardKeys,
-            _content,
-            true,
-            writeMode);
+            // a new document, without _id, has no etag to check
+            var _checkEtag = checkEtag && !(documentId instanceof Optional);
 
-        var oldDocument = updateResult.getOldData();
-        var newDocument = updateResult.getNewData();
+            OperationResult updateResult;
+
+            try {
+                // the etag check is part of the write filter
+                updateResult = DAOUtils.writeDocument(
+                    cs,
+                    mcoll,
+                    documentId,
+                    _checkEtag ? etagFilter(filter, requestEtag) : filter,
+                    shardKeys,
+                    _content,
+                    true,
+                    false,
+                    writeMode,
+                    returnNew);
+            } catch (MongoException me) {
+                var etagCheckFailure = _checkEtag && me.getCode() == DUPLICATE_KEY_ERROR
+                    ? etagCheckFailure(cs, mcoll, documentId, filter, shardKeys, requestEtag)
+                    : null;
+
+                if (etagCheckFailure != null) {
+                    return etagCheckFailure;
+                } else {
+                    throw me;
+                }
+            }
+
+            if (_checkEtag && updateResult.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                var etagCheckFailure = etagCheckFailure(cs, mcoll, documentId, filter, shardKeys, requestEtag);
+
+                if (etagCheckFailure != null) {
+                    return etagCheckFailure;
+                }
+            }
+
+            var oldDocument = updateResult.getOldData();
 
-        if (oldDocument == null) {
             return new OperationResult(updateResult.getHttpCode() > 0
                 ? updateResult.getHttpCode()
-                : HttpStatus.SC_CREATED,
+                : oldDocument == null ? HttpStatus.SC_CREATED : HttpStatus.SC_OK,
                 newEtag,
-                null,
-                newDocument,
-                updateResult.getCause());
-        } else if (checkEtag) {  // upsertDocument
-            // check the old etag (in case restore the old document version)
-            return optimisticCheckEtag(
-                cs,
-                mcoll,
-                shardKeys,
                 oldDocument,
-                newEtag,
-                requestEtag,
-                HttpStatus.SC_OK,
-                false);
-        } else {
-            return new OperationResult(updateResult.getHttpCode() > 0 ? updateResult.getHttpCode() : HttpStatus.SC_OK,
-                newEtag, oldDocument, newDocument, updateResult.getCause());
+                updateResult.getNewData(),
+                updateResult.getCause());
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
         }
     }
 
+    /**
+     * inserts a new document via the WriteCoalescer, i.e. with a bulk write
+     * shared with the concurrent inserts into the same collection. Since the
+     * _id is generated here, the inserted document is not read back.
+     */
+    private OperationResult coalescedInsert(MongoCollection<BsonDocument> mcoll, BsonDocument content, ObjectId newEtag) {
+        // don't allow $ prefixed operators as key values
+        if (BsonUtils.containsUpdateOperators(content, true)) {
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST, newEtag, null, null, null);
+        }
+
+        try {
+            DAOUtils.resolveCurrentDateOperator(content);
+        } catch (IllegalArgumentException iae) {
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST, newEtag, null, null, iae);
+        }
+
+        content.put("_id", new BsonObjectId());
+
+        WriteCoalescer.getInstance().insert(mcoll, content);
+
+        return new OperationResult(HttpStatus.SC_CREATED, newEtag, null, content);
+    }
+
     /**
      * @param cs the client session
      * @param dbName
@@ -287,24 +330,66 @@ public class DocumentDAO implements DocumentRepository {
         final WRITE_MODE writeMode) {
         Objects.requireNonNull(documents);
 
-        var mcoll = collectionDAO.getCollection(dbName, collName);
-
-        var newEtag = new BsonObjectId(new ObjectId());
-
-        documents
-            .stream()
-            .filter(d -> d != null && d.isDocument())
-            .forEachOrdered(document -> document.asDocument().put("_etag", newEtag));
-
-        return DAOUtils.bulkWriteDocuments(
+        return bulkPostDocuments(
             cs,
-            mcoll,
-            documents,
+            dbName,
+            collName,
+            documents.stream()
+                .filter(d -> d != null && d.isDocument())
+                .map(d -> d.asDocument())
+                .iterator(),
             filter,
             shardKeys,
             writeMode);
     }
 
+    /**
+     * writes the documents as chunks of unordered bulk writes, see
+     * ChunkedBulkWriter
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collName
+     * @param documents
+     * @param shardKeys
+     * @param writeMode
+     * @return the BulkOperationResult
+     */
+    @Override
+    public BulkOperationResult bulkPostDocuments(
+        final ClientSession cs,
+        final String dbName,
+        final String collName,
+        final Iterator<BsonDocument> documents,
+        final BsonDocument filter,
+        final BsonDocument shardKeys,
+        final WRITE_MODE writeMode) {
+        Objects.requireNonNull(documents);
+
+        var mcoll = collectionDAO.getCollection(dbName, collName);
+
+        try {
+            var newEtag = new ObjectId();
+
+            var result = ChunkedBulkWriter.getInstance().write(
+                cs,
+                mcoll,
+                documents,
+                chunk -> DAOUtils.getBulkWriteModel(
+                    mcoll,
+                    new BsonArray(chunk),
+                    filter,
+                    shardKeys,
+                    newEtag,
+                    writeMode));
+
+            return new BulkOperationResult(HttpStatus.SC_OK, newEtag, result);
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
+        }
+    }
+
     /**
      * @param cs the client session
      * @param dbName
@@ -324,28 +409,33 @@ public class DocumentDAO implements DocumentRepository {
         final BsonDocument data) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
-        var patches = new ArrayList<WriteModel<BsonDocument>>();
+        try {
+            var patches = new ArrayList<WriteModel<BsonDocument>>();
 
-        Bson _filter;
+            Bson _filter;
 
-        if (shardedKeys != null) {
-            _filter = and(filter, shardedKeys);
-        } else {
-            _filter = filter;
-        }
-
-        patches.add(new UpdateManyModel<>(_filter, DAOUtils.getUpdateDocument(data), DAOUtils.U_NOT_UPSERT_OPS));
+            if (shardedKeys != null) {
+                _filter = and(filter, shardedKeys);
+            } else {
+                _filter = filter;
+            }
 
-        try {
-            var result = cs == null ? mcoll.bulkWrite(patches) : mcoll.bulkWrite(cs, patches);
-            return new BulkOperationResult(HttpStatus.SC_OK, null, result);
-        } catch (MongoBulkWriteException mce) {
-            switch (mce.getCode()) {
-                case BAD_VALUE_KEY_ERROR:
-                    return new BulkOperationResult(ResponseHelper.getHttpStatusFromErrorCode(mce.getCode()), null, null);
-                default:
-                    throw mce;
+            patches.add(new UpdateManyModel<>(_filter, DAOUtils.getUpdateDocument(data), DAOUtils.U_NOT_UPSERT_OPS));
+
+            try {
+                var result = cs == null ? mcoll.bulkWrite(patches) : mcoll.bulkWrite(cs, patches);
+                return new BulkOperationResult(HttpStatus.SC_OK, null, result);
+            } catch (MongoBulkWriteException mce) {
+                switch (mce.getCode()) {
+                    case BAD_VALUE_KEY_ERROR:
+                        return new BulkOperationResult(ResponseHelper.getHttpStatusFromErrorCode(mce.getCode()), null, null);
+                    default:
+                        throw mce;
+                }
             }
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
         }
     }
 
@@ -374,24 +464,26 @@ public class DocumentDAO implements DocumentRepository {
     ) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
-        var oldDocument = cs == null
-                ? mcoll.findOneAndDelete(getIdFilter(documentId, filter, shardedKeys))
-                : mcoll.findOneAndDelete(cs,getIdFilter(documentId, filter, shardedKeys));
+        try {
+            // the etag check is part of the delete filter
+            var query = getIdFilter(documentId, checkEtag ? etagFilter(filter, requestEtag) : filter, shardedKeys);
 
-        if (oldDocument == null) {
-            return new OperationResult(HttpStatus.SC_NOT_FOUND);
-        } else if (checkEtag) {
-            // check the old etag (in case restore the old document version)
-            return optimisticCheckEtag(
-                cs,
-                mcoll,
-                null,
-                oldDocument,
-                null,
-                requestEtag,
-                HttpStatus.SC_NO_CONTENT, true);
-        } else {
-            return new OperationResult(HttpStatus.SC_NO_CONTENT, oldDocument);
+            var oldDocument = cs == null
+                    ? mcoll.findOneAndDelete(query)
+                    : mcoll.findOneAndDelete(cs, query);
+
+            if (oldDocument == null) {
+                var etagCheckFailure = checkEtag
+                    ? etagCheckFailure(cs, mcoll, documentId, filter, shardedKeys, requestEtag)
+                    : null;
+
+                return etagCheckFailure != null ? etagCheckFailure : new OperationResult(HttpStatus.SC_NOT_FOUND);
+            } else {
+                return new OperationResult(HttpStatus.SC_NO_CONTENT, oldDocument);
+            }
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
         }
     }
 
@@ -430,107 +522,87 @@ public class DocumentDAO implements DocumentRepository {
         final BsonDocument shardedKeys) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
-        var deletes = new ArrayList<WriteModel<BsonDocument>>();
-
-        Bson _filter;
-
-        if (shardedKeys != null) {
-            _filter = and(filter, shardedKeys);
-        } else {
-            _filter = filter;
-        }
-
-        deletes.add(new DeleteManyModel<>(_filter));
-
-        BulkWriteResult result = cs == null ? mcoll.bulkWrite(deletes) : mcoll.bulkWrite(cs, deletes);
+        try {
+            var deletes = new ArrayList<WriteModel<BsonDocument>>();
 
-        return new BulkOperationResult(HttpStatus.SC_OK, null, result);
-    }
+            Bson _filter;
 
-    private OperationResult optimisticCheckEtag(
-        final ClientSession cs,
-        final MongoCollection<BsonDocument> coll,
-        final BsonDocument shardKeys,
-        final BsonDocument oldDocument,
-        final Object newEtag,
-        final String requestEtag,
-        final int httpStatusIfOk,
-        final boolean deleting
-    ) {
-        var oldEtag = oldDocument.get("_etag");
-
-        if (oldEtag != null && requestEtag == null) {
-            // oopps, we need to restore old document
-            // they call it optimistic lock strategy
-            if (deleting) {
-                DAOUtils.writeDocument(
-                    cs,
-                    coll,
-                    oldDocument.get("_id"),
-                    null,
-                    shardKeys,
-                    oldDocument,
-                    true,
-                    WRITE_MODE.UPSERT);
+            if (shardedKeys != null) {
+                _filter = and(filter, shardedKeys);
             } else {
-                DAOUtils.restoreDocument(
-                    cs,
-                    coll,
-                    oldDocument.get("_id"),
-                    shardKeys,
-                    oldDocument,
-                    newEtag,
-                    "_etag");
+                _filter = filter;
             }
 
-            return new OperationResult(HttpStatus.SC_CONFLICT, oldEtag, oldDocument, null);
+            deletes.add(new DeleteManyModel<>(_filter));
+
+            BulkWriteResult result = cs == null ? mcoll.bulkWrite(deletes) : mcoll.bulkWrite(cs, deletes);
+
+            return new BulkOperationResult(HttpStatus.SC_OK, null, result);
+        } finally {
+            // write-through invalidation of the cached GET responses
+            ResponseCache.getInstance().invalidate(mcoll.getNamespace());
         }
+    }
 
-        BsonValue _requestEtag;
+    /**
+     * @return the filter that matches the document only if its etag is the
+     * request etag or, if the request has no etag, only if the document has
+     * no etag as well
+     */
+    private static BsonDocument etagFilter(final BsonDocument filter, final String requestEtag) {
+        var etagCondition = requestEtag == null
+            ? new BsonDocument("_etag", new BsonDocument("$exists", BsonBoolean.FALSE))
+            : new BsonDocument("_etag", etagValue(requestEtag));
+
+        return filter == null || filter.isEmpty()
+            ? etagCondition
+            : new BsonDocument("$and", new BsonArray(List.of(filter, etagCondition)));
+    }
 
+    private static BsonValue etagValue(final String requestEtag) {
         if (ObjectId.isValid(requestEtag)) {
-            _requestEtag = new BsonObjectId(new ObjectId(requestEtag));
+            return new BsonObjectId(new ObjectId(requestEtag));
         } else {
             // restheart generates ObjectId etags, but here we support
             // strings as well
-            _requestEtag = new BsonString(requestEtag);
+            return new BsonString(requestEtag);
         }
+    }
 
-        if (Objects.equals(_requestEtag, oldEtag)) {
-            var query = eq("_id", oldDocument.get("_id"));
+    /**
+     * Called when a write whose filter includes the etag condition did not
+     * match, only this failure path reads the document to tell an etag
+     * mismatch from a missing document.
+     *
+     * @return the OperationResult with SC_CONFLICT if the etag is required but
+     * missing, SC_PRECONDITION_FAILED if it does not match, null if the write
+     * did not fail due to the etag
+     */
+    private OperationResult etagCheckFailure(
+        final ClientSession cs,
+        final MongoCollection<BsonDocument> coll,
+        final Object documentId,
+        final BsonDocument filter,
+        final BsonDocument shardKeys,
+        final String requestEtag
+    ) {
+        var query = getIdFilter(documentId, filter, shardKeys);
 
-            BsonDocument newDocument = cs == null ? coll.find(query).first() : coll.find(cs, query).first();
+        var oldDocument = cs == null ? coll.find(query).first() : coll.find(cs, query).first();
 
-            return new OperationResult(httpStatusIfOk, newEtag, oldDocument, newDocument);
-        } else {
-            // oopps, we need to restore old document
-            // they call it optimistic lock strategy
-            if (deleting) {
-                DAOUtils.writeDocument(
-                    cs,
-                    coll,
-                    oldDocument.get("_id"),
-                    shardKeys,
-                    null,
-                    oldDocument,
-                    true,
-                    WRITE_MODE.UPSERT);
-            } else {
-                DAOUtils.restoreDocument(
-                    cs,
-                    coll,
-                    oldDocument.get("_id"),
-                    shardKeys,
-                    oldDocument,
-                    newEtag,
-                    "_etag");
-            }
+        if (oldDocument == null) {
+            return null;
+        }
 
-            return new OperationResult(
-                HttpStatus.SC_PRECONDITION_FAILED,
-                oldEtag,
-                oldDocument,
-                null);
+        var oldEtag = oldDocument.get("_etag");
+
+        if (requestEtag == null) {
+            // the etag is required
+            return oldEtag == null ? null : new OperationResult(HttpStatus.SC_CONFLICT, oldEtag, oldDocument, null);
+        } else if (Objects.equals(etagValue(requestEtag), oldEtag)) {
+            return null;
+        } else {
+            return new OperationResult(HttpStatus.SC_PRECONDITION_FAILED, oldEtag, oldDocument, null);
         }
     }
 }
@@ -21,6 +21,7 @@
 package org.restheart.mongodb.db;
 
 import com.mongodb.client.ClientSession;
+import java.util.Iterator;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
@@ -45,6 +46,38 @@ public interface DocumentRepository {
      * @param checkEtag
      * @return the OperationResult
      */
+    default OperationResult writeDocument(
+            final ClientSession cs,
+            final String dbName,
+            final String collName,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardedKeys,
+            final BsonDocument content,
+            final String requestEtag,
+            final boolean patching,
+            final WRITE_MODE writeMode,
+            final boolean checkEtag) {
+        return writeDocument(cs, dbName, collName, documentId, filter, shardedKeys, content, requestEtag, patching, writeMode, checkEtag, true);
+    }
+
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @param filter
+     * @param shardedKeys
+     * @param content
+     * @param requestEtag
+     * @param patching
+     * @param writeMode
+     * @param checkEtag
+     * @param returnNew if false, the new document is not read back from the db
+     * and the OperationResult's new data can be null
+     * @return the OperationResult
+     */
     OperationResult writeDocument(
             final ClientSession cs,
             final String dbName,
@@ -56,7 +89,34 @@ public interface DocumentRepository {
             final String requestEtag,
             final boolean patching,
             final WRITE_MODE writeMode,
-            final boolean checkEtag);
+            final boolean checkEtag,
+            final boolean returnNew);
+
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collName
+     * @param filter
+     * @param shardedKeys
+     * @param content
+     * @param writeMode
+     * @param requestEtag
+     * @param checkEtag
+     * @return the OperationResult
+     */
+    default OperationResult writeDocumentPost(
+            final ClientSession cs,
+            final String dbName,
+            final String collName,
+            final BsonDocument filter,
+            final BsonDocument shardedKeys,
+            final BsonDocument content,
+            final WRITE_MODE writeMode,
+            final String requestEtag,
+            final boolean checkEtag) {
+        return writeDocumentPost(cs, dbName, collName, filter, shardedKeys, content, writeMode, requestEtag, checkEtag, true);
+    }
 
     /**
      *
@@ -69,6 +129,8 @@ public interface DocumentRepository {
      * @param writeMode
      * @param requestEtag
      * @param checkEtag
+     * @param returnNew if false, the new document is not read back from the db
+     * and the OperationResult's new data can be null
      * @return the OperationResult
      */
     OperationResult writeDocumentPost(
@@ -80,7 +142,8 @@ public interface DocumentRepository {
             final BsonDocument content,
             final WRITE_MODE writeMode,
             final String requestEtag,
-            final boolean checkEtag);
+            final boolean checkEtag,
+            final boolean returnNew);
 
     /**
      *
@@ -123,6 +186,27 @@ public interface DocumentRepository {
             final BsonDocument shardKeys,
             final WRITE_MODE writeMode);
 
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collName
+     * @param documents the documents, e.g. parsed incrementally from the
+     * request content
+     * @param filter
+     * @param shardKeys
+     * @param writeMode
+     * @return the BulkOperationResult
+     */
+    BulkOperationResult bulkPostDocuments(
+            final ClientSession cs,
+            final String dbName,
+            final String collName,
+            final Iterator<BsonDocument> documents,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final WRITE_MODE writeMode);
+
     /**
      *
      * @param cs the client session
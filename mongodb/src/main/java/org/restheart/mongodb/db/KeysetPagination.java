@@ -0,0 +1,227 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.Base64;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+/**
+ * Helper for keyset (seek) pagination of collection GETs.
+ *
+ * Rather than skipping the documents of the previous pages, the next page is
+ * selected with a range predicate on the sort keys, starting after the last
+ * document of the previous page; the cost of reading a page does not depend on
+ * how deep it is, given an index that supports the sort.
+ *
+ * The position is passed between requests as an opaque continuation token
+ * that encodes the sort document and the sort key values of the last returned
+ * document. The token comes from the client, so its values are checked not to
+ * contain query operators and the range predicate is added to the request
+ * filters, to be checked as any other filter by the security interceptors;
+ * for this reason, with count=true the size counts the documents following
+ * the token.
+ *
+ * Limitations: the sort keys must be present in the returned documents (i.e.
+ * not excluded by the keys projection), must not be arrays and should have a
+ * consistent type across the collection, since range operators only match
+ * values of the same BSON type.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class KeysetPagination {
+    private static final String SORT = "s";
+    private static final String VALUES = "v";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Returns the sort document to use with keyset pagination: directions are
+     * normalized to 1 or -1 and _id is appended as tie breaker, so that
+     * the order is total.
+     *
+     * @param sortBy the requested sort document
+     * @return the keyset sort document
+     * @throws IllegalArgumentException if the sort document contains non
+     * numeric directions, e.g. {$meta: "textScore"}
+     */
+    public static BsonDocument sortDocument(BsonDocument sortBy) {
+        var ret = new BsonDocument();
+
+        sortBy.forEach((key, direction) -> {
+            if (!direction.isNumber()) {
+                throw new IllegalArgumentException("keyset pagination requires sort_by on fields, cannot sort by " + key);
+            }
+
+            ret.put(key, new BsonInt32(direction.asNumber().doubleValue() < 0 ? -1 : 1));
+        });
+
+        if (!ret.containsKey("_id")) {
+            ret.put("_id", new BsonInt32(1));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the sort key values of the document.
+     *
+     * @param sort the keyset sort document
+     * @param doc the document
+     * @return the values of the sort keys, or null if any of them is missing
+     * or is inside an array
+     */
+    public static BsonArray sortKeyValues(BsonDocument sort, BsonDocument doc) {
+        var ret = new BsonArray();
+
+        for (var key : sort.keySet()) {
+            var value = get(doc, key);
+
+            if (value == null || value.isArray()) {
+                return null;
+            }
+
+            ret.add(value);
+        }
+
+        return ret;
+    }
+
+    private static BsonValue get(BsonDocument doc, String path) {
+        BsonValue current = doc;
+
+        for (var token : path.split("\\.")) {
+            if (current == null || !current.isDocument()) {
+                return null;
+            }
+
+            current = current.asDocument().get(token);
+        }
+
+        return current;
+    }
+
+    /**
+     * Encodes the continuation token
+     *
+     * @param sort the keyset sort document
+     * @param values the sort key values of the last document of the page
+     * @return the continuation token
+     */
+    public static String encode(BsonDocument sort, BsonArray values) {
+        var token = new BsonDocument(SORT, sort).append(VALUES, values);
+        var buf = new RawBsonDocument(token, new BsonDocumentCodec()).getByteBuffer();
+        var bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Decodes the continuation token
+     *
+     * @param token the continuation token
+     * @param sort the keyset sort document of the request
+     * @return the sort key values of the last document of the previous page
+     * @throws IllegalArgumentException if the token is malformed, was issued
+     * for a different sort or its values contain query operators
+     */
+    public static BsonArray decode(String token, BsonDocument sort) {
+        BsonDocument decoded;
+
+        try {
+            decoded = new RawBsonDocument(Base64.getUrlDecoder().decode(token)).decode(new BsonDocumentCodec());
+        } catch (RuntimeException re) {
+            throw new IllegalArgumentException("invalid continuation token", re);
+        }
+
+        var _sort = decoded.get(SORT);
+        var values = decoded.get(VALUES);
+
+        if (_sort == null || values == null || !values.isArray() || values.asArray().size() != sort.size()) {
+            throw new IllegalArgumentException("invalid continuation token");
+        }
+
+        if (!sort.equals(_sort)) {
+            throw new IllegalArgumentException("the continuation token was issued for a different sort_by");
+        }
+
+        for (var value : values.asArray()) {
+            if (value.isArray() || containsOperators(value)) {
+                throw new IllegalArgumentException("invalid continuation token");
+            }
+        }
+
+        return values.asArray();
+    }
+
+    /**
+     * @return true if value is, or contains, a document with $ prefixed keys
+     */
+    private static boolean containsOperators(BsonValue value) {
+        if (value.isDocument()) {
+            return value.asDocument().entrySet().stream()
+                    .anyMatch(e -> e.getKey().startsWith("$") || containsOperators(e.getValue()));
+        } else if (value.isArray()) {
+            return value.asArray().stream().anyMatch(KeysetPagination::containsOperators);
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the range predicate that selects the documents following the
+     * given sort key values, i.e. for sort {a:1, b:-1, _id:1}
+     *
+     * {$or: [ {a:{$gt:va}}, {a:{$eq:va}, b:{$lt:vb}}, {a:{$eq:va}, b:{$eq:vb}, _id:{$gt:vid}} ]}
+     *
+     * @param sort the keyset sort document
+     * @param after the sort key values of the last document of the previous
+     * page
+     * @return the range predicate
+     */
+    public static BsonDocument rangeFilter(BsonDocument sort, BsonArray after) {
+        var keys = sort.keySet().toArray(new String[sort.size()]);
+        var or = new BsonArray();
+
+        for (int i = 0; i < keys.length; i++) {
+            var clause = new BsonDocument();
+
+            for (int j = 0; j < i; j++) {
+                clause.put(keys[j], new BsonDocument("$eq", after.get(j)));
+            }
+
+            var op = sort.get(keys[i]).asNumber().intValue() < 0 ? "$lt" : "$gt";
+            clause.put(keys[i], new BsonDocument(op, after.get(i)));
+
+            or.add(clause);
+        }
+
+        return or.size() == 1
+                ? or.get(0).asDocument()
+                : new BsonDocument("$or", or);
+    }
+}
@@ -0,0 +1,66 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import java.util.List;
+
+/**
+ * Thrown by ChunkedBulkWriter when reading the documents fails, e.g. for
+ * invalid json, after some chunks have been written. The cause is the
+ * reading error; the result and the write errors are the ones of the chunks
+ * written before it, that are not rolled back.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class PartialBulkWriteException extends RuntimeException {
+    private static final long serialVersionUID = -2390477136591258412L;
+
+    private final transient BulkWriteResult writeResult;
+    private final transient List<BulkWriteError> writeErrors;
+
+    /**
+     *
+     * @param cause the error reading the documents
+     * @param writeResult the aggregated result of the written chunks
+     * @param writeErrors the write errors of the written chunks
+     */
+    public PartialBulkWriteException(RuntimeException cause, BulkWriteResult writeResult, List<BulkWriteError> writeErrors) {
+        super(cause.getMessage(), cause);
+        this.writeResult = writeResult;
+        this.writeErrors = writeErrors;
+    }
+
+    /**
+     * @return the aggregated result of the chunks written before the error
+     */
+    public BulkWriteResult getWriteResult() {
+        return writeResult;
+    }
+
+    /**
+     * @return the write errors of the chunks written before the error
+     */
+    public List<BulkWriteError> getWriteErrors() {
+        return writeErrors;
+    }
+}
@@ -0,0 +1,307 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.codahale.metrics.Counter;
+import com.mongodb.MongoNamespace;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import static org.restheart.exchange.ExchangeKeys.RESPONSE_CACHE_MAX_STALENESS_METADATA_KEY;
+import org.restheart.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
+import org.restheart.security.MongoPermissions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The cache of the serialized responses of GET /db/coll requests.
+ *
+ * Entries are keyed by the namespace and the normalized query, that includes
+ * the ACL readFilter (merged into the filter) and projectResponse, the
+ * representation format and the json mode. The total size of the entries is
+ * bound by response-cache-max-size.
+ *
+ * Writes invalidate the entries of the namespace just by incrementing its
+ * generation: entries of older generations are never returned. Since the
+ * generation is read before querying the db, a response computed while a
+ * write is executed is not cached. The generations are tracked also when the
+ * cache is disabled, since the AggregationCache relies on them.
+ *
+ * Hits and misses are published in the default metrics registry as
+ * response-cache.hits and response-cache.misses.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ResponseCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+    /**
+     * the key of a cached response
+     */
+    public record Key(MongoNamespace namespace,
+            BsonDocument filter,
+            BsonDocument sort,
+            BsonDocument keys,
+            BsonDocument hint,
+            int page,
+            int pagesize,
+            boolean count,
+            REPRESENTATION_FORMAT representationFormat,
+            JsonMode jsonMode,
+            BsonDocument projectResponse,
+            String uri) {
+    }
+
+    /**
+     * a cached response
+     */
+    public record Entry(byte[] content, String contentType, String etag, long generation, long expiresAt) {
+    }
+
+    private final boolean enabled;
+    private final long ttl;
+    private final int maxEntrySize;
+
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentHashMap<MongoNamespace, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private ResponseCache() {
+        this(MongoServiceConfiguration.get() != null && MongoServiceConfiguration.get().isResponseCacheEnabled()
+                    ? MongoServiceConfiguration.get().getResponseCacheMaxSize()
+                    : 0,
+            MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getResponseCacheTtl()
+                    : 0);
+    }
+
+    /**
+     * @param maxSize the maximum size of the cached responses in bytes, 0 to
+     * disable the cache
+     * @param ttl the time to live of the cached responses in milliseconds
+     */
+    ResponseCache(long maxSize, long ttl) {
+        this.enabled = maxSize > 0;
+        this.ttl = ttl;
+        // an entry cannot take more than 1/16 of the cache
+        this.maxEntrySize = (int) Math.min(Integer.MAX_VALUE, maxSize / 16);
+
+        if (enabled) {
+            this.cache = CacheFactory.createLocalWeightedCache(maxSize,
+                    (Key key, Entry entry) -> entry.content().length,
+                    Cache.EXPIRE_POLICY.AFTER_WRITE,
+                    ttl);
+        } else {
+            this.cache = null;
+        }
+
+        var registry = new SharedMetricRegistryProxy().registry();
+        this.hits = registry.counter("response-cache.hits");
+        this.misses = registry.counter("response-cache.misses");
+    }
+
+    /**
+     *
+     * @return the ResponseCache
+     */
+    public static ResponseCache getInstance() {
+        return ResponseCacheHolder.INSTANCE;
+    }
+
+    private static class ResponseCacheHolder {
+        private static final ResponseCache INSTANCE = new ResponseCache();
+    }
+
+    /**
+     *
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     *
+     * @return the maximum size of a cached response
+     */
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * @param request
+     * @return the key of the request
+     */
+    public static Key key(MongoRequest request) {
+        var permissions = MongoPermissions.of(request);
+        var rep = request.getRepresentationFormat();
+
+        // the HAL representation contains links built from the request uri
+        var uri = rep == null || rep == REPRESENTATION_FORMAT.STANDARD || rep == REPRESENTATION_FORMAT.S
+                ? null
+                : request.getExchange().getRequestURI() + "?" + request.getExchange().getQueryString();
+
+        return new Key(new MongoNamespace(request.getDBName(), request.getCollectionName()),
+                request.getFiltersDocument(),
+                request.getSortByDocument(),
+                request.getProjectionDocument(),
+                request.getHintDocument(),
+                request.getPage(),
+                request.getPagesize(),
+                request.isCount(),
+                rep,
+                request.getJsonMode(),
+                permissions == null ? null : permissions.getProjectResponse(),
+                uri);
+    }
+
+    /**
+     * @param collectionProps the collection metadata
+     * @return the maximum staleness of the cached responses of the collection,
+     * 0 if its responses must not be cached
+     */
+    public long maxStaleness(BsonDocument collectionProps) {
+        var maxStaleness = collectionProps == null ? null : collectionProps.get(RESPONSE_CACHE_MAX_STALENESS_METADATA_KEY);
+
+        if (maxStaleness != null && maxStaleness.isNumber()) {
+            var value = maxStaleness.asNumber().longValue();
+            return ttl > 0 ? Math.max(0, Math.min(value, ttl)) : Math.max(0, value);
+        } else {
+            return ttl > 0 ? ttl : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @param namespace
+     * @return the current generation of the namespace, to pass to put()
+     */
+    public long generation(MongoNamespace namespace) {
+        return generations.computeIfAbsent(namespace, ns -> new AtomicLong()).get();
+    }
+
+    /**
+     *
+     * @param key
+     * @return the cached response, if present and not invalidated
+     */
+    public Optional<Entry> get(Key key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        var _entry = cache.get(key);
+
+        if (_entry != null && _entry.isPresent()) {
+            var entry = _entry.get();
+
+            if (entry.generation() == generation(key.namespace()) && entry.expiresAt() > System.currentTimeMillis()) {
+                hits.inc();
+                return Optional.of(entry);
+            }
+
+            cache.invalidate(key);
+        }
+
+        misses.inc();
+        return Optional.empty();
+    }
+
+    /**
+     * caches the response, unless the namespace has been invalidated after
+     * reading its generation
+     *
+     * @param key
+     * @param content the serialized response
+     * @param contentType the content type of the response
+     * @param etag the ETag header of the response, can be null
+     * @param generation the generation of the namespace read before querying
+     * the db
+     * @param maxStaleness the milliseconds the response can be cached for
+     */
+    public void put(Key key, byte[] content, String contentType, String etag, long generation, long maxStaleness) {
+        if (!enabled || maxStaleness <= 0 || generation != generation(key.namespace())) {
+            return;
+        }
+
+        var now = System.currentTimeMillis();
+        var expiresAt = Long.MAX_VALUE - now > maxStaleness ? now + maxStaleness : Long.MAX_VALUE;
+
+        cache.put(key, new Entry(content, contentType, etag, generation, expiresAt));
+
+        // a write might have happened in the meantime
+        if (generation != generation(key.namespace())) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * invalidates the cached responses of the collection
+     *
+     * @param dbName
+     * @param collName
+     */
+    public void invalidate(String dbName, String collName) {
+        invalidate(new MongoNamespace(dbName, collName));
+    }
+
+    /**
+     * invalidates the cached responses of the collection
+     *
+     * @param namespace
+     */
+    public void invalidate(MongoNamespace namespace) {
+        LOGGER.trace("invalidating the cached responses of {}", namespace);
+        generations.computeIfAbsent(namespace, ns -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * invalidates the cached responses of all the collections of the db
+     *
+     * @param dbName
+     */
+    public void invalidateDb(String dbName) {
+        generations.forEach((ns, generation) -> {
+            if (ns.getDatabaseName().equals(dbName)) {
+                generation.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * invalidates all the cached responses
+     */
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+
+        if (enabled) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoWriteException;
+import com.mongodb.WriteError;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.bson.BsonDocument;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ * Coalesces concurrent inserts into the same collection in a single unordered
+ * bulk write (group commit).
+ *
+ * The first insert of a batch waits up to the linger time for other inserts,
+ * or until the batch reaches the maximum size, and then writes the whole
+ * batch; every insert returns (or throws its own write error) only when the
+ * batch has been written.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class WriteCoalescer {
+    private record Pending(BsonDocument document, CompletableFuture<Void> result) {
+    }
+
+    private static class Batch {
+        private final List<Pending> pendings = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+    }
+
+    private final long linger;
+    private final int maxBatchSize;
+
+    // the batches waiting for inserts, guarded by itself
+    private final Map<MongoNamespace, Batch> batches = new HashMap<>();
+
+    private WriteCoalescer() {
+        this(MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getWriteCoalescingLinger()
+                    : 0,
+            MongoServiceConfiguration.get() != null
+                    ? MongoServiceConfiguration.get().getWriteCoalescingMaxBatchSize()
+                    : 1);
+    }
+
+    /**
+     * @param linger the milliseconds an insert waits for others, 0 to disable
+     * coalescing
+     * @param maxBatchSize the maximum number of inserts of a batch
+     */
+    WriteCoalescer(long linger, int maxBatchSize) {
+        this.linger = linger;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     *
+     * @return the WriteCoalescer
+     */
+    public static WriteCoalescer getInstance() {
+        return WriteCoalescerHolder.INSTANCE;
+    }
+
+    private static class WriteCoalescerHolder {
+        private static final WriteCoalescer INSTANCE = new WriteCoalescer();
+    }
+
+    /**
+     *
+     * @return true if coalescing is enabled
+     */
+    public boolean isEnabled() {
+        return linger > 0;
+    }
+
+    /**
+     * inserts the document, together with the other documents inserted
+     * concurrently into the same collection; blocks until it is written
+     *
+     * @param coll the collection
+     * @param document the document to insert, it must have the _id
+     * @throws MongoWriteException if the document cannot be inserted, e.g. for
+     * a duplicate key
+     */
+    public void insert(MongoCollection<BsonDocument> coll, BsonDocument document) {
+        var namespace = coll.getNamespace();
+        var pending = new Pending(document, new CompletableFuture<>());
+
+        Batch batch;
+        boolean leader;
+
+        synchronized (batches) {
+            batch = batches.get(namespace);
+            leader = batch == null;
+
+            if (leader) {
+                batch = new Batch();
+                batches.put(namespace, batch);
+            }
+
+            batch.pendings.add(pending);
+
+            if (batch.pendings.size() >= maxBatchSize) {
+                // the next insert starts a new batch
+                batches.remove(namespace);
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) {
+            try {
+                batch.full.await(linger, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+
+            List<Pending> pendings;
+
+            synchronized (batches) {
+                batches.remove(namespace, batch);
+                pendings = List.copyOf(batch.pendings);
+            }
+
+            write(coll, pendings);
+        }
+
+        try {
+            pending.result().join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw ce;
+            }
+        }
+    }
+
+    private void write(MongoCollection<BsonDocument> coll, List<Pending> pendings) {
+        try {
+            coll.bulkWrite(pendings.stream()
+                    .map(p -> new InsertOneModel<>(p.document()))
+                    .collect(Collectors.toList()),
+                    new BulkWriteOptions().ordered(false));
+
+            pendings.forEach(p -> p.result().complete(null));
+        } catch (MongoBulkWriteException mbwe) {
+            if (mbwe.getWriteConcernError() != null) {
+                pendings.forEach(p -> p.result().completeExceptionally(mbwe));
+                return;
+            }
+
+            var errors = mbwe.getWriteErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, e -> e));
+
+            for (var idx = 0; idx < pendings.size(); idx++) {
+                var error = errors.get(idx);
+
+                if (error == null) {
+                    pendings.get(idx).result().complete(null);
+                } else {
+                    // the same exception an insertOne would throw
+                    pendings.get(idx).result().completeExceptionally(new MongoWriteException(
+                            new WriteError(error.getCode(), error.getMessage(), error.getDetails()),
+                            mbwe.getServerAddress()));
+                }
+            }
+        } catch (Throwable t) {
+            pendings.forEach(p -> p.result().completeExceptionally(t));
+            throw t;
+        }
+    }
+}
@@ -28,6 +28,8 @@ import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -327,7 +329,19 @@ public class BsonRequestContentInjector {
                 var bar = ByteArrayProxyRequest.of(exchange);
 
                 try {
-                    if (bar.isContentAvailable()) {
+                    if (request.isPost() && request.isCollection()) {
+                        var is = new PushbackInputStream(ChannelReader.inputStream(exchange), 1);
+
+                        if (peek(is) == '[') {
+                            // bulk post, the handler can parse the documents
+                            // incrementally; the content is parsed only if
+                            // requested before, e.g. by an interceptor
+                            request.setContentStream(is, () -> injectBulkContent(exchange, is));
+                            return;
+                        }
+
+                        contentString = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                    } else if (bar.isContentAvailable()) {
                         // if content has been already injected by core's
                         // BsonRequestContentInjector
                         // get it from MongoRequest.readContent()
@@ -382,6 +396,61 @@ public class BsonRequestContentInjector {
             }
         }
 
+        injectContent(exchange, content);
+    }
+
+    /**
+     * parses the deferred content of a bulk post and injects it
+     */
+    private static void injectBulkContent(final HttpServerExchange exchange, final InputStream is) {
+        var response = MongoResponse.of(exchange);
+
+        BsonValue content;
+
+        try {
+            content = BsonUtils.parse(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException ieo) {
+            String errMsg = "Error reading request content";
+
+            LOGGER.error(errMsg, ieo);
+
+            response.setInError(
+                    HttpStatus.SC_NOT_ACCEPTABLE,
+                    errMsg);
+            return;
+        } catch (JsonParseException | IllegalArgumentException ex) {
+            response.setInError(
+                    HttpStatus.SC_NOT_ACCEPTABLE,
+                    "Invalid JSON. " + ex.getMessage(),
+                    ex);
+            return;
+        }
+
+        injectContent(exchange, content);
+    }
+
+    /**
+     * @return the first byte of the content that is not json whitespace, or -1
+     * if there is none; the byte is pushed back to the stream
+     */
+    private static int peek(final PushbackInputStream is) throws IOException {
+        int b;
+
+        do {
+            b = is.read();
+        } while (b == ' ' || b == '\t' || b == '\n' || b == '\r');
+
+        if (b != -1) {
+            is.unread(b);
+        }
+
+        return b;
+    }
+
+    private static void injectContent(final HttpServerExchange exchange, BsonValue content) {
+        var request = MongoRequest.of(exchange);
+        var response = MongoResponse.of(exchange);
+
         if (content == null) {
             content = new BsonDocument();
         } else if (content.isArray()) {
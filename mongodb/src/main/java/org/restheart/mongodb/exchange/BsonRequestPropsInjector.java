@@ -21,12 +21,16 @@
 package org.restheart.mongodb.exchange;
 
 import io.undertow.server.HttpServerExchange;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.Optional;
+import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
+import static org.restheart.exchange.ExchangeKeys.AFTER_QPARAM_KEY;
 import static org.restheart.exchange.ExchangeKeys.AGGREGATION_VARIABLES_QPARAM_KEY;
 import org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE;
 import static org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE_QPARAM_KEY;
@@ -49,6 +53,7 @@ import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.UnsupportedDocumentIdException;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.KeysetPagination;
 import org.restheart.mongodb.handlers.aggregation.AggregationPipeline;
 import org.restheart.mongodb.utils.URLUtils;
 import org.restheart.utils.HttpStatus;
@@ -253,6 +258,32 @@ public class BsonRequestPropsInjector {
             request.setSortBy(sort_by);
         }
 
+        // get and check after parameter (keyset pagination)
+        Deque<String> after = exchange.getQueryParameters().get(AFTER_QPARAM_KEY);
+
+        if (after != null) {
+            if (page > 1) {
+                response.setInError(
+                        HttpStatus.SC_BAD_REQUEST,
+                        "illegal after paramenter, it cannot be used with page");
+                return;
+            }
+
+            try {
+                var sort = KeysetPagination.sortDocument(request.getSortByDocument());
+                var token = after.getFirst();
+
+                request.setAfter(token == null || token.isEmpty()
+                        ? new BsonArray()
+                        : KeysetPagination.decode(token, sort));
+            } catch (JsonParseException | IllegalArgumentException ex) {
+                response.setInError(
+                        HttpStatus.SC_BAD_REQUEST,
+                        "illegal after paramenter, " + ex.getMessage(), ex);
+                return;
+            }
+        }
+
         // get and check hint parameter
         Deque<String> hint = null;
 
@@ -285,7 +316,14 @@ public class BsonRequestPropsInjector {
                 }
 
                 try {
-                    BsonValue _keys = BsonUtils.parse(f);
+                    BsonValue _keys;
+
+                    try {
+                        _keys = MongoRequest.parseQueryParameter(f);
+                    } catch (JsonParseException jpe) {
+                        // not a json object, parse it again to report the error
+                        _keys = BsonUtils.parse(f);
+                    }
 
                     if (!_keys.isDocument()) {
                         response.setInError(
@@ -323,7 +361,14 @@ public class BsonRequestPropsInjector {
                 }
 
                 try {
-                    BsonValue _filter = BsonUtils.parse(f);
+                    BsonValue _filter;
+
+                    try {
+                        _filter = MongoRequest.parseQueryParameter(f);
+                    } catch (JsonParseException jpe) {
+                        // not a json object, parse it again to report the error
+                        _filter = BsonUtils.parse(f);
+                    }
 
                     if (!_filter.isDocument()) {
                         response.setInError(
@@ -554,5 +599,22 @@ public class BsonRequestPropsInjector {
 
             request.setFilter(exchange.getQueryParameters().get(FILTER_QPARAM_KEY));
         }
+
+        // with keyset pagination, the range predicate that selects the documents
+        // following the continuation token is added to the filters, so that
+        // it is checked as any other filter by the security interceptors
+        if (request.getAfter() != null && !request.getAfter().isEmpty()) {
+            var _filters = request.getFilter() == null
+                    ? new ArrayDeque<String>()
+                    : new ArrayDeque<String>(request.getFilter());
+
+            var rangeFilter = KeysetPagination.rangeFilter(
+                    KeysetPagination.sortDocument(request.getSortByDocument()),
+                    request.getAfter());
+
+            _filters.add(BsonUtils.toJson(rangeFilter, JsonMode.EXTENDED));
+
+            request.setFilter(_filters);
+        }
     }
 }
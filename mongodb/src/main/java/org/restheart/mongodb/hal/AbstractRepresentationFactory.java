@@ -25,6 +25,8 @@ import static java.lang.Math.toIntExact;
 import java.util.TreeMap;
 import org.bson.BsonArray;
 import org.bson.BsonInt32;
+import static org.restheart.exchange.ExchangeKeys.AFTER_QPARAM_KEY;
+import static org.restheart.exchange.ExchangeKeys.CONTINUATION_TOKEN_HEADER;
 import org.restheart.exchange.IllegalQueryParamenterException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.mongodb.utils.URLUtils;
@@ -151,7 +153,9 @@ abstract class AbstractRepresentationFactory {
             final Resource rep)
             throws IllegalQueryParamenterException {
         var request = MongoRequest.of(exchange);
-        if (request.getPagesize() > 0) {
+        if (request.isKeysetPagination()) {
+            addContinuationLinks(exchange, rep);
+        } else if (request.getPagesize() > 0) {
             TreeMap<String, String> links;
             links = RepresentationUtils.getPaginationLinks(exchange, size);
             if (links != null) {
@@ -162,6 +166,29 @@ abstract class AbstractRepresentationFactory {
         }
     }
 
+    /**
+     * with keyset pagination the next page is identified by the continuation
+     * token rather than by the page number
+     *
+     * @param exchange
+     * @param rep
+     */
+    private void addContinuationLinks(HttpServerExchange exchange, final Resource rep) {
+        var requestPath = buildRequestPath(exchange);
+        var qs = org.restheart.utils.URLUtils.decodeQueryString(
+                URLUtils.getQueryStringRemovingParams(exchange, AFTER_QPARAM_KEY));
+
+        var prefix = requestPath + "?" + (qs == null || qs.isEmpty() ? "" : qs + "&") + AFTER_QPARAM_KEY + "=";
+
+        rep.addLink(new Link("first", prefix));
+
+        var token = exchange.getResponseHeaders().getFirst(CONTINUATION_TOKEN_HEADER);
+
+        if (token != null) {
+            rep.addLink(new Link("next", prefix + token));
+        }
+    }
+
     /**
      *
      * @param requestPath
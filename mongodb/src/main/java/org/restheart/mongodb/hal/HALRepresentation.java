@@ -86,10 +86,12 @@ public class HALRepresentation implements MongoInterceptor {
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return !request.isInError()
+                && !response.isContentCached()
                 && !request.isDbMeta()
                 && !request.isDbSize()
                 && !request.isCollectionMeta()
                 && !request.isCollectionSize()
+                && !request.isCollectionExport()
                 && !request.isFilesBucketMeta()
                 && !request.isFilesBucketSize()
                 && !request.isSchemaStoreMeta()
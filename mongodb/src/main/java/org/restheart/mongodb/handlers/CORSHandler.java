@@ -29,6 +29,7 @@ import static io.undertow.util.Headers.LOCATION_STRING;
 import static io.undertow.util.Headers.ORIGIN;
 import io.undertow.util.HttpString;
 import static java.lang.Boolean.TRUE;
+import static org.restheart.exchange.ExchangeKeys.CONTINUATION_TOKEN_HEADER;
 import org.restheart.handlers.PipelinedHandler;
 import static org.restheart.mongodb.handlers.CORSHandler.CORSHeaders.ACCESS_CONTROL_ALLOW_CREDENTIAL;
 import static org.restheart.mongodb.handlers.CORSHandler.CORSHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
@@ -117,6 +118,7 @@ public class CORSHandler extends PipelinedHandler {
         headers.addResponseHeader(ACCESS_CONTROL_EXPOSE_HEADERS,
                 LOCATION_STRING + ", "
                 + Headers.ETAG + ", "
+                + CONTINUATION_TOKEN_HEADER + ", "
                 + HttpHeaders.X_POWERED_BY);
     }
 
@@ -27,7 +27,8 @@ import org.restheart.handlers.PipelinedHandler;
 
 /**
  * this handler dispatches request to normal or bulk post collection handlers
- * depending on the content to be an object or an array
+ * depending on the content to be an object or an array; the content of a bulk
+ * post is not parsed here, so that the bulk handler can parse it incrementally
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class NormalOrBulkDispatcherHandler extends PipelinedHandler {
@@ -55,7 +56,15 @@ public class NormalOrBulkDispatcherHandler extends PipelinedHandler {
      */
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        BsonValue content = MongoRequest.of(exchange).getContent();
+        var request = MongoRequest.of(exchange);
+
+        // a deferred content is always an array, see BsonRequestContentInjector
+        if (request.hasContentStream()) {
+            nextBulk.handleRequest(exchange);
+            return;
+        }
+
+        BsonValue content = request.getContent();
 
         if (content != null
                 && content.isArray()) {
@@ -121,6 +121,11 @@ public class OptionsHandler extends PipelinedHandler {
                             .put(HttpString.tryFromString("Access-Control-Allow-Methods"), "GET")
                             .put(HttpString.tryFromString("Access-Control-Allow-Headers"), "Accept, Accept-Encoding, Authorization, Content-Length, Content-Type, Host, If-Match, Origin, X-Requested-With, User-Agent, No-Auth-Challenge");
                     break;
+                case COLLECTION_EXPORT:
+                    response.getHeaders()
+                            .put(HttpString.tryFromString("Access-Control-Allow-Methods"), "GET")
+                            .put(HttpString.tryFromString("Access-Control-Allow-Headers"), "Accept, Accept-Encoding, Authorization, Content-Length, Content-Type, Host, Origin, X-Requested-With, User-Agent, No-Auth-Challenge");
+                    break;
                 case AGGREGATION:
                     response.getHeaders()
                             .put(HttpString.tryFromString("Access-Control-Allow-Methods"), "GET")
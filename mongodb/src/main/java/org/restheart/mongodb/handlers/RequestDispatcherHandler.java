@@ -34,6 +34,7 @@ import org.restheart.mongodb.handlers.bulk.BulkDeleteDocumentsHandler;
 import org.restheart.mongodb.handlers.bulk.BulkPatchDocumentsHandler;
 import org.restheart.mongodb.handlers.bulk.BulkPostCollectionHandler;
 import org.restheart.mongodb.handlers.collection.DeleteCollectionHandler;
+import org.restheart.mongodb.handlers.collection.ExportCollectionHandler;
 import org.restheart.mongodb.handlers.collection.GetCollectionHandler;
 import org.restheart.mongodb.handlers.collection.PatchCollectionHandler;
 import org.restheart.mongodb.handlers.collection.PostCollectionHandler;
@@ -226,6 +227,8 @@ public class RequestDispatcherHandler extends PipelinedHandler {
                         new GetCollectionHandler(),
                         new SizeRequestTransformer(false)));
 
+        putHandler(TYPE.COLLECTION_EXPORT, METHOD.GET, new ExportCollectionHandler());
+
         putHandler(TYPE.COLLECTION_META, METHOD.GET,
                 PipelinedHandler.pipe(
                         new GetDocumentHandler(),
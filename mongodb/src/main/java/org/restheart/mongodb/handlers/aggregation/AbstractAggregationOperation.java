@@ -27,6 +27,8 @@ import java.util.Set;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import org.restheart.exchange.InvalidMetadataException;
 import org.restheart.exchange.QueryVariableNotBoundException;
 
@@ -56,6 +58,76 @@ public abstract class AbstractAggregationOperation {
      */
     public static final String TYPE_ELEMENT_NAME = "type";
 
+    /**
+     *
+     */
+    public static final String CACHE_ELEMENT_NAME = "cache";
+
+    /**
+     *
+     */
+    public static final String CACHE_TTL_ELEMENT_NAME = "ttl";
+
+    /**
+     *
+     */
+    public static final String CACHE_MAX_ENTRIES_ELEMENT_NAME = "maxEntries";
+
+    /**
+     * the default maximum number of cached results of an aggregation
+     */
+    public static final int DEFAULT_CACHE_MAX_ENTRIES = 100;
+
+    /**
+     * the caching policy of the results of an aggregation, defined by the
+     * optional cache element, e.g. {"ttl": 60000, "maxEntries": 100}
+     *
+     * @param ttl the milliseconds the results are cached for
+     * @param maxEntries the maximum number of cached results
+     */
+    public record CachePolicy(long ttl, int maxEntries) {
+    }
+
+    /**
+     * the parsed aggregation definitions, by namespace and _etag of the
+     * collection properties, that change on every update of them
+     */
+    private static final Cache<String, List<AbstractAggregationOperation>> DEFINITIONS_CACHE
+            = CacheFactory.createLocalCache(1_000, Cache.EXPIRE_POLICY.AFTER_READ, 60 * 60 * 1000);
+
+    /**
+     * gets the aggregation definitions of a collection, parsing them only once
+     * per version of the collection properties, i.e. per _etag; collection
+     * properties without _etag are parsed every time
+     *
+     * @param dbName
+     * @param collName
+     * @param collProps
+     * @return the unmodifiable list of the aggregation operations
+     * @throws InvalidMetadataException
+     */
+    public static List<AbstractAggregationOperation> getFromJson(String dbName, String collName, BsonDocument collProps)
+            throws InvalidMetadataException {
+        if (collProps == null || !collProps.containsKey("_etag")) {
+            return getFromJson(collProps);
+        }
+
+        var key = dbName + "." + collName + "@" + collProps.get("_etag").toString();
+
+        var cached = DEFINITIONS_CACHE.get(key);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        // invalid definitions are not cached
+        var ret = List.copyOf(getFromJson(collProps));
+
+        DEFINITIONS_CACHE.put(key, ret);
+
+        return ret;
+    }
+
     /**
      *
      * @param collProps
@@ -163,6 +235,7 @@ public abstract class AbstractAggregationOperation {
 
     private final TYPE type;
     private final String uri;
+    private final CachePolicy cachePolicy;
 
     /**
      *
@@ -210,6 +283,41 @@ public abstract class AbstractAggregationOperation {
         }
 
         this.uri = _uri.asString().getValue();
+        this.cachePolicy = getCachePolicy(properties.get(CACHE_ELEMENT_NAME));
+    }
+
+    private CachePolicy getCachePolicy(BsonValue cache) throws InvalidMetadataException {
+        if (cache == null) {
+            return null;
+        }
+
+        if (!cache.isDocument()) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + CACHE_ELEMENT_NAME
+                    + "': " + cache
+                    + "; must be an object");
+        }
+
+        var ttl = cache.asDocument().get(CACHE_TTL_ELEMENT_NAME);
+
+        if (ttl == null || !ttl.isNumber() || ttl.asNumber().longValue() <= 0) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + CACHE_ELEMENT_NAME + "." + CACHE_TTL_ELEMENT_NAME
+                    + "': " + ttl
+                    + "; must be a positive number of milliseconds");
+        }
+
+        var maxEntries = cache.asDocument().get(CACHE_MAX_ENTRIES_ELEMENT_NAME);
+
+        if (maxEntries != null && (!maxEntries.isNumber() || maxEntries.asNumber().intValue() <= 0)) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + CACHE_ELEMENT_NAME + "." + CACHE_MAX_ENTRIES_ELEMENT_NAME
+                    + "': " + maxEntries
+                    + "; must be a positive number");
+        }
+
+        return new CachePolicy(ttl.asNumber().longValue(),
+                maxEntries == null ? DEFAULT_CACHE_MAX_ENTRIES : maxEntries.asNumber().intValue());
     }
 
     /**
@@ -226,6 +334,13 @@ public abstract class AbstractAggregationOperation {
         return uri;
     }
 
+    /**
+     * @return the caching policy of the results, null if they are not cached
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
     /**
      * @param obj
      * @param aVars RequestContext.getAggregationVars()
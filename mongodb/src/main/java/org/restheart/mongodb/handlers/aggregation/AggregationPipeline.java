@@ -22,6 +22,7 @@ package org.restheart.mongodb.handlers.aggregation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.bson.BsonArray;
 import org.bson.BsonBoolean;
 import org.bson.BsonDocument;
@@ -47,7 +48,15 @@ public class AggregationPipeline extends AbstractAggregationOperation {
      */
     public static final String ALLOW_DISK_USER_ELEMENT_NAME = "allowDiskUse";
 
+    /**
+     * the aggregation variables that allow the stages to handle paging
+     */
+    private static final Set<String> PAGING_VARIABLES = Set.of("@page", "@pagesize", "@limit", "@skip");
+
     private final BsonArray stages;
+    private final BsonArray unescapedStages;
+    private final boolean outputStage;
+    private final boolean pageable;
     private final BsonBoolean allowDiskUse;
 
     /**
@@ -98,6 +107,9 @@ public class AggregationPipeline extends AbstractAggregationOperation {
         }
 
         this.stages = _stages.asArray();
+        this.unescapedStages = BsonUtils.unescapeKeys(this.stages).asArray();
+        this.outputStage = endsWithOutput(this.unescapedStages);
+        this.pageable = !usesPagingVariables(this.unescapedStages) && !this.outputStage;
 
         BsonValue _allowDiskUse = properties.get(ALLOW_DISK_USER_ELEMENT_NAME);
 
@@ -128,8 +140,9 @@ public class AggregationPipeline extends AbstractAggregationOperation {
      */
     public List<BsonDocument> getResolvedStagesAsList(BsonDocument avars)
             throws InvalidMetadataException, QueryVariableNotBoundException {
+        // binding the variables copies the stages, shared by concurrent requests
         BsonArray replacedStages = bindAggregationVariables(
-            BsonUtils.unescapeKeys(stages), avars)
+            unescapedStages, avars)
                 .asArray();
 
         List<BsonDocument> ret = new ArrayList<>();
@@ -142,6 +155,50 @@ public class AggregationPipeline extends AbstractAggregationOperation {
         return ret;
     }
 
+    /**
+     * @return true if $skip and $limit stages can be appended to apply the
+     * page and pagesize query parameters, i.e. if the stages neither refer to
+     * the paging variables @page, @pagesize, @limit or @skip (the pipeline
+     * handles paging itself) nor end with $out or $merge
+     */
+    public boolean isPageable() {
+        return pageable;
+    }
+
+    /**
+     * @return true if the last stage is $out or $merge, i.e. the pipeline
+     * writes its results
+     */
+    public boolean hasOutputStage() {
+        return outputStage;
+    }
+
+    private static boolean endsWithOutput(BsonArray stages) {
+        if (stages.isEmpty()) {
+            return false;
+        }
+
+        var last = stages.get(stages.size() - 1).asDocument();
+
+        return last.containsKey("$out") || last.containsKey("$merge");
+    }
+
+    private static boolean usesPagingVariables(BsonValue value) {
+        if (value.isDocument()) {
+            var doc = value.asDocument();
+
+            if (doc.size() == 1 && doc.containsKey("$var")) {
+                return doc.get("$var").isString() && PAGING_VARIABLES.contains(doc.get("$var").asString().getValue());
+            }
+
+            return doc.values().stream().anyMatch(AggregationPipeline::usesPagingVariables);
+        } else if (value.isArray()) {
+            return value.asArray().stream().anyMatch(AggregationPipeline::usesPagingVariables);
+        } else {
+            return false;
+        }
+    }
+
     /**
      * @return the allowDiskUse
      */
@@ -56,6 +56,24 @@ public class AggregationTransformer extends PipelinedHandler {
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         var request = MongoRequest.of(exchange);
+
+        if (!phase && MongoResponse.of(exchange).isContentCached()) {
+            // the cached response has already been transformed
+            next(exchange);
+            return;
+        }
+
+        if (!phase && MongoResponse.of(exchange).isContentStreamed()) {
+            // transform the documents as they are streamed to the client
+            MongoResponse.of(exchange).transformStreamedContent(doc -> {
+                transform(request, doc);
+                return doc;
+            });
+
+            next(exchange);
+            return;
+        }
+
         var contentToTransform = phase
                 ? MongoRequest.of(exchange).getContent()
                 : MongoResponse.of(exchange).getContent();
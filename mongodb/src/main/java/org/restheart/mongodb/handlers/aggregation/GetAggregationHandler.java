@@ -21,15 +21,19 @@
 package org.restheart.mongodb.handlers.aggregation;
 
 import com.mongodb.MongoCommandException;
-import com.mongodb.client.AggregateIterable;
-import com.mongodb.client.MapReduceIterable;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
 import io.undertow.server.HttpServerExchange;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
+import org.bson.BsonInt64;
 import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.restheart.exchange.IllegalQueryParamenterException;
 import org.restheart.exchange.InvalidMetadataException;
 import org.restheart.exchange.MongoRequest;
@@ -37,7 +41,10 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.QueryVariableNotBoundException;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.AggregationCache;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.utils.RequestHelper;
+import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.security.AclVarsInterpolator;
 import org.restheart.security.FileRealmAccount;
 import org.restheart.security.JwtAccount;
@@ -91,7 +98,9 @@ public class GetAggregationHandler extends PipelinedHandler {
 
         var queryUri = request.getAggregationOperation();
 
-        var aggregations = AbstractAggregationOperation.getFromJson(request.getCollectionProps());
+        var aggregations = AbstractAggregationOperation.getFromJson(request.getDBName(),
+                request.getCollectionName(),
+                request.getCollectionProps());
 
         var _query = aggregations.stream().filter(q -> q.getUri().equals(queryUri)).findFirst();
 
@@ -101,7 +110,9 @@ public class GetAggregationHandler extends PipelinedHandler {
             return;
         }
 
-        var _data = new ArrayList<BsonDocument>();
+        MongoIterable<BsonDocument> output;
+        BsonValue resolvedDefinition;
+        String errorMessage;
         var query = _query.get();
 
         if (null == query.getType()) {
@@ -118,66 +129,80 @@ public class GetAggregationHandler extends PipelinedHandler {
 
             switch (query.getType()) {
                 case MAP_REDUCE:
-                    MapReduceIterable<BsonDocument> mrOutput;
                     var mapReduce = (MapReduce) query;
+                    errorMessage = "error executing mapReduce";
                     try {
                         var clientSession = request.getClientSession();
+                        var map = mapReduce.getResolvedMap(avars);
+                        var reduce = mapReduce.getResolvedReduce(avars);
+                        var filter = mapReduce.getResolvedQuery(avars);
+
+                        resolvedDefinition = new BsonDocument(MapReduce.MAP_ELEMENT_NAME, new BsonString(map))
+                            .append(MapReduce.REDUCE_ELEMENT_NAME, new BsonString(reduce))
+                            .append(MapReduce.QUERY_ELEMENT_NAME, filter);
 
                         if (clientSession == null) {
-                            mrOutput = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
-                                .mapReduce(mapReduce.getResolvedMap(avars), mapReduce.getResolvedReduce(avars))
-                                .filter(mapReduce.getResolvedQuery(avars))
+                            output = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
+                                .mapReduce(map, reduce)
+                                .filter(filter)
                                 .maxTime(MongoServiceConfiguration.get() .getAggregationTimeLimit(), TimeUnit.MILLISECONDS);
                         } else {
-                            mrOutput = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
-                                .mapReduce(clientSession, mapReduce.getResolvedMap(avars), mapReduce.getResolvedReduce(avars))
-                                .filter(mapReduce.getResolvedQuery(avars))
+                            output = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
+                                .mapReduce(clientSession, map, reduce)
+                                .filter(filter)
                                 .maxTime(MongoServiceConfiguration.get() .getAggregationTimeLimit(), TimeUnit.MILLISECONDS);
                         }
-                    } catch (MongoCommandException | InvalidMetadataException ex) {
-                        response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "error executing mapReduce", ex);
+                    } catch (InvalidMetadataException ex) {
+                        response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, ex);
                         next(exchange);
                         return;
                     } catch (QueryVariableNotBoundException qvnbe) {
-                        response.setInError(HttpStatus.SC_BAD_REQUEST, "error executing mapReduce: " + qvnbe.getMessage());
+                        response.setInError(HttpStatus.SC_BAD_REQUEST, errorMessage + ": " + qvnbe.getMessage());
                         next(exchange);
                         return;
                     }
-                    // ***** get data
-                    for (BsonDocument obj : mrOutput) {
-                        _data.add(obj);
-                    }
                     break;
                 case AGGREGATION_PIPELINE:
-                    AggregateIterable<BsonDocument> agrOutput;
                     var pipeline = (AggregationPipeline) query;
+                    errorMessage = "error executing aggreation pipeline";
+
+                    if (pipeline.isPageable() && request.getPagesize() == 0) {
+                        // the stages cannot include {$limit: 0}
+                        output = null;
+                        resolvedDefinition = null;
+                        break;
+                    }
+
                     try {
                         var clientSession = request.getClientSession();
+                        var stages = pipeline.getResolvedStagesAsList(avars);
+
+                        if (pipeline.isPageable()) {
+                            addPagingStages(request, stages);
+                        }
+
+                        resolvedDefinition = new BsonArray(stages);
 
                         if (clientSession == null) {
-                            agrOutput = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
-                                .aggregate(pipeline.getResolvedStagesAsList(avars))
+                            output = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
+                                .aggregate(stages)
                                 .maxTime(MongoServiceConfiguration.get() .getAggregationTimeLimit(), TimeUnit.MILLISECONDS)
                                 .allowDiskUse(pipeline.getAllowDiskUse().getValue());
                         } else {
-                            agrOutput = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
-                                .aggregate(clientSession, pipeline.getResolvedStagesAsList(avars))
+                            output = dbsDAO.getCollection(request.getDBName(), request.getCollectionName())
+                                .aggregate(clientSession, stages)
                                 .maxTime(MongoServiceConfiguration.get() .getAggregationTimeLimit(), TimeUnit.MILLISECONDS)
                                 .allowDiskUse(pipeline.getAllowDiskUse().getValue());
                         }
-                    } catch (MongoCommandException | InvalidMetadataException ex) {
-                        response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "error executing aggreation pipeline", ex);
+                    } catch (InvalidMetadataException ex) {
+                        response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, ex);
                         next(exchange);
                         return;
                     } catch (QueryVariableNotBoundException qvnbe) {
-                        response.setInError(HttpStatus.SC_BAD_REQUEST, "error executing aggreation pipeline: " + qvnbe.getMessage());
+                        response.setInError(HttpStatus.SC_BAD_REQUEST, errorMessage + ": " + qvnbe.getMessage());
                         next(exchange);
                         return;
                     }
-                    // ***** get data
-                    for (BsonDocument obj : agrOutput) {
-                        _data.add(obj);
-                    }
                     break;
                 default:
                     response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "unknown query type");
@@ -186,18 +211,74 @@ public class GetAggregationHandler extends PipelinedHandler {
             }
         }
 
+        // ***** get data
+        MongoCursor<BsonDocument> cursor = null;
+        BsonArray cachedData = null;
+
+        if (output != null) {
+            try {
+                if (isCacheable(request, query)) {
+                    var key = new AggregationCache.Key(new MongoNamespace(request.getDBName(), request.getCollectionName()),
+                            query.getUri(),
+                            resolvedDefinition);
+
+                    cachedData = AggregationCache.getInstance().get(key, query.getCachePolicy(), () -> {
+                        var data = new BsonArray();
+
+                        try (var _cursor = output.batchSize(batchSize(request)).iterator()) {
+                            _cursor.forEachRemaining(data::add);
+                        }
+
+                        return data;
+                    });
+                } else {
+                    cursor = output.batchSize(batchSize(request)).iterator();
+                }
+            } catch (MongoCommandException ex) {
+                response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, ex);
+                next(exchange);
+                return;
+            }
+        }
+
         if (exchange.isComplete()) {
             // if an error occured getting data, the exchange is already closed
+            if (cursor != null) {
+                cursor.close();
+            }
+
             return;
         }
 
         try {
-            var data = new BsonArray();
+            if (cursor != null && isStreamable(request)) {
+                response.setStreamedContent(cursor, Integer.MAX_VALUE);
+            } else {
+                var data = cachedData != null ? cachedData : new BsonArray();
+
+                if (cursor != null) {
+                    try (var _cursor = cursor) {
+                        _cursor.forEachRemaining(data::add);
+                    }
+                }
+
+                if (isPageEtags()) {
+                    var etag = ResponseHelper.pageEtag(request.getCollectionProps(), data, -1);
+
+                    ResponseHelper.injectEtagHeader(exchange, etag);
 
-            _data.stream().forEachOrdered(data::add);
+                    // in case the request contains the IF_NONE_MATCH header with the current etag value,
+                    // just return 304 NOT_MODIFIED code
+                    if (RequestHelper.checkReadEtag(exchange, etag)) {
+                        response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                        next(exchange);
+                        return;
+                    }
+                }
 
-            response.setContent(data);
-            response.setCount(data.size());
+                response.setContent(data);
+                response.setCount(data.size());
+            }
 
             response.setContentTypeAsJson();
             response.setStatusCode(HttpStatus.SC_OK);
@@ -211,6 +292,60 @@ public class GetAggregationHandler extends PipelinedHandler {
         }
     }
 
+    /**
+     * appends the $skip and $limit stages that apply the page and pagesize
+     * query parameters to a pageable pipeline
+     */
+    private static void addPagingStages(MongoRequest request, List<BsonDocument> stages) {
+        var skip = (long) request.getPagesize() * (request.getPage() - 1);
+
+        if (skip > 0) {
+            stages.add(new BsonDocument("$skip", new BsonInt64(skip)));
+        }
+
+        stages.add(new BsonDocument("$limit", new BsonInt32(request.getPagesize())));
+    }
+
+    /**
+     * the results are streamed to the client, unless the request is in a
+     * client session (the session could be closed before sending the response)
+     * or page-etags is enabled (the etag, sent as a header, requires all the
+     * results)
+     */
+    private static boolean isStreamable(MongoRequest request) {
+        return MongoServiceConfiguration.get() != null
+                && MongoServiceConfiguration.get().isStreamingResponses()
+                && !isPageEtags()
+                && request.getClientSession() == null;
+    }
+
+    /**
+     * the results are cached if the aggregation defines a cache policy, it
+     * does not write its results and the request is neither in a client
+     * session nor uses the nocache query parameter
+     */
+    private static boolean isCacheable(MongoRequest request, AbstractAggregationOperation query) {
+        return query.getCachePolicy() != null
+                && !(query instanceof AggregationPipeline pipeline && pipeline.hasOutputStage())
+                && request.getClientSession() == null
+                && !request.isNoCache();
+    }
+
+    private static boolean isPageEtags() {
+        return MongoServiceConfiguration.get() != null
+                && MongoServiceConfiguration.get().isPageEtags();
+    }
+
+    private static int batchSize(MongoRequest request) {
+        var cursorBatchSize = MongoServiceConfiguration.get() != null
+                ? MongoServiceConfiguration.get().getCursorBatchSize()
+                : 1000;
+
+        return request.getPagesize() > 0
+                ? Math.min(request.getPagesize(), cursorBatchSize)
+                : cursorBatchSize;
+    }
+
     /**
      * adds the default variables to the avars document
      *
@@ -21,15 +21,28 @@
 package org.restheart.mongodb.handlers.bulk;
 
 import io.undertow.server.HttpServerExchange;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInvalidOperationException;
 import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.restheart.exchange.BadRequestException;
 import org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.BulkOperationResult;
 import org.restheart.mongodb.db.DocumentDAO;
+import org.restheart.mongodb.db.PartialBulkWriteException;
+import org.restheart.mongodb.utils.JsonArrayStreamParser;
 import org.restheart.mongodb.utils.ResponseHelper;
+import org.restheart.utils.BsonUtils;
 import org.restheart.utils.HttpStatus;
 
 /**
@@ -91,30 +104,62 @@ public class BulkPostCollectionHandler extends PipelinedHandler {
             return;
         }
 
-        BsonValue content = request.getContent();
-
-        // expects an an array
-        if (content == null || !content.isArray()) {
-            throw new RuntimeException("error, this handler expects an array of objects");
-        }
-
-        BsonArray documents = content.asArray();
+        BulkOperationResult result;
+
+        try {
+            if (request.hasContentStream()) {
+                // parse the documents incrementally while they are written
+                result = this.documentDAO
+                        .bulkPostDocuments(
+                                request.getClientSession(),
+                                request.getDBName(),
+                                request.getCollectionName(),
+                                documents(request, request.consumeContentStream()),
+                                request.getFiltersDocument(),
+                                request.getShardKey(),
+                                request.getWriteMode());
+            } else {
+                BsonValue content = request.getContent();
+
+                // expects an an array
+                if (content == null || !content.isArray()) {
+                    throw new RuntimeException("error, this handler expects an array of objects");
+                }
+
+                BsonArray documents = content.asArray();
+
+                for (var document : documents) {
+                    checkId(request, document);
+                }
+
+                result = this.documentDAO
+                        .bulkPostDocuments(
+                                request.getClientSession(),
+                                request.getDBName(),
+                                request.getCollectionName(),
+                                documents,
+                                request.getFiltersDocument(),
+                                request.getShardKey(),
+                                request.getWriteMode());
+            }
+        } catch (BadRequestException bre) {
+            response.setInError(bre.getStatusCode(), bre.getMessage());
+            next(exchange);
+            return;
+        } catch (PartialBulkWriteException pbwe) {
+            if (!(pbwe.getCause() instanceof BadRequestException bre)) {
+                throw pbwe;
+            }
 
-        if (!checkIds(exchange, documents)) {
-            // if check fails, exchange has been closed
+            // the chunks read before the error have been written,
+            // report them along with the error
+            response.setInError(bre.getStatusCode(), bre.getMessage());
+            response.getContent().asDocument().putAll(new BulkResultRepresentationFactory()
+                    .getRepresentation(request.getPath(), pbwe.getWriteResult(), pbwe.getWriteErrors()));
+            next(exchange);
             return;
         }
 
-        BulkOperationResult result = this.documentDAO
-                .bulkPostDocuments(
-                        request.getClientSession(),
-                        request.getDBName(),
-                        request.getCollectionName(),
-                        documents,
-                        request.getFiltersDocument(),
-                        request.getShardKey(),
-                        request.getWriteMode());
-
         response.setDbOperationResult(result);
 
         // inject the etag
@@ -131,48 +176,73 @@ public class BulkPostCollectionHandler extends PipelinedHandler {
         next(exchange);
     }
 
-    private boolean checkIds(HttpServerExchange exchange, BsonArray documents) throws Exception {
-        boolean ret = true;
-
-        for (BsonValue document : documents) {
-            if (!checkId(exchange, document)) {
-                ret = false;
-                break;
+    /**
+     * @return the documents parsed incrementally from the request content; the
+     * iterator throws BadRequestException for invalid json or documents
+     */
+    private Iterator<BsonDocument> documents(MongoRequest request, InputStream content) {
+        var values = new JsonArrayStreamParser(new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8)));
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNext();
+                } catch (JsonParseException | BsonInvalidOperationException ex) {
+                    throw new BadRequestException("Invalid JSON. " + ex.getMessage(), HttpStatus.SC_NOT_ACCEPTABLE);
+                }
             }
-        }
 
-        return ret;
-    }
+            @Override
+            public BsonDocument next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
 
-    private boolean checkId(HttpServerExchange exchange, BsonValue document) throws Exception {
-        var request = MongoRequest.of(exchange);
+                var document = values.next();
+
+                if (!document.isDocument()) {
+                    throw new BadRequestException("request data must be either "
+                            + "an json object or an array of objects", HttpStatus.SC_NOT_ACCEPTABLE);
+                }
+
+                var _id = document.asDocument().get("_id");
+
+                if (_id != null && _id.isArray()) {
+                    throw new BadRequestException("the type of _id in request data "
+                            + "is not supported: "
+                            + _id.getBsonType().name(), HttpStatus.SC_NOT_ACCEPTABLE);
+                }
 
+                checkId(request, document);
+
+                // as BsonRequestContentInjector does for the content of POST requests
+                return BsonUtils.unflatten(document).asDocument();
+            }
+        };
+    }
+
+    private void checkId(MongoRequest request, BsonValue document) throws BadRequestException {
         if (document.isDocument()
                 && document.asDocument().containsKey("_id")
                 && document.asDocument().get("_id").isString()
                 && MongoRequest.isReservedDocumentId(
                         request.getType(),
                         document.asDocument().get("_id"))) {
-            MongoResponse.of(exchange).setInError(
-                    HttpStatus.SC_FORBIDDEN,
+            throw new BadRequestException(
                     "id is reserved: " + document.asDocument()
-                            .get("_id").asString().getValue());
-            next(exchange);
-            return false;
+                            .get("_id").asString().getValue(),
+                    HttpStatus.SC_FORBIDDEN);
         }
 
         if (document.isDocument()
                 && document.asDocument().containsKey("_id")) {
             if (!(request.getDocIdType() == DOC_ID_TYPE.OID
                     || request.getDocIdType() == DOC_ID_TYPE.STRING_OID)) {
-                MongoResponse.of(exchange).setInError(
-                        HttpStatus.SC_NOT_ACCEPTABLE,
-                        "_id in content body is mandatory for documents with id type " + request.getDocIdType().name());
-                next(exchange);
-                return false;
+                throw new BadRequestException(
+                        "_id in content body is mandatory for documents with id type " + request.getDocIdType().name(),
+                        HttpStatus.SC_NOT_ACCEPTABLE);
             }
         }
-
-        return true;
     }
 }
@@ -66,12 +66,22 @@ public class BulkResultRepresentationFactory {
      * @return
      */
     public BsonDocument getRepresentation(String requestPath, MongoBulkWriteException mbwe) {
+        return getRepresentation(requestPath, mbwe.getWriteResult(), mbwe.getWriteErrors());
+    }
 
+    /**
+     *
+     * @param requestPath
+     * @param wr
+     * @param wes
+     * @return
+     */
+    public BsonDocument getRepresentation(String requestPath, BulkWriteResult wr, List<BulkWriteError> wes) {
         var rep = new BsonDocument();
 
-        addWriteResult(mbwe.getWriteResult(), rep, requestPath);
+        addWriteResult(wr, rep, requestPath);
 
-        addWriteErrors(mbwe.getWriteErrors(), rep);
+        addWriteErrors(wes, rep);
 
         return rep;
     }
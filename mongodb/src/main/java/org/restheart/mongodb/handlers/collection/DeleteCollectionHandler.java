@@ -28,6 +28,7 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.DatabaseImpl;
 import org.restheart.mongodb.db.OperationResult;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.mongodb.utils.RequestHelper;
 
@@ -92,6 +93,8 @@ public class DeleteCollectionHandler extends PipelinedHandler {
         MetadataCachesSingleton.getInstance()
                 .invalidateCollection(request.getDBName(), request.getCollectionName());
 
+        ResponseCache.getInstance().invalidate(request.getDBName(), request.getCollectionName());
+
         next(exchange);
     }
 }
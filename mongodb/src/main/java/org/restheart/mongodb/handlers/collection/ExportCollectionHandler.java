@@ -0,0 +1,344 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.collection;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.mongodb.MongoException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import static org.restheart.exchange.ExchangeKeys.FORMAT_QPARAM_KEY;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.MongoResponse.StreamedContentWriter;
+import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_EXPORT_BATCH_SIZE;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.utils.BsonUtils;
+import org.restheart.utils.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the documents of a collection as newline delimited json (format=ndjson,
+ * the default) or csv (format=csv). The documents matching the filter are read
+ * with a single cursor and written to the client as they are read: the blocking
+ * output stream only accepts data as fast as the client reads it, so a slow
+ * client slows down the cursor rather than filling up the memory.
+ *
+ * The csv format is the one imported by the csvLoader service: the first line
+ * is the header with the property names and the values other than strings are
+ * written as json.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ExportCollectionHandler extends PipelinedHandler {
+    private Database dbsDAO = new DatabaseImpl();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportCollectionHandler.class);
+
+    static final String NDJSON_FORMAT = "ndjson";
+    static final String CSV_FORMAT = "csv";
+
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    static final String CSV_CONTENT_TYPE = "text/csv";
+
+    private static final String SEPARATOR_QPARAM_KEY = "sep";
+
+    /**
+     *
+     */
+    public ExportCollectionHandler() {
+        super();
+    }
+
+    /**
+     *
+     * @param next
+     */
+    public ExportCollectionHandler(PipelinedHandler next) {
+        super(next);
+    }
+
+    /**
+     *
+     * @param next
+     * @param dbsDAO
+     */
+    @VisibleForTesting
+    public ExportCollectionHandler(PipelinedHandler next, Database dbsDAO) {
+        super(next);
+        this.dbsDAO = dbsDAO;
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        var request = MongoRequest.of(exchange);
+        var response = MongoResponse.of(exchange);
+
+        if (request.isInError()) {
+            next(exchange);
+            return;
+        }
+
+        var format = request.getQueryParameterOfDefault(FORMAT_QPARAM_KEY, NDJSON_FORMAT);
+
+        if (!NDJSON_FORMAT.equalsIgnoreCase(format) && !CSV_FORMAT.equalsIgnoreCase(format)) {
+            response.setInError(HttpStatus.SC_BAD_REQUEST, "wrong request, format must be either ndjson or csv");
+            next(exchange);
+            return;
+        }
+
+        var batchSize = MongoServiceConfiguration.get() != null
+                ? MongoServiceConfiguration.get().getExportBatchSize()
+                : DEFAULT_EXPORT_BATCH_SIZE;
+
+        var coll = dbsDAO.getCollection(request.getDBName(), request.getCollectionName());
+
+        try {
+            // without sort_by the documents are exported in natural order,
+            // that does not require an index or an in memory sort
+            var sort = request.getSortBy() == null ? new BsonDocument() : request.getSortByDocument();
+            var keys = request.getProjectionDocument();
+
+            // the cursor is opened here, so that query errors are handled below
+            var cursor = dbsDAO.getFindIterable(
+                    request.getClientSession(),
+                    coll,
+                    sort,
+                    request.getFiltersDocument(),
+                    request.getHintDocument(),
+                    keys)
+                    .batchSize(batchSize)
+                    .iterator();
+
+            response.setStreamedContent(cursor, Integer.MAX_VALUE);
+
+            if (CSV_FORMAT.equalsIgnoreCase(format)) {
+                var sep = request.getQueryParameterOfDefault(SEPARATOR_QPARAM_KEY, ",");
+
+                if (sep.isEmpty()) {
+                    sep = ",";
+                }
+
+                response.setStreamedContentWriter(new CsvWriter(sep, CsvWriter.columns(keys), request.getJsonMode()));
+                response.setContentType(CSV_CONTENT_TYPE);
+            } else {
+                response.setStreamedContentWriter(new NdjsonWriter(request.getJsonMode()));
+                response.setContentType(NDJSON_CONTENT_TYPE);
+            }
+        } catch (JsonParseException jpe) {
+            // the filter expression is not a valid json string
+            LOGGER.debug("invalid filter expression {}", request.getFilter(), jpe);
+            response.setInError(HttpStatus.SC_BAD_REQUEST, "wrong request, filter expression is invalid", jpe);
+            next(exchange);
+            return;
+        } catch (MongoException me) {
+            if (me.getMessage().matches(".*Can't canonicalize query.*")) {
+                // error with the filter expression during query execution
+                LOGGER.debug("invalid filter expression {}", request.getFilter(), me);
+                response.setInError(HttpStatus.SC_BAD_REQUEST, "wrong request, filter expression is invalid", me);
+                next(exchange);
+                return;
+            } else {
+                throw me;
+            }
+        }
+
+        response.getHeaders().put(Headers.CONTENT_DISPOSITION, "attachment; filename=\""
+                .concat(request.getCollectionName())
+                .concat(".")
+                .concat(format.toLowerCase())
+                .concat("\""));
+
+        response.setStatusCode(HttpStatus.SC_OK);
+
+        next(exchange);
+    }
+
+    /**
+     * writes each document as json on its own line
+     */
+    static class NdjsonWriter implements StreamedContentWriter {
+        private final JsonMode mode;
+
+        NdjsonWriter(JsonMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void write(BsonDocument doc, Writer writer) throws IOException {
+            BsonUtils.writeJson(doc, mode, writer);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * writes the documents as RFC 4180 csv. The columns are the included keys
+     * of the projection or, without it, the properties of the first document;
+     * dot notation addresses the properties of nested documents.
+     */
+    static class CsvWriter implements StreamedContentWriter {
+        private static final String CRLF = "\r\n";
+
+        private final String sep;
+        private final JsonMode mode;
+        private List<String> columns;
+
+        CsvWriter(String sep, List<String> columns, JsonMode mode) {
+            this.sep = sep;
+            this.columns = columns;
+            this.mode = mode;
+        }
+
+        /**
+         * @param keys the projection
+         * @return the columns defined by the projection, or null if it does
+         * not only include properties
+         */
+        static List<String> columns(BsonDocument keys) {
+            if (keys == null || keys.isEmpty()) {
+                return null;
+            }
+
+            var included = new ArrayList<String>();
+            var excludeId = false;
+
+            for (var key : keys.keySet()) {
+                var value = keys.get(key);
+
+                if ("_id".equals(key) && value.isNumber() && value.asNumber().intValue() == 0) {
+                    excludeId = true;
+                } else if (value.isNumber() && value.asNumber().intValue() == 1) {
+                    included.add(key);
+                } else {
+                    return null;
+                }
+            }
+
+            if (included.isEmpty()) {
+                return null;
+            }
+
+            if (!excludeId && !included.contains("_id")) {
+                included.add(0, "_id");
+            }
+
+            return included;
+        }
+
+        @Override
+        public void write(BsonDocument doc, Writer writer) throws IOException {
+            if (columns == null) {
+                columns = new ArrayList<>(doc.keySet());
+                writeHeader(writer);
+            }
+
+            var first = true;
+
+            for (var column : columns) {
+                if (first) {
+                    first = false;
+                } else {
+                    writer.write(sep);
+                }
+
+                writeCell(value(doc, column), writer);
+            }
+
+            writer.write(CRLF);
+        }
+
+        @Override
+        public void start(Writer writer) throws IOException {
+            if (columns != null) {
+                writeHeader(writer);
+            }
+        }
+
+        private void writeHeader(Writer writer) throws IOException {
+            var first = true;
+
+            for (var column : columns) {
+                if (first) {
+                    first = false;
+                } else {
+                    writer.write(sep);
+                }
+
+                writer.write(quote(column));
+            }
+
+            writer.write(CRLF);
+        }
+
+        private void writeCell(BsonValue value, Writer writer) throws IOException {
+            if (value == null || value.isNull()) {
+                return;
+            }
+
+            writer.write(quote(value.isString() ? value.asString().getValue() : BsonUtils.toJson(value, mode)));
+        }
+
+        private static BsonValue value(BsonDocument doc, String column) {
+            if (doc.containsKey(column) || !column.contains(".")) {
+                return doc.get(column);
+            }
+
+            var dot = column.indexOf('.');
+            var parent = doc.get(column.substring(0, dot));
+
+            return parent != null && parent.isDocument()
+                    ? value(parent.asDocument(), column.substring(dot + 1))
+                    : null;
+        }
+
+        /**
+         * encloses the value in double quotes if it contains the separator,
+         * double quotes or line breaks, escaping the double quotes by
+         * doubling them
+         */
+        private String quote(String value) {
+            if (value.contains(sep)
+                    || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                return "\"".concat(value.replace("\"", "\"\"")).concat("\"");
+            } else {
+                return value;
+            }
+        }
+    }
+}
@@ -21,16 +21,31 @@
 package org.restheart.mongodb.handlers.collection;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.MongoException;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.bson.BsonArray;
+import org.bson.BsonDocument;
 import org.bson.json.JsonParseException;
+import static org.restheart.exchange.ExchangeKeys.CONTINUATION_TOKEN_HEADER;
 import org.restheart.exchange.IllegalQueryParamenterException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.db.Database;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.KeysetPagination;
+import org.restheart.mongodb.db.ResponseCache;
+import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
 import org.slf4j.Logger;
@@ -45,6 +60,21 @@ public class GetCollectionHandler extends PipelinedHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetCollectionHandler.class);
 
+    private static final int MAX_COUNT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * bounded, when all its threads are busy the count is executed by the
+     * request thread, before the page query
+     */
+    private static final ExecutorService COUNT_EXECUTOR = new ThreadPoolExecutor(0, MAX_COUNT_THREADS,
+            60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("collection-count-%d")
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
     /**
      *
      */
@@ -86,12 +116,60 @@ public class GetCollectionHandler extends PipelinedHandler {
             return;
         }
 
+        // ***** serve the response from the cache, if possible
+        ResponseCache.Key cacheKey = null;
+        long cacheGeneration = 0;
+        long maxStaleness = 0;
+
+        if (isCacheable(request)) {
+            maxStaleness = ResponseCache.getInstance().maxStaleness(request.getCollectionProps());
+
+            if (maxStaleness > 0) {
+                cacheKey = ResponseCache.key(request);
+                // read the generation before querying the db
+                cacheGeneration = ResponseCache.getInstance().generation(cacheKey.namespace());
+
+                var cached = ResponseCache.getInstance().get(cacheKey);
+
+                if (cached.isPresent()) {
+                    var etag = cached.get().etag();
+
+                    if (isPageEtags() && etag != null) {
+                        ResponseHelper.injectEtagHeader(exchange, etag);
+
+                        if (RequestHelper.checkReadEtag(exchange, etag)) {
+                            response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                            next(exchange);
+                            return;
+                        }
+                    } else {
+                        ResponseHelper.injectEtagHeader(exchange, request.getCollectionProps());
+                    }
+
+                    response.setCachedContent(cached.get().content());
+                    response.setContentType(cached.get().contentType());
+                    response.setStatusCode(HttpStatus.SC_OK);
+
+                    next(exchange);
+                    return;
+                }
+            }
+        }
+
         var coll = dbsDAO.getCollection(request.getDBName(), request.getCollectionName());
 
         long size = -1;
+        CompletableFuture<Long> asyncSize = null;
 
         if (request.isCount()) {
-            size = dbsDAO.getCollectionSize(request.getClientSession(), coll, request.getFiltersDocument());
+            if (request.getClientSession() == null) {
+                // count concurrently with the page query
+                var filters = request.getFiltersDocument();
+                asyncSize = CompletableFuture.supplyAsync(() -> dbsDAO.getCollectionSize(null, coll, filters), COUNT_EXECUTOR);
+            } else {
+                // the client session cannot be used by two threads concurrently
+                size = dbsDAO.getCollectionSize(request.getClientSession(), coll, request.getFiltersDocument());
+            }
         }
 
         // ***** get data
@@ -99,16 +177,45 @@ public class GetCollectionHandler extends PipelinedHandler {
 
         if (request.getPagesize() > 0) {
             try {
-                data = dbsDAO.getCollectionData(
-                        request.getClientSession(),
-                        coll,
-                        request.getPage(),
-                        request.getPagesize(),
-                        request.getSortByDocument(),
-                        request.getFiltersDocument(),
-                        request.getHintDocument(),
-                        request.getProjectionDocument(),
-                        request.getCursorAllocationPolicy());
+                if (request.isKeysetPagination()) {
+                    var sort = KeysetPagination.sortDocument(request.getSortByDocument());
+
+                    data = dbsDAO.getCollectionDataAfter(
+                            request.getClientSession(),
+                            coll,
+                            request.getPagesize(),
+                            sort,
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            request.getProjectionDocument());
+
+                    injectContinuationToken(response, sort, data, request.getPagesize());
+                } else if (isStreamable(request)) {
+                    // the cursor is opened here, so that query errors are handled below
+                    var cursor = dbsDAO.getCollectionDataCursor(
+                            request.getClientSession(),
+                            coll,
+                            request.getPage(),
+                            request.getPagesize(),
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            request.getProjectionDocument(),
+                            request.getCursorAllocationPolicy());
+
+                    response.setStreamedContent(cursor, request.getPagesize());
+                } else {
+                    data = dbsDAO.getCollectionData(
+                            request.getClientSession(),
+                            coll,
+                            request.getPage(),
+                            request.getPagesize(),
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            request.getProjectionDocument(),
+                            request.getCursorAllocationPolicy());
+                }
             } catch (JsonParseException jpe) {
                 // the filter expression is not a valid json string
                 LOGGER.debug("invalid filter expression {}", request.getFilter(), jpe);
@@ -128,19 +235,53 @@ public class GetCollectionHandler extends PipelinedHandler {
             }
         }
 
+        if (asyncSize != null) {
+            try {
+                size = asyncSize.join();
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException re) {
+                    throw re;
+                } else {
+                    throw ce;
+                }
+            }
+        }
+
         if (exchange.isComplete()) {
             // if an error occured getting data, the exchange is already closed
             return;
         }
 
         try {
-            response.setContent(data);
+            if (isPageEtags()) {
+                // the page etag requires the documents, i.e. the response is not streamed
+                var etag = ResponseHelper.pageEtag(request.getCollectionProps(), data, size);
+
+                ResponseHelper.injectEtagHeader(exchange, etag);
+
+                // in case the request contains the IF_NONE_MATCH header with the current etag value,
+                // just return 304 NOT_MODIFIED code
+                if (RequestHelper.checkReadEtag(exchange, etag)) {
+                    response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                    next(exchange);
+                    return;
+                }
+            } else {
+                ResponseHelper.injectEtagHeader(exchange, request.getCollectionProps());
+            }
+
+            if (!response.isContentStreamed()) {
+                response.setContent(data);
+            }
+
             response.setCount(size);
 
             response.setContentTypeAsJson();
             response.setStatusCode(HttpStatus.SC_OK);
 
-            ResponseHelper.injectEtagHeader(exchange, request.getCollectionProps());
+            if (cacheKey != null) {
+                cacheResponse(exchange, cacheKey, cacheGeneration, maxStaleness);
+            }
 
             // call the ResponseTransformerMetadataHandler if piped in
             next(exchange);
@@ -149,4 +290,79 @@ public class GetCollectionHandler extends PipelinedHandler {
             next(exchange);
         }
     }
+
+    /**
+     * the documents are streamed to the client, unless keyset pagination is
+     * used (the continuation token, sent as a header, requires the last
+     * document), the request is in a client session (the session could
+     * be closed before sending the response) or page-etags is enabled (the
+     * etag, sent as a header, requires all the documents)
+     */
+    private boolean isStreamable(MongoRequest request) {
+        return MongoServiceConfiguration.get() != null
+                && MongoServiceConfiguration.get().isStreamingResponses()
+                && !isPageEtags()
+                && !request.isKeysetPagination()
+                && request.getClientSession() == null;
+    }
+
+    /**
+     * with page-etags, the ETag header is computed from the returned documents
+     * and a matching If-None-Match request header gets 304 Not Modified
+     */
+    private boolean isPageEtags() {
+        return MongoServiceConfiguration.get() != null
+                && MongoServiceConfiguration.get().isPageEtags();
+    }
+
+    /**
+     * responses are cached if the cache is enabled, for collections and
+     * requests not using keyset pagination, client sessions or the nocache
+     * query parameter
+     */
+    private boolean isCacheable(MongoRequest request) {
+        return ResponseCache.getInstance().isEnabled()
+                && request.isCollection()
+                && !request.isKeysetPagination()
+                && request.getClientSession() == null
+                && !request.isNoCache();
+    }
+
+    /**
+     * caches the response once it has been written to the client, i.e. after
+     * the response interceptors have been executed
+     */
+    private void cacheResponse(HttpServerExchange exchange, ResponseCache.Key key, long generation, long maxStaleness) {
+        var response = MongoResponse.of(exchange);
+
+        response.setContentWrittenListener(content -> {
+            if (response.getStatusCode() == HttpStatus.SC_OK && !response.isInError()) {
+                ResponseCache.getInstance().put(key,
+                        content,
+                        exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE),
+                        exchange.getResponseHeaders().getFirst(Headers.ETAG),
+                        generation,
+                        maxStaleness);
+            }
+        }, ResponseCache.getInstance().getMaxEntrySize());
+    }
+
+    /**
+     * sets the Continuation-Token response header if the page is full, i.e.
+     * there might be a next page
+     */
+    private void injectContinuationToken(MongoResponse response, BsonDocument sort, BsonArray data, int pagesize) {
+        if (data.size() < pagesize || !data.get(data.size() - 1).isDocument()) {
+            return;
+        }
+
+        var values = KeysetPagination.sortKeyValues(sort, data.get(data.size() - 1).asDocument());
+
+        if (values == null) {
+            response.addWarning("cannot generate the continuation token, "
+                    + "the sort keys must be included in the returned documents");
+        } else {
+            response.getHeaders().put(HttpString.tryFromString(CONTINUATION_TOKEN_HEADER), KeysetPagination.encode(sort, values));
+        }
+    }
 }
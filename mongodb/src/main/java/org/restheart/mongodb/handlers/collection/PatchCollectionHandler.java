@@ -29,6 +29,7 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.DatabaseImpl;
 import org.restheart.mongodb.db.OperationResult;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.utils.HttpStatus;
@@ -142,6 +143,8 @@ public class PatchCollectionHandler extends PipelinedHandler {
                         request.getDBName(),
                         request.getCollectionName());
 
+        ResponseCache.getInstance().invalidate(request.getDBName(), request.getCollectionName());
+
         next(exchange);
     }
 
@@ -131,10 +131,13 @@ public class PostCollectionHandler extends PipelinedHandler {
             content,
             request.getWriteMode(),
             request.getETag(),
-            request.isETagCheckRequired());
+            request.isETagCheckRequired(),
+            !request.isReturnMinimal());
 
         response.setDbOperationResult(result);
 
+        ResponseHelper.injectPreferenceAppliedHeader(exchange);
+
         // inject the etag
         if (result.getEtag() != null) {
             ResponseHelper.injectEtagHeader(exchange, result.getEtag());
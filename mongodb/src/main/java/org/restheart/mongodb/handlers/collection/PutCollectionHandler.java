@@ -31,6 +31,7 @@ import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.Database;
 import org.restheart.mongodb.db.DatabaseImpl;
 import org.restheart.mongodb.db.OperationResult;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
@@ -119,6 +120,8 @@ public class PutCollectionHandler extends PipelinedHandler {
                 request.getDBName(),
                 request.getCollectionName());
 
+        ResponseCache.getInstance().invalidate(request.getDBName(), request.getCollectionName());
+
         // inject the etag
         if (result.getEtag() != null) {
             ResponseHelper.injectEtagHeader(exchange, result.getEtag());
@@ -29,6 +29,7 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.DatabaseImpl;
 import org.restheart.mongodb.db.OperationResult;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
@@ -108,6 +109,8 @@ public class DeleteDBHandler extends PipelinedHandler {
 
         MetadataCachesSingleton.getInstance().invalidateDb(request.getDBName());
 
+        ResponseCache.getInstance().invalidateDb(request.getDBName());
+
         next(exchange);
     }
 }
@@ -29,6 +29,7 @@ import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.DocumentDAO;
 import org.restheart.mongodb.db.OperationResult;
 import org.restheart.mongodb.utils.RequestHelper;
+import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
 
 /**
@@ -108,10 +109,13 @@ public class PatchDocumentHandler extends PipelinedHandler {
                 request.getETag(),
                 true,
                 request.getWriteMode(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                !request.isReturnMinimal());
 
         response.setDbOperationResult(result);
 
+        ResponseHelper.injectPreferenceAppliedHeader(exchange);
+
         if (RequestHelper.isResponseInConflict(result, exchange)) {
             next(exchange);
             return;
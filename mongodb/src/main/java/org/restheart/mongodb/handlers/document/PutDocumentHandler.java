@@ -123,10 +123,13 @@ public class PutDocumentHandler extends PipelinedHandler {
                 etag,
                 false,
                 request.getWriteMode(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                !request.isReturnMinimal());
 
         response.setDbOperationResult(result);
 
+        ResponseHelper.injectPreferenceAppliedHeader(exchange);
+
         // inject the etag
         if (result.getEtag() != null) {
             ResponseHelper.injectEtagHeader(exchange, result.getEtag());
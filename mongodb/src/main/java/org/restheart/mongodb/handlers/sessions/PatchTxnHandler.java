@@ -25,6 +25,7 @@ import java.util.UUID;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.db.sessions.Txn;
 import org.restheart.mongodb.db.sessions.TxnClientSessionFactory;
 import org.restheart.utils.HttpStatus;
@@ -79,6 +80,9 @@ public class PatchTxnHandler extends PipelinedHandler {
 
         cs.commitTransaction();
 
+        // the writes of the transaction are visible only now
+        ResponseCache.getInstance().invalidateAll();
+
         response.setContentTypeAsJson();
         response.setStatusCode(HttpStatus.SC_OK);
 
@@ -20,9 +20,12 @@
  */
 package org.restheart.mongodb.interceptors;
 
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
 import java.util.ArrayList;
 import java.util.List;
 import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
 import org.json.JSONObject;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
@@ -78,21 +81,51 @@ public class JsonSchemaAfterWriteChecker extends JsonSchemaBeforeWriteChecker {
     }
 
     String documentToCheck(MongoRequest request, MongoResponse response) {
-        return response.getDbOperationResult().getNewData() == null
+        var newData = newData(request, response);
+
+        return newData == null
                 ? "{}"
-                : BsonUtils.toJson(response.getDbOperationResult().getNewData(), request.getJsonMode());
+                : BsonUtils.toJson(newData, request.getJsonMode());
     }
 
     @Override
     List<JSONObject> documentsToCheck(MongoRequest request, MongoResponse response) {
         var ret = new ArrayList<JSONObject>();
 
-        var content = response.getDbOperationResult().getNewData() == null
+        var newData = newData(request, response);
+
+        var content = newData == null
                 ? new BsonDocument()
-                : response.getDbOperationResult().getNewData();
+                : newData;
 
         ret.add(new JSONObject(BsonUtils.toJson(content, request.getJsonMode())));
 
         return ret;
     }
+
+    /**
+     * @return the patched document, read from the db if the write did not
+     * return it, i.e. with the request header 'Prefer: return=minimal'
+     */
+    private BsonDocument newData(MongoRequest request, MongoResponse response) {
+        var newData = response.getDbOperationResult().getNewData();
+
+        if (newData != null) {
+            return newData;
+        }
+
+        Bson query = eq("_id", request.getDocumentId());
+
+        if (request.getShardKey() != null) {
+            query = and(query, request.getShardKey());
+        }
+
+        var coll = MongoClientSingleton.getInstance().getClient()
+                .getDatabase(request.getDBName())
+                .getCollection(request.getCollectionName(), BsonDocument.class);
+
+        var cs = request.getClientSession();
+
+        return cs == null ? coll.find(query).first() : coll.find(cs, query).first();
+    }
 }
@@ -21,6 +21,10 @@
 package org.restheart.mongodb.interceptors;
 
 import com.mongodb.MongoException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.bson.BsonDocument;
 import org.restheart.cache.Cache;
@@ -180,6 +184,47 @@ public class MetadataCachesSingleton {
         }
     }
 
+    /**
+     * gets the properties of the given existing collections, loading the ones
+     * not in the cache with a single query
+     *
+     * @param dbName
+     * @param collNames the names of existing collections
+     * @return the properties of the collections, by collection name
+     */
+    public Map<String, BsonDocument> getCollectionsProperties(String dbName, List<String> collNames) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        var ret = new HashMap<String, BsonDocument>();
+        var missing = new ArrayList<String>();
+
+        for (var collName : collNames) {
+            Optional<BsonDocument> _collProps = collectionPropsCache.get(dbName + SEPARATOR + collName);
+
+            if (_collProps != null && _collProps.isPresent()) {
+                ret.put(collName, _collProps.get());
+            } else {
+                missing.add(collName);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            var loaded = this.dbsDAO.getCollectionsProperties(
+                    null, // no client session
+                    dbName,
+                    missing);
+
+            loaded.forEach((collName, collProps) -> {
+                collectionPropsCache.put(dbName + SEPARATOR + collName, collProps);
+                ret.put(collName, collProps);
+            });
+        }
+
+        return ret;
+    }
+
     /**
      *
      * @param dbName
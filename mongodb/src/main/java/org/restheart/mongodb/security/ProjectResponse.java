@@ -46,7 +46,17 @@ public class ProjectResponse implements MongoInterceptor {
 
         boolean inclusions = projection.get(projection.keySet().stream().findAny().get()).asInt32().getValue() == 1;
 
-        if (response.getContent().isDocument()) {
+        if (response.isContentStreamed()) {
+            // project the documents as they are streamed
+            if (inclusions) {
+                response.transformStreamedContent(doc -> projectInclusions(doc, projection));
+            } else {
+                response.transformStreamedContent(doc -> {
+                    projectExclusions(doc, projection);
+                    return doc;
+                });
+            }
+        } else if (response.getContent().isDocument()) {
             if (inclusions) {
                 var projected = projectInclusions(response.getContent().asDocument(), projection);
                 response.setContent(projected);
@@ -112,15 +122,18 @@ public class ProjectResponse implements MongoInterceptor {
 
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
-        if (!request.isHandledBy("mongo") || response.getContent() == null || !request.isGet()) {
+        // cached responses are already projected
+        if (!request.isHandledBy("mongo") || !request.isGet() || response.isContentCached()) {
             return false;
         }
 
         var mongoPermission = MongoPermissions.of(request);
 
+        // check the content last: reading streamed content materializes it
         if (mongoPermission != null) {
             return mongoPermission.getProjectResponse() != null
-                && !mongoPermission.getProjectResponse().isEmpty();
+                && !mongoPermission.getProjectResponse().isEmpty()
+                && (response.isContentStreamed() || response.getContent() != null);
         } else {
             return false;
         }
@@ -24,6 +24,7 @@ import java.util.Deque;
 import org.restheart.exchange.ByteArrayRequest;
 import org.restheart.exchange.ByteArrayResponse;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.ResponseCache;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.plugins.ByteArrayService;
 import org.restheart.plugins.RegisterPlugin;
@@ -70,11 +71,13 @@ public class CacheInvalidator implements ByteArrayService {
 
                 if (_coll == null || _coll.getFirst() == null) {
                     MetadataCachesSingleton.getInstance().invalidateDb(db);
+                    ResponseCache.getInstance().invalidateDb(db);
                 } else {
                     String coll = _coll.getFirst();
 
                     MetadataCachesSingleton.getInstance()
                             .invalidateCollection(db, coll);
+                    ResponseCache.getInstance().invalidate(db, coll);
                 }
 
                 response.setStatusCode(HttpStatus.SC_OK);
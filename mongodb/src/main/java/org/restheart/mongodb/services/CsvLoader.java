@@ -20,21 +20,28 @@
  */
 package org.restheart.mongodb.services;
 
-import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import io.undertow.server.HttpServerExchange;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
+import org.restheart.exchange.BadRequestException;
 import org.restheart.exchange.BsonFromCsvRequest;
 import org.restheart.exchange.BsonResponse;
+import org.restheart.mongodb.db.ChunkedBulkWriter;
 import org.restheart.mongodb.db.MongoClientSingleton;
+import org.restheart.mongodb.db.PartialBulkWriteException;
+import org.restheart.mongodb.db.ResponseCache;
+import org.restheart.mongodb.handlers.bulk.BulkResultRepresentationFactory;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
 import org.restheart.utils.HttpStatus;
@@ -55,6 +62,10 @@ import org.restheart.utils.BsonUtils;
  * props to add to each row<br>
  * defined in conf file) of a tranformer to apply to imported data - update
  * optional (default: no).use data to update matching documents");
+ * <br>
+ * rows are parsed as they are read from the request and written with
+ * unordered bulk writes of bulk-write-chunk-size documents, see the
+ * mongo service configuration
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
@@ -87,9 +98,9 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
 
     // private static final String ERROR_PARSING_DATA = "Error parsing CSV, see logs for more information";
 
-    private final static FindOneAndUpdateOptions FAU_NO_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(false);
+    private final static UpdateOptions NO_UPSERT_OPS = new UpdateOptions().upsert(false);
 
-    private final static FindOneAndUpdateOptions FAU_WITH_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(true);
+    private final static UpdateOptions UPSERT_OPS = new UpdateOptions().upsert(true);
 
     /**
      *
@@ -120,61 +131,40 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
                     if (params.update && params.idIdx < 0) {
                         response.setInError(HttpStatus.SC_BAD_REQUEST, ERROR_NO_ID);
                     } else {
-                        BsonArray documents = request.getContent();
+                        var documents = request.documents();
 
-                        if (documents != null && documents.size() > 0) {
+                        if (documents.hasNext()) {
                             var mcoll = MongoClientSingleton.getInstance().getClient()
                                     .getDatabase(params.db).getCollection(params.coll, BsonDocument.class);
 
-                            if (params.update && !params.upsert) {
-                                documents.stream()
-                                        .map(doc -> doc.asDocument())
+                            try {
+                                // rows are parsed while the previous chunks are written
+                                ChunkedBulkWriter.getInstance().write(null, mcoll, documents, chunk -> chunk.stream()
                                         // add props specified via keys and values qparams
                                         .map(doc -> addProps(params, doc))
-                                        .forEach(doc -> {
-                                            BsonDocument updateQuery = new BsonDocument("_id", doc.remove("_id"));
-
-                                            // for upate import, take _filter property into account
-                                            // for instance, a filter allows to use $ positional array operator
-                                            BsonValue _filter = doc.remove(FILTER_PROPERTY);
-
-                                            if (_filter != null && _filter.isDocument()) {
-                                                updateQuery.putAll(_filter.asDocument());
-                                            }
-                                            if (params.upsert) {
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                        FAU_WITH_UPSERT_OPS);
-                                            } else {
-
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                        FAU_NO_UPSERT_OPS);
-                                            }
-                                        });
-                            } else if (params.update && params.upsert) {
-                                documents.stream()
-                                        .map(doc -> doc.asDocument())
-                                        // add props specified via keys and values qparams
-                                        .map(doc -> addProps(params, doc))
-                                        .forEach(doc -> {
-                                            var updateQuery = new BsonDocument("_id", doc.remove("_id"));
-
-                                            mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                    FAU_WITH_UPSERT_OPS);
-                                        });
-                            } else {
-                                var docList = documents.stream()
-                                        .map(doc -> doc.asDocument())
-                                        // add props specified via keys and values qparams
-                                        .map(doc -> addProps(params, doc))
-                                        .collect(Collectors.toList());
-
-                                mcoll.insertMany(docList);
+                                        .map(doc -> writeModel(params, doc))
+                                        .collect(Collectors.toList()));
+                            } finally {
+                                ResponseCache.getInstance().invalidate(mcoll.getNamespace());
                             }
+
                             response.setStatusCode(HttpStatus.SC_OK);
                         } else {
                             response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
                         }
                     }
+                } catch (BadRequestException bre) {
+                    response.setInError(bre.getStatusCode(), bre.getMessage());
+                } catch (PartialBulkWriteException pbwe) {
+                    if (!(pbwe.getCause() instanceof BadRequestException bre)) {
+                        throw pbwe;
+                    }
+
+                    // the rows read before the error have been imported,
+                    // report them along with the error
+                    response.setInError(bre.getStatusCode(), bre.getMessage());
+                    response.getContent().asDocument().putAll(new BulkResultRepresentationFactory()
+                            .getRepresentation(request.getPath(), pbwe.getWriteResult(), pbwe.getWriteErrors()));
                 } catch (IllegalArgumentException iae) {
                     response.setInError(HttpStatus.SC_BAD_REQUEST,
                             ERROR_QPARAM);
@@ -186,6 +176,28 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
         }
     }
 
+    private WriteModel<BsonDocument> writeModel(CsvRequestParams params, BsonDocument doc) {
+        if (params.update && !params.upsert) {
+            var updateQuery = new BsonDocument("_id", doc.remove("_id"));
+
+            // for upate import, take _filter property into account
+            // for instance, a filter allows to use $ positional array operator
+            var _filter = doc.remove(FILTER_PROPERTY);
+
+            if (_filter != null && _filter.isDocument()) {
+                updateQuery.putAll(_filter.asDocument());
+            }
+
+            return new UpdateOneModel<>(updateQuery, new BsonDocument("$set", doc), NO_UPSERT_OPS);
+        } else if (params.update && params.upsert) {
+            var updateQuery = new BsonDocument("_id", doc.remove("_id"));
+
+            return new UpdateOneModel<>(updateQuery, new BsonDocument("$set", doc), UPSERT_OPS);
+        } else {
+            return new InsertOneModel<>(doc);
+        }
+    }
+
     private boolean doesApply(BsonFromCsvRequest request) {
         return request.isPost();
     }
@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.utils;
+
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonReader;
+
+/**
+ * Parses a json array incrementally, one element at a time, so that the whole
+ * array is never held in memory.
+ *
+ * hasNext() and next() throw JsonParseException or
+ * BsonInvalidOperationException if the json is not valid or not an array.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class JsonArrayStreamParser implements Iterator<BsonValue> {
+    private static final BsonValueCodec CODEC = new BsonValueCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private final JsonReader reader;
+
+    private boolean started = false;
+    private boolean ended = false;
+    private BsonValue next = null;
+
+    /**
+     * @param reader the reader of the json array
+     */
+    public JsonArrayStreamParser(Reader reader) {
+        this.reader = new JsonReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() throws JsonParseException {
+        if (next != null) {
+            return true;
+        }
+
+        if (ended) {
+            return false;
+        }
+
+        if (!started) {
+            reader.readStartArray();
+            started = true;
+        }
+
+        if (reader.readBsonType() == BsonType.END_OF_DOCUMENT) {
+            reader.readEndArray();
+            ended = true;
+            return false;
+        }
+
+        next = CODEC.decode(reader, DECODER_CONTEXT);
+
+        return true;
+    }
+
+    @Override
+    public BsonValue next() throws JsonParseException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        var ret = next;
+        next = null;
+
+        return ret;
+    }
+}
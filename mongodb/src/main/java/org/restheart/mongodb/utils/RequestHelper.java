@@ -55,6 +55,45 @@ public class RequestHelper {
         return vs == null || vs.getFirst() == null ? false : vs.getFirst().equals(etag.getValue().toString());
     }
 
+    /**
+     *
+     * @param exchange
+     * @param etag
+     * @return true if the IF_NONE_MATCH header matches etag, either as is or
+     *         as a quoted, weak or comma separated entity tag
+     */
+    public static boolean checkReadEtag(HttpServerExchange exchange, String etag) {
+        if (etag == null) {
+            return false;
+        }
+
+        HeaderValues vs = exchange.getRequestHeaders().get(Headers.IF_NONE_MATCH);
+
+        if (vs == null) {
+            return false;
+        }
+
+        for (var v : vs) {
+            for (var tag : v.split(",")) {
+                var _tag = tag.trim();
+
+                if (_tag.startsWith("W/")) {
+                    _tag = _tag.substring(2);
+                }
+
+                if (_tag.length() > 1 && _tag.startsWith("\"") && _tag.endsWith("\"")) {
+                    _tag = _tag.substring(1, _tag.length() - 1);
+                }
+
+                if (_tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     /**
      *
      * @param exchange
@@ -22,15 +22,22 @@ package org.restheart.mongodb.utils;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
 
+import com.google.common.hash.Hashing;
 import com.mongodb.MongoException;
 
+import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.types.ObjectId;
+import org.restheart.exchange.MongoRequest;
 import org.restheart.utils.HttpStatus;
 
+import static org.restheart.exchange.ExchangeKeys.PREFERENCE_APPLIED_HEADER;
+import static org.restheart.exchange.ExchangeKeys.RETURN_MINIMAL_PREFERENCE;
+
 /**
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
@@ -46,6 +53,18 @@ public class ResponseHelper {
         exchange.getResponseHeaders().put(Headers.ETAG, etag);
     }
 
+    /**
+     * Sets the Preference-Applied header if the request has the header
+     * 'Prefer: return=minimal'
+     *
+     * @param exchange
+     */
+    public static void injectPreferenceAppliedHeader(HttpServerExchange exchange) {
+        if (MongoRequest.of(exchange).isReturnMinimal()) {
+            exchange.getResponseHeaders().put(HttpString.tryFromString(PREFERENCE_APPLIED_HEADER), RETURN_MINIMAL_PREFERENCE);
+        }
+    }
+
     /**
      *
      * @param exchange
@@ -126,6 +145,46 @@ public class ResponseHelper {
 
     }
 
+    /**
+     * computes the etag of a page of documents, i.e. of the response of a
+     * collection or aggregation GET request. Documents with _etag contribute
+     * with their _id and _etag, other documents with their whole content.
+     *
+     * @param collProps the collection properties, its _etag is included
+     * @param data the documents of the page
+     * @param count the number of documents of the collection, or -1
+     * @return the etag of the page
+     */
+    public static String pageEtag(BsonDocument collProps, BsonArray data, long count) {
+        var hasher = Hashing.murmur3_128().newHasher();
+
+        if (collProps != null && collProps.containsKey("_etag")) {
+            hasher.putUnencodedChars(collProps.get("_etag").toString());
+        }
+
+        hasher.putByte((byte) 0).putLong(count);
+
+        if (data != null) {
+            for (var value : data) {
+                if (value.isDocument()
+                        && value.asDocument().containsKey("_id")
+                        && value.asDocument().containsKey("_etag")) {
+                    hasher.putUnencodedChars(value.asDocument().get("_id").toString())
+                            .putByte((byte) 0)
+                            .putUnencodedChars(value.asDocument().get("_etag").toString());
+                } else if (value.isDocument()) {
+                    hasher.putUnencodedChars(value.asDocument().toJson());
+                } else {
+                    hasher.putUnencodedChars(value.toString());
+                }
+
+                hasher.putByte((byte) 0);
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
     /**
      *
      * @param code mongodb error code from MongoException.getCode()
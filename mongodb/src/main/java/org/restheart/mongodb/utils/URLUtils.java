@@ -457,7 +457,7 @@ public class URLUtils {
         } else if (id.isObjectId()) {
             return id.asObjectId().getValue().toHexString();
         } else {
-            return BsonUtils.minify(BsonUtils.toJson(id));
+            return BsonUtils.toJson(id);
         }
     }
 
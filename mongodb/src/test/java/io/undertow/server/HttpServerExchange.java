@@ -47,6 +47,7 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap responseHeaders = new HeaderMap();
 
     /**
      *
@@ -178,6 +179,14 @@ public class HttpServerExchange extends AbstractAttachable {
         return null;
     }
 
+    /**
+     *
+     * @return
+     */
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
     /**
      *
      * @return
@@ -0,0 +1,133 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoNamespace;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.restheart.mongodb.handlers.aggregation.AbstractAggregationOperation.CachePolicy;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AggregationCacheTest {
+    private static final CachePolicy POLICY = new CachePolicy(60_000, 10);
+
+    private static AggregationCache.Key key(MongoNamespace ns, int n) {
+        return new AggregationCache.Key(ns, "test", new BsonArray(List.of(new BsonDocument("$limit", new BsonInt32(n)))));
+    }
+
+    private static BsonArray result() {
+        return new BsonArray(List.of(new BsonDocument("a", new BsonInt32(1))));
+    }
+
+    @Test
+    public void testHitReturnsCopy() {
+        var cache = new AggregationCache();
+        var ns = new MongoNamespace("db", "hit");
+        var executions = new AtomicInteger();
+
+        var first = cache.get(key(ns, 1), POLICY, () -> { executions.incrementAndGet(); return result(); });
+        first.get(0).asDocument().put("a", new BsonInt32(2));
+
+        var second = cache.get(key(ns, 1), POLICY, () -> { executions.incrementAndGet(); return result(); });
+
+        assertEquals(1, executions.get());
+        assertEquals(result(), second);
+
+        // different resolved definition
+        cache.get(key(ns, 2), POLICY, () -> { executions.incrementAndGet(); return result(); });
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testWriteInvalidates() {
+        var cache = new AggregationCache();
+        var ns = new MongoNamespace("db", "invalidated");
+        var executions = new AtomicInteger();
+
+        cache.get(key(ns, 1), POLICY, () -> { executions.incrementAndGet(); return result(); });
+
+        ResponseCache.getInstance().invalidate(ns);
+
+        cache.get(key(ns, 1), POLICY, () -> { executions.incrementAndGet(); return result(); });
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testConcurrentMissesExecuteOnce() throws Exception {
+        var cache = new AggregationCache();
+        var ns = new MongoNamespace("db", "concurrent");
+        var executions = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+
+        try {
+            var first = executor.submit(() -> cache.get(key(ns, 1), POLICY, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return result();
+            }));
+
+            started.await();
+
+            var others = new ArrayList<Future<BsonArray>>();
+
+            for (int i = 0; i < 3; i++) {
+                others.add(executor.submit(() -> cache.get(key(ns, 1), POLICY, () -> {
+                    executions.incrementAndGet();
+                    return result();
+                })));
+            }
+
+            release.countDown();
+
+            assertEquals(result(), first.get(10, TimeUnit.SECONDS));
+
+            for (var other : others) {
+                assertEquals(result(), other.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
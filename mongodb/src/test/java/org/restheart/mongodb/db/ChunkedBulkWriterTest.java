@@ -0,0 +1,163 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ChunkedBulkWriterTest {
+
+    private static List<BsonDocument> docs(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(n -> new BsonDocument("_id", new BsonInt32(n)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<WriteModel<BsonDocument>> inserts(List<BsonDocument> chunk) {
+        return chunk.stream()
+                .map(d -> (WriteModel<BsonDocument>) new InsertOneModel<>(d))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResultsOfChunksAreAggregated() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> {
+            var models = (List<WriteModel<BsonDocument>>) i.getArgument(0);
+            return BulkWriteResult.acknowledged(models.size(), 0, 0, 0, List.of(), List.of(new BulkWriteInsert(0, new BsonInt32(0))));
+        });
+
+        var result = new ChunkedBulkWriter(2, 2).write(null, coll, docs(5).iterator(), ChunkedBulkWriterTest::inserts);
+
+        verify(coll, times(3)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        assertEquals(5, result.getInsertedCount());
+        // the indexes refer to the position of the documents in the request
+        assertEquals(List.of(0, 2, 4), result.getInserts().stream().map(BulkWriteInsert::getIndex).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWriteErrorsOfChunksAreAggregated() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                null,
+                new ServerAddress(),
+                Set.of()));
+
+        try {
+            new ChunkedBulkWriter(2, 1).write(null, coll, docs(4).iterator(), ChunkedBulkWriterTest::inserts);
+            fail("a MongoBulkWriteException was expected");
+        } catch (MongoBulkWriteException mbwe) {
+            assertEquals(2, mbwe.getWriteResult().getInsertedCount());
+            assertEquals(List.of(1, 3), mbwe.getWriteErrors().stream().map(BulkWriteError::getIndex).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadErrorAfterWrittenChunks() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> {
+            var models = (List<WriteModel<BsonDocument>>) i.getArgument(0);
+            return BulkWriteResult.acknowledged(models.size(), 0, 0, 0, List.of(), List.of());
+        });
+
+        // the third document cannot be read
+        var docs = docs(2).iterator();
+        var failing = new Iterator<BsonDocument>() {
+            @Override
+            public boolean hasNext() {
+                if (!docs.hasNext()) {
+                    throw new IllegalArgumentException("invalid json");
+                }
+
+                return true;
+            }
+
+            @Override
+            public BsonDocument next() {
+                return docs.next();
+            }
+        };
+
+        try {
+            new ChunkedBulkWriter(1, 1).write(null, coll, failing, ChunkedBulkWriterTest::inserts);
+            fail("a PartialBulkWriteException was expected");
+        } catch (PartialBulkWriteException pbwe) {
+            assertTrue(pbwe.getCause() instanceof IllegalArgumentException);
+            assertEquals(2, pbwe.getWriteResult().getInsertedCount());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadErrorBeforeWrites() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        var failing = new Iterator<BsonDocument>() {
+            @Override
+            public boolean hasNext() {
+                throw new IllegalArgumentException("invalid json");
+            }
+
+            @Override
+            public BsonDocument next() {
+                throw new IllegalStateException();
+            }
+        };
+
+        try {
+            new ChunkedBulkWriter(10, 1).write(null, coll, failing, ChunkedBulkWriterTest::inserts);
+            fail("an IllegalArgumentException was expected");
+        } catch (IllegalArgumentException iae) {
+            verify(coll, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.HashMap;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CursorPoolTest {
+
+    private static final long TTL = 60 * 1000;
+
+    private static final BsonDocument FILTER = new BsonDocument("status", new BsonString("active"));
+    private static final BsonDocument SORT = new BsonDocument("_id", new BsonInt32(-1));
+
+    @BeforeClass
+    public static void init() {
+        MongoServiceConfiguration.init(new HashMap<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<BsonDocument> collection(String name) {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+        when(coll.getNamespace()).thenReturn(new MongoNamespace("db", name));
+        return coll;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FindIterable<BsonDocument> cursor() {
+        return mock(FindIterable.class);
+    }
+
+    private static CursorPoolEntryKey key(MongoCollection<BsonDocument> coll, BsonDocument filter, int skipped) {
+        return new CursorPoolEntryKey(null, coll, SORT, filter, null, null, skipped, System.nanoTime());
+    }
+
+    @Test
+    public void testCursorIsReusedByQueryShape() {
+        var pool = new CursorPool(null, 10, TTL);
+        var coll = collection("coll");
+        var cursor = cursor();
+
+        pool.put(key(coll, FILTER, 2000), cursor);
+        assertEquals(1, pool.size());
+
+        var misses = pool.getMisses();
+
+        // different filter, different collection, too many skips to reach
+        assertNull(pool.get(key(coll, new BsonDocument("status", new BsonString("inactive")), 2050), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+        assertNull(pool.get(key(collection("other"), FILTER, 2050), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+        assertNull(pool.get(key(coll, FILTER, 3000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+        assertEquals(misses + 3, pool.getMisses());
+        assertEquals(1, pool.size());
+
+        var hits = pool.getHits();
+
+        // same shape from another collection object on the same namespace
+        var found = pool.get(key(collection("coll"), FILTER, 2050), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR);
+
+        assertNotNull(found);
+        assertSame(cursor, found.findIterable());
+        assertEquals(2000, found.alreadySkipped());
+        assertEquals(hits + 1, pool.getHits());
+
+        // the cursor is taken out of the pool
+        assertEquals(0, pool.size());
+        assertNull(pool.get(key(coll, FILTER, 2050), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+    }
+
+    @Test
+    public void testClosestCursorIsReused() {
+        var pool = new CursorPool(null, 10, TTL);
+        var coll = collection("coll");
+        var farther = cursor();
+        var closer = cursor();
+
+        pool.put(key(coll, FILTER, 2000), farther);
+        pool.put(key(coll, FILTER, 2100), closer);
+
+        var found = pool.get(key(coll, FILTER, 2150), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR);
+
+        assertSame(closer, found.findIterable());
+        assertEquals(2100, found.alreadySkipped());
+    }
+
+    @Test
+    public void testExpiredCursorsAreEvicted() throws InterruptedException {
+        var pool = new CursorPool(null, 10, 1);
+        var coll = collection("coll");
+
+        pool.put(key(coll, FILTER, 2000), cursor());
+        pool.put(key(coll, FILTER, 3000), cursor());
+        pool.put(key(collection("other"), FILTER, 2000), cursor());
+        assertEquals(3, pool.size());
+
+        Thread.sleep(10);
+
+        var evictions = pool.getEvictions();
+
+        pool.evictExpired();
+
+        assertEquals(0, pool.size());
+        assertEquals(evictions + 3, pool.getEvictions());
+        assertNull(pool.get(key(coll, FILTER, 2000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+    }
+
+    @Test
+    public void testExpiredCursorIsNotReused() throws InterruptedException {
+        var pool = new CursorPool(null, 10, 1);
+        var coll = collection("coll");
+
+        pool.put(key(coll, FILTER, 2000), cursor());
+
+        Thread.sleep(10);
+
+        var evictions = pool.getEvictions();
+
+        assertNull(pool.get(key(coll, FILTER, 2000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+        assertEquals(evictions + 1, pool.getEvictions());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testFullPoolDiscardsNewCursors() {
+        var pool = new CursorPool(null, 2, TTL);
+        var coll = collection("coll");
+        var first = cursor();
+        var second = cursor();
+
+        pool.put(key(coll, FILTER, 2000), first);
+        pool.put(key(coll, FILTER, 3000), second);
+
+        var evictions = pool.getEvictions();
+
+        pool.put(key(coll, FILTER, 4000), cursor());
+
+        assertEquals(2, pool.size());
+        assertEquals(evictions + 1, pool.getEvictions());
+
+        // the pooled cursors are kept, the new one is discarded
+        assertNull(pool.get(key(coll, FILTER, 4000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+        assertSame(second, pool.get(key(coll, FILTER, 3000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR).findIterable());
+        assertSame(first, pool.get(key(coll, FILTER, 2000), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR).findIterable());
+
+        // taking a cursor frees its place
+        pool.put(key(coll, FILTER, 4000), cursor());
+        assertEquals(1, pool.size());
+    }
+}
@@ -0,0 +1,95 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class KeysetPaginationTest {
+
+    @Test
+    public void testSortDocument() {
+        var sort = KeysetPagination.sortDocument(BsonDocument.parse("{'a': -1, 'b': 11}"));
+
+        assertEquals(BsonDocument.parse("{'a': -1, 'b': 1, '_id': 1}"), sort);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortDocumentMeta() {
+        KeysetPagination.sortDocument(BsonDocument.parse("{'score': {'$meta': 'textScore'}}"));
+    }
+
+    @Test
+    public void testTokenRoundTrip() {
+        var sort = BsonDocument.parse("{'a.b': -1, '_id': 1}");
+        var doc = BsonDocument.parse("{'_id': {'$oid': '5d0b3b6ea4e4c6bd5e9a5c7a'}, 'a': {'b': 'x'}}");
+
+        var values = KeysetPagination.sortKeyValues(sort, doc);
+        var token = KeysetPagination.encode(sort, values);
+
+        assertEquals(values, KeysetPagination.decode(token, sort));
+    }
+
+    @Test
+    public void testMissingSortKey() {
+        var sort = BsonDocument.parse("{'a': 1, '_id': 1}");
+
+        assertNull(KeysetPagination.sortKeyValues(sort, BsonDocument.parse("{'_id': 1}")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokenDifferentSort() {
+        var sort = BsonDocument.parse("{'a': 1, '_id': 1}");
+        var token = KeysetPagination.encode(sort, BsonArray.parse("[1, 2]"));
+
+        KeysetPagination.decode(token, BsonDocument.parse("{'a': -1, '_id': 1}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedToken() {
+        KeysetPagination.decode("not-a-token", BsonDocument.parse("{'_id': 1}"));
+    }
+
+    @Test
+    public void testRangeFilter() {
+        var sort = BsonDocument.parse("{'a': 1, 'b': -1, '_id': 1}");
+        var filter = KeysetPagination.rangeFilter(sort, BsonArray.parse("[1, 2, 3]"));
+
+        assertEquals(BsonDocument.parse("{'$or': ["
+                + "{'a': {'$gt': 1}},"
+                + "{'a': {'$eq': 1}, 'b': {'$lt': 2}},"
+                + "{'a': {'$eq': 1}, 'b': {'$eq': 2}, '_id': {'$gt': 3}}]}"), filter);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokenWithOperators() {
+        var sort = BsonDocument.parse("{'a': 1, '_id': 1}");
+        var token = KeysetPagination.encode(sort, BsonArray.parse("[{'x': {'$ne': null}}, 1]"));
+
+        KeysetPagination.decode(token, sort);
+    }
+}
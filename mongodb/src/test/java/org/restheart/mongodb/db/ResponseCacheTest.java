@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoNamespace;
+import java.nio.charset.StandardCharsets;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ResponseCacheTest {
+    private static final MongoNamespace NS = new MongoNamespace("db", "coll");
+
+    private static ResponseCache.Key key(MongoNamespace ns, String filter) {
+        return new ResponseCache.Key(ns, BsonDocument.parse(filter), new BsonDocument(), null, null,
+                1, 100, false, null, null, null, null);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPutGet() {
+        var cache = new ResponseCache(1024 * 1024, 10_000);
+        var key = key(NS, "{'a': 1}");
+
+        cache.put(key, bytes("[]"), "application/json", null, cache.generation(NS), 10_000);
+
+        var entry = cache.get(key);
+        assertTrue(entry.isPresent());
+        assertArrayEquals(bytes("[]"), entry.get().content());
+        assertEquals("application/json", entry.get().contentType());
+
+        assertFalse(cache.get(key(NS, "{'a': 2}")).isPresent());
+    }
+
+    @Test
+    public void testInvalidate() {
+        var cache = new ResponseCache(1024 * 1024, 10_000);
+        var key = key(NS, "{}");
+        var other = key(new MongoNamespace("db", "other"), "{}");
+
+        cache.put(key, bytes("[]"), "application/json", null, cache.generation(NS), 10_000);
+        cache.put(other, bytes("[]"), "application/json", null, cache.generation(other.namespace()), 10_000);
+
+        cache.invalidate("db", "coll");
+
+        assertFalse(cache.get(key).isPresent());
+        assertTrue(cache.get(other).isPresent());
+
+        cache.invalidateDb("db");
+
+        assertFalse(cache.get(other).isPresent());
+    }
+
+    @Test
+    public void testWriteWhileQuerying() {
+        var cache = new ResponseCache(1024 * 1024, 10_000);
+        var key = key(NS, "{}");
+
+        // the generation is read before querying the db
+        var generation = cache.generation(NS);
+
+        cache.invalidate(NS);
+
+        cache.put(key, bytes("[]"), "application/json", null, generation, 10_000);
+
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void testMaxStaleness() {
+        var cache = new ResponseCache(1024 * 1024, 10_000);
+
+        assertEquals(10_000, cache.maxStaleness(null));
+        assertEquals(500, cache.maxStaleness(BsonDocument.parse("{'responseCacheMaxStaleness': 500}")));
+        assertEquals(10_000, cache.maxStaleness(BsonDocument.parse("{'responseCacheMaxStaleness': 60000}")));
+        assertEquals(0, cache.maxStaleness(BsonDocument.parse("{'responseCacheMaxStaleness': 0}")));
+
+        var key = key(NS, "{}");
+        cache.put(key, bytes("[]"), "application/json", null, cache.generation(NS), 0);
+
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void testDisabled() {
+        var cache = new ResponseCache(0, 10_000);
+        var key = key(NS, "{}");
+
+        assertFalse(cache.isEnabled());
+
+        cache.put(key, bytes("[]"), "application/json", null, cache.generation(NS), 10_000);
+
+        assertFalse(cache.get(key).isPresent());
+    }
+}
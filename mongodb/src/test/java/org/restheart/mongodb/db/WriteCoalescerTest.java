@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class WriteCoalescerTest {
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<BsonDocument> collection() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+        when(coll.getNamespace()).thenReturn(new MongoNamespace("db", "coll"));
+        return coll;
+    }
+
+    private static BsonDocument doc(int n) {
+        return new BsonDocument("_id", new BsonInt32(n));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testConcurrentInsertsAreCoalesced() throws Exception {
+        var coll = collection();
+        // the batch is written as soon as it is full, long before the linger time
+        var coalescer = new WriteCoalescer(10_000, 3);
+        var executor = Executors.newFixedThreadPool(3);
+
+        try {
+            var futures = new ArrayList<Future<?>>();
+
+            for (int n = 0; n < 3; n++) {
+                var _n = n;
+                futures.add(executor.submit(() -> coalescer.insert(coll, doc(_n))));
+            }
+
+            for (var future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            ArgumentCaptor<List> models = ArgumentCaptor.forClass(List.class);
+
+            verify(coll, times(1)).bulkWrite(models.capture(), any(BulkWriteOptions.class));
+            assertEquals(3, models.getValue().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteErrorsArePerDocument() {
+        var coll = collection();
+        var coalescer = new WriteCoalescer(10_000, 1);
+
+        when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)),
+                null,
+                new ServerAddress(),
+                Set.of()));
+
+        try {
+            coalescer.insert(coll, doc(1));
+            fail("a MongoWriteException was expected");
+        } catch (MongoWriteException mwe) {
+            assertEquals(11000, mwe.getCode());
+        }
+    }
+}
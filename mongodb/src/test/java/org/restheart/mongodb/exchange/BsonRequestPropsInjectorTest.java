@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.exchange;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.util.HashMap;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.restheart.exchange.ExchangeKeys.AFTER_QPARAM_KEY;
+import static org.restheart.exchange.ExchangeKeys.FILTER_QPARAM_KEY;
+import static org.restheart.exchange.ExchangeKeys.SORT_BY_QPARAM_KEY;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.KeysetPagination;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class BsonRequestPropsInjectorTest {
+
+    @BeforeClass
+    public static void setUpClass() {
+        MongoServiceConfiguration.init(new HashMap<>());
+    }
+
+    private static HttpServerExchange exchange(String sortBy, String after, String filter) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll");
+        exchange.setRequestMethod(new HttpString("GET"));
+        exchange.addQueryParam(SORT_BY_QPARAM_KEY, sortBy);
+        exchange.addQueryParam(AFTER_QPARAM_KEY, after);
+
+        if (filter != null) {
+            exchange.addQueryParam(FILTER_QPARAM_KEY, filter);
+        }
+
+        MongoRequest.init(exchange, "/", "*");
+        MongoResponse.init(exchange);
+
+        BsonRequestPropsInjector.inject(exchange);
+
+        return exchange;
+    }
+
+    @Test
+    public void testKeysetRangePredicateIsAFilter() {
+        var sort = KeysetPagination.sortDocument(BsonDocument.parse("{'a': 1}"));
+        var token = KeysetPagination.encode(sort, BsonArray.parse("[{'x': 1}, 2]"));
+
+        var exchange = exchange("a", token, "{'b': true}");
+        var request = MongoRequest.of(exchange);
+
+        assertFalse(MongoResponse.of(exchange).isInError());
+
+        // the range predicate is visible to the security interceptors as any other filter
+        assertEquals(BsonDocument.parse("{'$and': [{'b': true}, {'$or': ["
+                + "{'a': {'$gt': {'x': 1}}},"
+                + "{'a': {'$eq': {'x': 1}}, '_id': {'$gt': 2}}]}]}"), request.getFiltersDocument());
+
+        // the filter qparam, used to build the links, is unchanged
+        assertEquals(1, exchange.getQueryParameters().get(FILTER_QPARAM_KEY).size());
+    }
+
+    @Test
+    public void testTamperedContinuationToken() {
+        var sort = KeysetPagination.sortDocument(BsonDocument.parse("{'password': 1}"));
+        var token = KeysetPagination.encode(sort, BsonArray.parse("[{'$gt': 'a'}, 1]"));
+
+        var exchange = exchange("password", token, null);
+
+        assertTrue(MongoResponse.of(exchange).isInError());
+        assertEquals(HttpStatus.SC_BAD_REQUEST, MongoResponse.of(exchange).getStatusCode());
+        assertTrue(MongoRequest.of(exchange).getFiltersDocument().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.aggregation;
+
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.restheart.exchange.InvalidMetadataException;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AggregationPipelineTest {
+
+    private static AggregationPipeline pipeline(String stages) throws InvalidMetadataException {
+        return new AggregationPipeline(BsonDocument.parse("{'type': 'pipeline', 'uri': 'test', 'stages': " + stages + "}"));
+    }
+
+    @Test
+    public void testPageable() throws InvalidMetadataException {
+        assertTrue(pipeline("[{'_$match': {'a': 1}}]").isPageable());
+        assertTrue(pipeline("[{'_$match': {'a': {'_$var': 'n'}}}]").isPageable());
+    }
+
+    @Test
+    public void testNotPageable() throws InvalidMetadataException {
+        // paging via variables
+        assertFalse(pipeline("[{'_$match': {'a': 1}}, {'_$skip': {'_$var': '@skip'}}, {'_$limit': {'_$var': '@limit'}}]").isPageable());
+        // output stages must be the last ones
+        assertFalse(pipeline("[{'_$match': {'a': 1}}, {'_$out': 'other'}]").isPageable());
+        assertFalse(pipeline("[{'_$merge': {'into': 'other'}}]").isPageable());
+    }
+
+    @Test
+    public void testDefinitionsCachedByEtag() throws InvalidMetadataException {
+        var props = BsonDocument.parse("{'_etag': {'$oid': '5e0f2b3a1c9d440000a1b2c3'}, 'aggrs': [{'type': 'pipeline', 'uri': 'test', 'stages': []}]}");
+
+        var first = AbstractAggregationOperation.getFromJson("db", "coll", props);
+
+        assertEquals(1, first.size());
+        assertSame(first, AbstractAggregationOperation.getFromJson("db", "coll", props.clone()));
+
+        props.put("_etag", BsonDocument.parse("{'a': {'$oid': '5e0f2b3a1c9d440000a1b2c4'}}").get("a"));
+        assertNotSame(first, AbstractAggregationOperation.getFromJson("db", "coll", props));
+    }
+
+    @Test
+    public void testCachePolicy() throws InvalidMetadataException {
+        assertNull(pipeline("[]").getCachePolicy());
+
+        var policy = new AggregationPipeline(BsonDocument.parse("{'type': 'pipeline', 'uri': 'test', 'stages': [], 'cache': {'ttl': 60000}}")).getCachePolicy();
+
+        assertEquals(60_000, policy.ttl());
+        assertEquals(AbstractAggregationOperation.DEFAULT_CACHE_MAX_ENTRIES, policy.maxEntries());
+    }
+
+    @Test(expected = InvalidMetadataException.class)
+    public void testInvalidCachePolicy() throws InvalidMetadataException {
+        new AggregationPipeline(BsonDocument.parse("{'type': 'pipeline', 'uri': 'test', 'stages': [], 'cache': {'maxEntries': 10}}"));
+    }
+}
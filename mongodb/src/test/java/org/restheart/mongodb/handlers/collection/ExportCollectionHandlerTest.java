@@ -0,0 +1,85 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.collection;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.restheart.exchange.MongoResponse.StreamedContentWriter;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ExportCollectionHandlerTest {
+
+    private static String write(StreamedContentWriter contentWriter, String... docs) throws IOException {
+        var writer = new StringWriter();
+
+        contentWriter.start(writer);
+
+        for (var doc : docs) {
+            contentWriter.write(BsonDocument.parse(doc), writer);
+        }
+
+        contentWriter.end(writer);
+
+        return writer.toString();
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        var ndjson = write(new ExportCollectionHandler.NdjsonWriter(null), "{'a': 1}", "{'b': 'x'}");
+
+        assertEquals("{\"a\":1}\n{\"b\":\"x\"}\n", ndjson);
+    }
+
+    @Test
+    public void testCsvColumnsFromFirstDocument() throws IOException {
+        var csv = write(new ExportCollectionHandler.CsvWriter(",", null, null),
+                "{'_id': 1, 'name': 'a,b', 'n': 2}",
+                "{'_id': 2, 'name': 'say \"hi\"', 'other': true}");
+
+        assertEquals("_id,name,n\r\n1,\"a,b\",2\r\n2,\"say \"\"hi\"\"\",\r\n", csv);
+    }
+
+    @Test
+    public void testCsvColumnsFromProjection() throws IOException {
+        var columns = ExportCollectionHandler.CsvWriter.columns(BsonDocument.parse("{'a.b': 1, 'c': 1}"));
+
+        assertEquals(List.of("_id", "a.b", "c"), columns);
+
+        var csv = write(new ExportCollectionHandler.CsvWriter(";", columns, null),
+                "{'_id': 'x', 'a': {'b': [1, 2]}, 'c': 'multi\\nline'}");
+
+        assertEquals("_id;a.b;c\r\nx;[1,2];\"multi\nline\"\r\n", csv);
+    }
+
+    @Test
+    public void testCsvColumnsWithExclusions() {
+        assertNull(ExportCollectionHandler.CsvWriter.columns(BsonDocument.parse("{'a': 0}")));
+        assertNull(ExportCollectionHandler.CsvWriter.columns(BsonDocument.parse("{'_id': 0}")));
+        assertEquals(List.of("a"), ExportCollectionHandler.CsvWriter.columns(BsonDocument.parse("{'_id': 0, 'a': 1}")));
+    }
+}
@@ -0,0 +1,73 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.utils;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ResponseHelperTest {
+    private static final BsonDocument PROPS = BsonDocument.parse("{'_etag': {'$oid': '5e0f2b3a1c9d440000a1b2c3'}}");
+
+    private static BsonArray page(String... docs) {
+        var ret = new BsonArray();
+
+        for (var doc : docs) {
+            ret.add(BsonDocument.parse(doc));
+        }
+
+        return ret;
+    }
+
+    @Test
+    public void testPageEtagIsStable() {
+        var data = page("{'_id': 1, '_etag': 'a', 'v': 1}", "{'_id': 2, '_etag': 'b'}");
+
+        assertEquals(ResponseHelper.pageEtag(PROPS, data, 2), ResponseHelper.pageEtag(PROPS, data.clone(), 2));
+    }
+
+    @Test
+    public void testPageEtagUsesDocumentsEtag() {
+        var etag = ResponseHelper.pageEtag(PROPS, page("{'_id': 1, '_etag': 'a', 'v': 1}"), -1);
+
+        // same _id and _etag
+        assertEquals(etag, ResponseHelper.pageEtag(PROPS, page("{'_id': 1, '_etag': 'a', 'v': 2}"), -1));
+        // updated document
+        assertNotEquals(etag, ResponseHelper.pageEtag(PROPS, page("{'_id': 1, '_etag': 'b', 'v': 2}"), -1));
+        // changed count
+        assertNotEquals(etag, ResponseHelper.pageEtag(PROPS, page("{'_id': 1, '_etag': 'a', 'v': 1}"), 1));
+        // changed collection properties
+        assertNotEquals(etag, ResponseHelper.pageEtag(new BsonDocument(), page("{'_id': 1, '_etag': 'a', 'v': 1}"), -1));
+    }
+
+    @Test
+    public void testPageEtagWithoutDocumentsEtag() {
+        var etag = ResponseHelper.pageEtag(PROPS, page("{'_id': 1, 'v': 1}"), -1);
+
+        assertNotEquals(etag, ResponseHelper.pageEtag(PROPS, page("{'_id': 1, 'v': 2}"), -1));
+        assertNotEquals(etag, ResponseHelper.pageEtag(PROPS, page("{'_id': 1, 'v': 1}", "{'_id': 2, 'v': 1}"), -1));
+    }
+}
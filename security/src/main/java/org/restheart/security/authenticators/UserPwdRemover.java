@@ -23,6 +23,8 @@ package org.restheart.security.authenticators;
 import com.google.gson.JsonElement;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
 import org.restheart.ConfigurationException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
@@ -53,6 +55,16 @@ public class UserPwdRemover implements MongoInterceptor {
     private String propNamePassword;
     private boolean enabled = false;
 
+    public UserPwdRemover() {
+    }
+
+    UserPwdRemover(String usersDb, String usersCollection, String propNamePassword) {
+        this.usersDb = usersDb;
+        this.usersCollection = usersCollection;
+        this.propNamePassword = propNamePassword;
+        this.enabled = true;
+    }
+
     @InjectPluginsRegistry
     public void init(PluginsRegistry registry) {
         PluginRecord<Authenticator> _mra;
@@ -88,6 +100,17 @@ public class UserPwdRemover implements MongoInterceptor {
 
     @Override
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
+        if (response.isContentStreamed()) {
+            // remove the password from the documents as they are streamed,
+            // e.g. exporting the users collection
+            response.transformStreamedContent(doc -> {
+                removePassword(doc);
+                return doc;
+            });
+
+            return;
+        }
+
         DocumentContext dc = JsonPath.parse(response.readContent());
 
         JsonElement content = dc.json();
@@ -121,12 +144,28 @@ public class UserPwdRemover implements MongoInterceptor {
         response.setContent(BsonUtils.parse(content.toString()));
     }
 
+    private void removePassword(BsonDocument doc) {
+        var path = this.propNamePassword.split("\\.");
+        BsonValue current = doc;
+
+        for (int idx = 0; idx < path.length - 1; idx++) {
+            current = current.asDocument().get(path[idx]);
+
+            if (current == null || !current.isDocument()) {
+                return;
+            }
+        }
+
+        current.asDocument().remove(path[path.length - 1]);
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return enabled
                 && request.isGet()
                 && this.usersDb.equalsIgnoreCase(request.getDBName())
                 && this.usersCollection.equalsIgnoreCase(request.getCollectionName())
-                && response.getContent() != null;
+                // streamed content is not read here, see handle()
+                && (response.isContentStreamed() || response.getContent() != null);
     }
 }
@@ -49,6 +49,7 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap responseHeaders = new HeaderMap();
 
     public HttpServerExchange() {
     }
@@ -81,7 +82,8 @@ public class HttpServerExchange extends AbstractAttachable {
         return this;
     }
 
-    void addExchangeCompleteListener(ExchangeCompletionListener listener) {
+    public HttpServerExchange addExchangeCompleteListener(final ExchangeCompletionListener listener) {
+        return this;
     }
 
     /**
@@ -160,6 +162,10 @@ public class HttpServerExchange extends AbstractAttachable {
         return null;
     }
 
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
     public SecurityContext getSecurityContext() {
         return null;
     }
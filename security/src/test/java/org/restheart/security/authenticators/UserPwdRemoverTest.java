@@ -0,0 +1,104 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.authenticators;
+
+import com.mongodb.client.MongoCursor;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.PipelineInfo;
+import org.restheart.exchange.PipelineInfo.PIPELINE_TYPE;
+import org.restheart.exchange.Request;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.MongoResponse.StreamedContentWriter;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class UserPwdRemoverTest {
+    private static final StreamedContentWriter NDJSON = new StreamedContentWriter() {
+        @Override
+        public void write(BsonDocument doc, Writer writer) throws IOException {
+            writer.write(doc.toJson());
+            writer.write('\n');
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    private static MongoResponse export(String... docs) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/userbase/users/_export");
+        exchange.setRequestMethod(new HttpString("GET"));
+        Request.setPipelineInfo(exchange, new PipelineInfo(PIPELINE_TYPE.SERVICE, "/", "mongo"));
+
+        MongoRequest.init(exchange, "/", "*");
+        var response = MongoResponse.init(exchange);
+
+        var it = Arrays.stream(docs).map(BsonDocument::parse).iterator();
+        MongoCursor<BsonDocument> cursor = mock(MongoCursor.class);
+        when(cursor.hasNext()).thenAnswer(i -> it.hasNext());
+        when(cursor.next()).thenAnswer(i -> it.next());
+
+        response.setStreamedContent(cursor, Integer.MAX_VALUE);
+        response.setStreamedContentWriter(NDJSON);
+
+        return response;
+    }
+
+    private static String write(MongoResponse response) throws IOException {
+        var os = new ByteArrayOutputStream();
+        response.writeContent(os);
+        return os.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExportWithPasswordRemoval() throws Exception {
+        var remover = new UserPwdRemover("userbase", "users", "password");
+        var response = export("{'_id': 'a', 'password': 'x'}", "{'_id': 'b', 'password': 'y'}");
+        var request = MongoRequest.of(response.getExchange());
+
+        assertTrue(remover.resolve(request, response));
+        remover.handle(request, response);
+
+        // the content is still streamed, with the export format
+        assertTrue(response.isContentStreamed());
+        assertEquals("{\"_id\": \"a\"}\n{\"_id\": \"b\"}\n", write(response));
+    }
+
+    @Test
+    public void testExportFormatOfReadContent() throws Exception {
+        var response = export("{'_id': 'a'}");
+
+        // reading the content, e.g. by an interceptor, does not change the format
+        assertTrue(response.getContent().isArray());
+        assertEquals("{\"_id\": \"a\"}\n", write(response));
+    }
+}